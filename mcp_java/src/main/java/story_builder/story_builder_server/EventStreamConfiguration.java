@@ -0,0 +1,24 @@
+package story_builder.story_builder_server;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import story_builder.story_builder_server.events.EventStreamRegistry;
+import story_builder.story_builder_server.events.OverflowPolicy;
+
+import java.time.Duration;
+
+@Configuration
+public class EventStreamConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public EventStreamRegistry eventStreamRegistry(@Value("${story.events.queue-capacity:64}") int queueCapacity,
+                                                   @Value("${story.events.overflow:drop-oldest}") OverflowPolicy overflow,
+                                                   @Value("${story.events.keep-alive:15s}") Duration keepAlive,
+                                                   @Value("${story.events.timeout:30m}") Duration timeout,
+                                                   @Value("${story.events.max-clients:10000}") int maxClients,
+                                                   MeterRegistry meterRegistry) {
+        return new EventStreamRegistry(queueCapacity, overflow, keepAlive, timeout, maxClients, meterRegistry);
+    }
+}
@@ -4,20 +4,24 @@ import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-
-import java.io.IOException;
+import story_builder.story_builder_server.events.EventStreamRegistry;
 
 @RestController
 public class McpController {
 
-    @GetMapping(path = "/sse", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    private final EventStreamRegistry events;
+
+    public McpController(EventStreamRegistry events) {
+        this.events = events;
+    }
+
+    /**
+     * Event stream of story changes: {@code init} on connect, then a
+     * {@code story-saved} event with the filename for every saved story. It is
+     * not at {@code /sse}, which belongs to the MCP transport.
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter streamSse() {
-        SseEmitter emitter = new SseEmitter();
-        try {
-            emitter.send(SseEmitter.event().name("init").data("SSE stream started"));
-        } catch (IOException e) {
-            emitter.completeWithError(e);
-        }
-        return emitter;
+        return events.open();
     }
 }
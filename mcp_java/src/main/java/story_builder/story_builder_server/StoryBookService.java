@@ -1,110 +1,91 @@
 package story_builder.story_builder_server;
 
-import jakarta.annotation.PostConstruct;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Service;
+import org.story.builder.paging.PageRequest;
+import org.story.builder.tools.StoryInput;
+import org.story.builder.tools.StoryToolEngine;
+import org.story.builder.tools.ToolResult;
+import story_builder.story_builder_server.events.EventStreamRegistry;
 
-import java.io.IOException;
-import java.nio.file.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.util.List;
 
+/**
+ * Exposes the shared {@link StoryToolEngine} as Spring AI tools. A failed call is
+ * thrown so that Spring AI answers it with {@code isError} set, the same as the
+ * plain MCP server does.
+ */
 @Service
 public class StoryBookService {
-    private static final Logger log = LoggerFactory.getLogger(StoryBookService.class);
-    private final Map<String, Character> characters = new HashMap<>();
+    private final StoryToolEngine engine;
 
-    @Tool(name = "get_characters", description = "Get the list of all available character names")
-    public List<String> getCharacters() {
-        return new ArrayList<>(characters.keySet());
+    public StoryBookService(StoryToolEngine engine, EventStreamRegistry events) {
+        this.engine = engine;
+        engine.onSaved(filename -> events.publish("story-saved", filename));
+    }
+
+    @Tool(name = "get_characters", description = "Get a page of available character names; pass the cursor from the last line back for the next page")
+    public String getCharacters(
+            @ToolParam(required = false, description = "maximum number of names to return (default 100)") Integer limit,
+            @ToolParam(required = false, description = "cursor returned by the previous call") String cursor,
+            @ToolParam(required = false, description = "only return names starting with this") String prefix,
+            @ToolParam(required = false, description = "only return names containing this") String contains) {
+        return text(engine.listCharacters(pageRequest(limit, cursor, prefix, contains)));
     }
 
     @Tool(name = "get_backstory", description = "Get the backstory of a specified character")
     public String getBackstory(String character) {
-        return Optional.ofNullable(characters.get(character))
-                .map(Character::backstory)
-                .orElse("Character not found.");
+        return text(engine.getBackstory(character));
     }
 
     @Tool(name = "get_superpower", description = "Get the superpower of a specified character")
     public String getSuperpower(String character) {
-        return Optional.ofNullable(characters.get(character))
-                .map(Character::superpower)
-                .orElse("Character not found.");
+        return text(engine.getSuperpower(character));
     }
 
     @Tool(name = "save_story", description = "Save a story to a markdown file with title and creation date")
     public String saveStory(String title, String content) {
-        try {
-            String filename = sanitizeFilename(title);
-            String dateCreated = LocalDateTime.now().format(DateTimeFormatter.ofPattern("MMMM dd, yyyy"));
-            String fullContent = String.format("# %s\n\n**Date Created:** %s\n\n%s", title, dateCreated, content);
-            
-            Path path = Paths.get(filename);
-            Files.writeString(path, fullContent);
-            return "Story has been saved at: " + path.toAbsolutePath();
-        } catch (IOException e) {
-            log.error("Error saving story", e);
-            return "Error saving story: " + e.getMessage();
-        }
+        return text(engine.saveStory(title, content));
     }
 
-    @Tool(name = "list_stories", description = "List all saved story files in markdown format")
-    public List<String> listStories() {
-        try {
-            return Files.list(Paths.get("."))
-                    .map(Path::getFileName)
-                    .map(Path::toString)
-                    .filter(name -> name.endsWith(".md"))
-                    .toList();
-        } catch (IOException e) {
-            log.error("Error listing stories", e);
-            return Collections.emptyList();
-        }
+    @Tool(name = "save_stories", description = "Save several stories at once, each to a markdown file with title and creation date")
+    public String saveStories(List<StoryInput> stories) {
+        return text(engine.saveStories(stories));
     }
 
-    @Tool(name = "get_story", description = "Read the content of a specific story file")
-    public String getStory(String filename) {
-        try {
-            return Files.readString(Paths.get(filename));
-        } catch (IOException e) {
-            log.error("Error reading story", e);
-            return "Story file not found.";
-        }
+    @Tool(name = "list_stories", description = "List a page of saved story files in markdown format; pass the cursor from the last line back for the next page")
+    public String listStories(
+            @ToolParam(required = false, description = "maximum number of files to return (default 100)") Integer limit,
+            @ToolParam(required = false, description = "cursor returned by the previous call") String cursor,
+            @ToolParam(required = false, description = "only return files starting with this") String prefix,
+            @ToolParam(required = false, description = "only return files containing this") String contains) {
+        return text(engine.listStories(pageRequest(limit, cursor, prefix, contains)));
     }
 
+    @Tool(name = "search_stories", description = "Search saved stories by words in their title and content, best matches first")
+    public String searchStories(
+            String query,
+            @ToolParam(required = false, description = "maximum number of stories to return (default 10)") Integer limit) {
+        return text(engine.searchStories(query, limit));
+    }
 
-
-    private String sanitizeFilename(String title) {
-        String filename = title.toLowerCase().replaceAll("\\s+", "_");
-        String[] parts = filename.split("_");
-        if (parts.length > 4) {
-            filename = String.join("_", Arrays.copyOfRange(parts, 0, 4));
-        }
-        if (filename.length() > 30) {
-            filename = filename.substring(0, 30);
-        }
-        return filename + ".md";
+    @Tool(name = "get_story", description = "Read the content of a specific story file; long stories are returned a chunk at a time")
+    public String getStory(
+            String filename,
+            @ToolParam(required = false, description = "byte offset to start reading at (default 0)") Long offset,
+            @ToolParam(required = false, description = "maximum number of bytes to return") Integer length) {
+        return text(engine.getStory(filename, offset, length));
     }
 
-    @PostConstruct
-    public void init() {
-        characters.put("Jack", new Character(
-            "Jack is a former spy who now lives as a covert hero.",
-            "Invisibility and telepathy"
-        ));
-        characters.put("Ram", new Character(
-            "Ram is an ancient warrior reborn in the modern world to fight for peace.",
-            "Invincible body and immense strength"
-        ));
-        characters.put("Robert", new Character(
-            "Robert is a scientist who became part machine after a lab accident.",
-            "Power fused with advanced technology"
-        ));
+    private static PageRequest pageRequest(Integer limit, String cursor, String prefix, String contains) {
+        return new PageRequest(limit == null ? PageRequest.DEFAULT_LIMIT : limit, cursor, prefix, contains);
     }
 
-    record Character(String backstory, String superpower) {}
+    private static String text(ToolResult result) {
+        if (result.isError()) {
+            throw new IllegalStateException(result.text());
+        }
+        return result.text();
+    }
 }
@@ -1,14 +1,21 @@
 package story_builder.story_builder_server;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.ai.tool.ToolCallbacks;
 import org.springframework.ai.tool.ToolCallback;
 import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.transport.WebMvcSseServerTransport;
 import io.modelcontextprotocol.spec.McpSchema.*;
 import io.modelcontextprotocol.spec.McpSchema;
+import story_builder.story_builder_server.metrics.MeteredToolCallback;
+import story_builder.story_builder_server.metrics.SseSessionFilter;
 
+import java.util.Arrays;
 import java.util.List;
 
 @SpringBootApplication
@@ -19,21 +26,40 @@ public class StoryBuilderServerApplication {
 	}
 
 	@Bean
-	public List<ToolCallback> danTools(StoryBookService storyBookService) {
-		return List.of(ToolCallbacks.from(storyBookService));
+	public List<ToolCallback> danTools(StoryBookService storyBookService, MeterRegistry meterRegistry) {
+		return Arrays.stream(ToolCallbacks.from(storyBookService))
+			.<ToolCallback>map(tool -> new MeteredToolCallback(tool, meterRegistry))
+			.toList();
 	}
 
+	/**
+	 * Counts open streams on the MCP transport's SSE endpoint, which Spring AI does not make configurable.
+	 */
 	@Bean
-	public List<McpServerFeatures.SyncPromptRegistration> myPrompts() {
+	public FilterRegistrationBean<SseSessionFilter> sseSessionFilter(MeterRegistry meterRegistry) {
+		FilterRegistrationBean<SseSessionFilter> registration =
+			new FilterRegistrationBean<>(new SseSessionFilter(meterRegistry));
+		registration.addUrlPatterns(WebMvcSseServerTransport.DEFAULT_SSE_ENDPOINT);
+		registration.setAsyncSupported(true);
+		return registration;
+	}
+
+	@Bean
+	public List<McpServerFeatures.SyncPromptRegistration> myPrompts(MeterRegistry meterRegistry) {
 		var prompt = new McpSchema.Prompt("greeting", "A friendly greeting prompt",
 			List.of(new McpSchema.PromptArgument("name", "The name to greet", true)));
 
-		var promptRegistration = new McpServerFeatures.SyncPromptRegistration(prompt, getPromptRequest -> {
+		Timer latency = Timer.builder("story.prompt.calls")
+			.description("Time spent in the prompt handler")
+			.tag("prompt", prompt.name())
+			.publishPercentileHistogram()
+			.register(meterRegistry);
+		var promptRegistration = new McpServerFeatures.SyncPromptRegistration(prompt, getPromptRequest -> latency.record(() -> {
 			String nameArgument = (String) getPromptRequest.arguments().get("name");
 			if (nameArgument == null) { nameArgument = "friend"; }
 			var userMessage = new PromptMessage(Role.USER, new TextContent("Hello " + nameArgument + "! How can I assist you today?"));
 			return new GetPromptResult("A personalized greeting message", List.of(userMessage));
-		});
+		}));
 
 		return List.of(promptRegistration);
 	}
@@ -0,0 +1,86 @@
+package story_builder.story_builder_server;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.story.builder.characters.CharacterRegistry;
+import org.story.builder.search.StoryIndex;
+import org.story.builder.store.CachingStoryRepository;
+import org.story.builder.store.Durability;
+import org.story.builder.store.StoreSettings;
+import org.story.builder.store.StoryRepository;
+import org.story.builder.tools.StoryToolEngine;
+import story_builder.story_builder_server.metrics.StoryCacheMetrics;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Configuration
+public class StoryStoreConfiguration {
+
+    /**
+     * The same store the plain MCP server opens from system properties, see {@link StoryRepository}.
+     */
+    @Bean(destroyMethod = "close")
+    public StoryRepository storyRepository(@Value("${story.store.type:file}") String type,
+                                           @Value("${story.store.dir:.}") String dir,
+                                           @Value("${story.store.durability:none}") Durability durability,
+                                           @Value("${story.store.journal:false}") boolean journal,
+                                           @Value("${story.store.journal-segment-bytes:16777216}") long segmentBytes,
+                                           @Value("${story.store.journal-save-timeout:30s}") Duration saveTimeout,
+                                           @Value("${story.store.compression:none}") String compression,
+                                           @Value("${story.store.compression-level:6}") int compressionLevel,
+                                           @Value("${story.store.group-commit:false}") boolean groupCommit,
+                                           @Value("${story.store.max-batch:256}") int maxBatch,
+                                           @Value("${story.cache.max-bytes:67108864}") long cacheBytes) throws IOException {
+        return StoryRepository.open(new StoreSettings(type, Paths.get(dir), durability, journal, segmentBytes,
+                saveTimeout.toMillis(), compression, compressionLevel, groupCommit, maxBatch, cacheBytes));
+    }
+
+    /**
+     * The counters of the read cache, nothing when {@code story.cache.max-bytes} is 0.
+     */
+    @Bean
+    public MeterBinder storyCacheMetrics(StoryRepository stories) {
+        if (stories instanceof CachingStoryRepository cache) {
+            return new StoryCacheMetrics(cache);
+        }
+        return registry -> { };
+    }
+
+    @Bean(destroyMethod = "close")
+    public CharacterRegistry characterRegistry(@Value("${story.characters.file:}") String file,
+                                               @Value("${story.characters.watch:true}") boolean watch) throws IOException {
+        if (file.isBlank()) {
+            return CharacterRegistry.defaults();
+        }
+        CharacterRegistry registry = CharacterRegistry.load(Paths.get(file));
+        if (watch) {
+            registry.watch();
+        }
+        return registry;
+    }
+
+    /**
+     * The index behind {@code search_stories}, built from the repository in the
+     * background as the plain MCP server does, so startup does not wait for it.
+     */
+    @Bean
+    public StoryIndex storyIndex(StoryRepository stories,
+                                 @Value("${story.search.snippet-chars:512}") int snippetChars) {
+        StoryIndex index = new StoryIndex(snippetChars);
+        index.buildInBackground(stories);
+        return index;
+    }
+
+    /**
+     * The tools behind {@link StoryBookService}, shared with the plain MCP server.
+     */
+    @Bean
+    public StoryToolEngine storyToolEngine(CharacterRegistry characters, StoryRepository stories, StoryIndex index,
+                                           @Value("${story.chunk.max-bytes:1048576}") int maxChunkBytes) {
+        return new StoryToolEngine(characters, stories, index, maxChunkBytes);
+    }
+}
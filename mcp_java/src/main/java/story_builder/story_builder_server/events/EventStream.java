@@ -0,0 +1,67 @@
+package story_builder.story_builder_server.events;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One connected client: its emitter and a bounded queue of events not yet
+ * written to it. Events are built once and the same instance is queued for every
+ * client, so a queued event costs a reference per client.
+ */
+final class EventStream {
+
+    enum Offer { QUEUED, DROPPED, OVERFLOW }
+
+    final long id;
+    final SseEmitter emitter;
+    final AtomicBoolean draining = new AtomicBoolean();
+    volatile long lastSendNanos = System.nanoTime();
+    volatile boolean closed;
+    private final BlockingQueue<Set<DataWithMediaType>> queue;
+    private final OverflowPolicy overflow;
+
+    EventStream(long id, SseEmitter emitter, int capacity, OverflowPolicy overflow) {
+        this.id = id;
+        this.emitter = emitter;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflow = overflow;
+    }
+
+    /**
+     * Queues the event, applying the overflow policy when the queue is full.
+     *
+     * @return {@link Offer#OVERFLOW} when the policy is to disconnect the client
+     */
+    Offer offer(Set<DataWithMediaType> event) {
+        if (queue.offer(event)) {
+            return Offer.QUEUED;
+        }
+        switch (overflow) {
+            case DROP_OLDEST -> {
+                // The writer may take events meanwhile; one retry after freeing a slot is enough.
+                queue.poll();
+                queue.offer(event);
+                return Offer.DROPPED;
+            }
+            case DROP_NEWEST -> {
+                return Offer.DROPPED;
+            }
+            default -> {
+                return Offer.OVERFLOW;
+            }
+        }
+    }
+
+    Set<DataWithMediaType> poll() {
+        return queue.poll();
+    }
+
+    boolean isIdle() {
+        return queue.isEmpty();
+    }
+}
@@ -0,0 +1,172 @@
+package story_builder.story_builder_server.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live {@code /events} clients and the events sent to them.
+ *
+ * <p>Publishing never waits for a client: an event goes into each client's
+ * bounded queue and a virtual thread per busy client writes the queue out, so a
+ * slow reader only parks its own thread. When a queue is full the
+ * {@link OverflowPolicy} decides between dropping events and disconnecting the
+ * client. Idle streams get a comment line every keep-alive interval, and a
+ * stream is removed as soon as it completes, times out or fails to write.
+ * Memory therefore stays at the queue capacity per client, however many
+ * clients are connected.
+ */
+public class EventStreamRegistry implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventStreamRegistry.class);
+
+    private final int queueCapacity;
+    private final OverflowPolicy overflow;
+    private final long keepAliveNanos;
+    private final Duration timeout;
+    private final int maxClients;
+    private final Map<Long, EventStream> streams = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService keepAlive;
+    private final Counter dropped;
+    private final Counter disconnected;
+
+    public EventStreamRegistry(int queueCapacity, OverflowPolicy overflow, Duration keepAlive, Duration timeout,
+                               int maxClients, MeterRegistry meterRegistry) {
+        this.queueCapacity = queueCapacity;
+        this.overflow = overflow;
+        this.keepAliveNanos = keepAlive.toNanos();
+        this.timeout = timeout;
+        this.maxClients = maxClients;
+        Gauge.builder("story.events.streams.active", streams, Map::size)
+                .description("Open event streams")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("story.events.dropped")
+                .description("Events dropped because a client's send queue was full")
+                .register(meterRegistry);
+        this.disconnected = Counter.builder("story.events.disconnects")
+                .description("Streams closed because the client did not keep up")
+                .tag("reason", "slow")
+                .register(meterRegistry);
+        this.keepAlive = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("story-events-keepalive").factory());
+        this.keepAlive.scheduleWithFixedDelay(this::sendKeepAlives, keepAliveNanos, keepAliveNanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registers a new client and queues the {@code init} event for it.
+     *
+     * @throws ResponseStatusException 503 when {@code maxClients} streams are open
+     */
+    public SseEmitter open() {
+        if (streams.size() >= maxClients) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event stream clients");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        EventStream stream = new EventStream(ids.incrementAndGet(), emitter, queueCapacity, overflow);
+        emitter.onCompletion(() -> remove(stream));
+        emitter.onTimeout(() -> remove(stream));
+        emitter.onError(e -> remove(stream));
+        streams.put(stream.id, stream);
+        offer(stream, SseEmitter.event().name("init").data("SSE stream started").build());
+        return emitter;
+    }
+
+    /**
+     * Queues the event for every connected client.
+     */
+    public void publish(String name, Object data) {
+        Set<DataWithMediaType> event = SseEmitter.event().name(name).data(data).build();
+        for (EventStream stream : streams.values()) {
+            offer(stream, event);
+        }
+    }
+
+    public int size() {
+        return streams.size();
+    }
+
+    private void offer(EventStream stream, Set<DataWithMediaType> event) {
+        switch (stream.offer(event)) {
+            case QUEUED -> schedule(stream);
+            case DROPPED -> {
+                dropped.increment();
+                schedule(stream);
+            }
+            case OVERFLOW -> {
+                disconnected.increment();
+                log.debug("Disconnecting slow event stream client {}", stream.id);
+                remove(stream);
+                stream.emitter.complete();
+            }
+        }
+    }
+
+    private void schedule(EventStream stream) {
+        if (!stream.closed && stream.draining.compareAndSet(false, true)) {
+            writers.execute(() -> drain(stream));
+        }
+    }
+
+    private void drain(EventStream stream) {
+        try {
+            for (Set<DataWithMediaType> event; !stream.closed && (event = stream.poll()) != null; ) {
+                stream.emitter.send(event);
+                stream.lastSendNanos = System.nanoTime();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client gone or emitter already completed.
+            remove(stream);
+            stream.emitter.completeWithError(e);
+        } finally {
+            stream.draining.set(false);
+        }
+        if (!stream.isIdle()) {
+            schedule(stream);
+        }
+    }
+
+    private void sendKeepAlives() {
+        long now = System.nanoTime();
+        Set<DataWithMediaType> comment = SseEmitter.event().comment("keep-alive").build();
+        for (EventStream stream : streams.values()) {
+            if (stream.isIdle() && now - stream.lastSendNanos >= keepAliveNanos) {
+                offer(stream, comment);
+            }
+        }
+    }
+
+    private void remove(EventStream stream) {
+        stream.closed = true;
+        streams.remove(stream.id, stream);
+    }
+
+    @Override
+    public void close() {
+        keepAlive.shutdownNow();
+        for (EventStream stream : streams.values()) {
+            remove(stream);
+            stream.emitter.complete();
+        }
+        writers.shutdown();
+    }
+}
@@ -0,0 +1,13 @@
+package story_builder.story_builder_server.events;
+
+/**
+ * What happens to an event for a client whose send queue is full.
+ */
+public enum OverflowPolicy {
+    /** Discard the oldest queued event to make room; the client misses events but stays connected. */
+    DROP_OLDEST,
+    /** Discard the new event. */
+    DROP_NEWEST,
+    /** Close the client's stream; it can reconnect once it keeps up again. */
+    DISCONNECT
+}
@@ -0,0 +1,84 @@
+package story_builder.story_builder_server.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.story.builder.store.StoryChunk;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records calls, errors, latency and payload sizes of one {@code @Tool} method.
+ * The meters are looked up once, so a call only touches their counters.
+ *
+ * <p>Payload sizes are the UTF-8 size of the JSON arguments and of the returned
+ * JSON; a call counts as an error when the tool method throws.
+ */
+public class MeteredToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final Timer latency;
+    private final Counter errors;
+    private final DistributionSummary requestBytes;
+    private final DistributionSummary responseBytes;
+
+    public MeteredToolCallback(ToolCallback delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        String tool = delegate.getToolDefinition().name();
+        this.latency = Timer.builder("story.tool.calls")
+                .description("Time spent in the tool method")
+                .tag("tool", tool)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.errors = Counter.builder("story.tool.errors")
+                .description("Tool calls that threw")
+                .tag("tool", tool)
+                .register(registry);
+        this.requestBytes = DistributionSummary.builder("story.tool.request")
+                .description("UTF-8 size of the tool arguments")
+                .baseUnit("bytes")
+                .tag("tool", tool)
+                .register(registry);
+        this.responseBytes = DistributionSummary.builder("story.tool.response")
+                .description("UTF-8 size of the tool result")
+                .baseUnit("bytes")
+                .tag("tool", tool)
+                .register(registry);
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return call(toolInput, null);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        long start = System.nanoTime();
+        try {
+            String result = toolContext == null ? delegate.call(toolInput) : delegate.call(toolInput, toolContext);
+            responseBytes.record(StoryChunk.utf8Length(result));
+            return result;
+        } catch (RuntimeException e) {
+            errors.increment();
+            throw e;
+        } finally {
+            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            requestBytes.record(StoryChunk.utf8Length(toolInput));
+        }
+    }
+}
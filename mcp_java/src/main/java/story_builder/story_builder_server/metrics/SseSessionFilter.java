@@ -0,0 +1,79 @@
+package story_builder.story_builder_server.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the open SSE streams of the MCP transport as the
+ * {@code story.sse.sessions.active} gauge: a stream is open from the request
+ * until its async context completes, errors or times out. The transport's
+ * handler is a router function, so the count is kept here, in front of it.
+ */
+public class SseSessionFilter implements Filter {
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    public SseSessionFilter(MeterRegistry registry) {
+        Gauge.builder("story.sse.sessions.active", active, AtomicInteger::get)
+                .description("Open MCP SSE streams")
+                .register(registry);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        active.incrementAndGet();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Closed());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    private final class Closed implements AsyncListener {
+        private boolean closed;
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private synchronized void close() {
+            if (!closed) {
+                closed = true;
+                active.decrementAndGet();
+            }
+        }
+    }
+}
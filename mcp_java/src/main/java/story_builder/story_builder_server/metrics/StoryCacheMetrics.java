@@ -0,0 +1,38 @@
+package story_builder.story_builder_server.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.story.builder.store.CachingStoryRepository;
+
+/**
+ * Exports the counters of the story read cache: reads served from it, reads that
+ * went to the store, evictions, and the size of the cached stories. The meters
+ * read {@link CachingStoryRepository#stats()} when they are scraped.
+ */
+public class StoryCacheMetrics implements MeterBinder {
+
+    private final CachingStoryRepository cache;
+
+    public StoryCacheMetrics(CachingStoryRepository cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("story.cache.hits", cache, c -> c.stats().hits())
+                .description("Story reads served from the cache")
+                .register(registry);
+        FunctionCounter.builder("story.cache.misses", cache, c -> c.stats().misses())
+                .description("Story reads that went to the store")
+                .register(registry);
+        FunctionCounter.builder("story.cache.evictions", cache, c -> c.stats().evictions())
+                .description("Stories evicted from the cache")
+                .register(registry);
+        Gauge.builder("story.cache.size", cache, c -> c.stats().weightBytes())
+                .description("Size of the cached stories")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
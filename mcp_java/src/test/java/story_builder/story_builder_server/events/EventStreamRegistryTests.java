@@ -0,0 +1,51 @@
+package story_builder.story_builder_server.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventStreamRegistryTests {
+
+	@Test
+	void fullQueueFollowsTheOverflowPolicy() {
+		Set<DataWithMediaType> first = SseEmitter.event().data("1").build();
+		Set<DataWithMediaType> second = SseEmitter.event().data("2").build();
+		Set<DataWithMediaType> third = SseEmitter.event().data("3").build();
+
+		EventStream oldest = new EventStream(1, new SseEmitter(), 2, OverflowPolicy.DROP_OLDEST);
+		oldest.offer(first);
+		oldest.offer(second);
+		assertThat(oldest.offer(third)).isEqualTo(EventStream.Offer.DROPPED);
+		assertThat(oldest.poll()).isSameAs(second);
+		assertThat(oldest.poll()).isSameAs(third);
+
+		EventStream newest = new EventStream(2, new SseEmitter(), 1, OverflowPolicy.DROP_NEWEST);
+		newest.offer(first);
+		assertThat(newest.offer(second)).isEqualTo(EventStream.Offer.DROPPED);
+		assertThat(newest.poll()).isSameAs(first);
+		assertThat(newest.isIdle()).isTrue();
+
+		EventStream disconnect = new EventStream(3, new SseEmitter(), 1, OverflowPolicy.DISCONNECT);
+		disconnect.offer(first);
+		assertThat(disconnect.offer(second)).isEqualTo(EventStream.Offer.OVERFLOW);
+	}
+
+	@Test
+	void rejectsClientsOverTheLimit() {
+		SimpleMeterRegistry meters = new SimpleMeterRegistry();
+		try (EventStreamRegistry registry = new EventStreamRegistry(4, OverflowPolicy.DROP_OLDEST,
+				Duration.ofMinutes(1), Duration.ofMinutes(1), 2, meters)) {
+			registry.open();
+			registry.open();
+			assertThatThrownBy(registry::open).hasMessageContaining("Too many event stream clients");
+			assertThat(meters.get("story.events.streams.active").gauge().value()).isEqualTo(2);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package story_builder.story_builder_server.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbacks;
+import org.springframework.ai.tool.annotation.Tool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MeteredToolCallbackTests {
+
+	static class EchoTools {
+
+		@Tool(name = "echo", description = "Echo the text back")
+		public String echo(String text) {
+			if (text.equals("fail")) {
+				throw new IllegalStateException("failed");
+			}
+			return text;
+		}
+	}
+
+	@Test
+	void recordsCallsErrorsAndPayloadSizes() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ToolCallback echo = new MeteredToolCallback(ToolCallbacks.from(new EchoTools())[0], registry);
+
+		echo.call("{\"text\":\"héllo\"}");
+		assertThatThrownBy(() -> echo.call("{\"text\":\"fail\"}")).isInstanceOf(RuntimeException.class);
+
+		assertThat(registry.get("story.tool.calls").tag("tool", "echo").timer().count()).isEqualTo(2);
+		assertThat(registry.get("story.tool.errors").tag("tool", "echo").counter().count()).isEqualTo(1);
+		assertThat(registry.get("story.tool.request").tag("tool", "echo").summary().totalAmount())
+				.isEqualTo(17 + 15);
+		assertThat(registry.get("story.tool.response").tag("tool", "echo").summary().count()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,27 @@
+package story_builder.story_builder_server.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseSessionFilterTests {
+
+	@Test
+	void countsStreamsUntilTheirAsyncContextEnds() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		SseSessionFilter filter = new SseSessionFilter(registry);
+		MockHttpServletRequest stream = new MockHttpServletRequest("GET", "/sse");
+		stream.setAsyncSupported(true);
+
+		filter.doFilter(stream, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+		filter.doFilter(new MockHttpServletRequest("GET", "/sse"), new MockHttpServletResponse(),
+				(request, response) -> { });
+
+		assertThat(registry.get("story.sse.sessions.active").gauge().value()).isEqualTo(1);
+		stream.getAsyncContext().complete();
+		assertThat(registry.get("story.sse.sessions.active").gauge().value()).isZero();
+	}
+}
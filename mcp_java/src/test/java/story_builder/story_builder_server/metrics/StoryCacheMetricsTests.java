@@ -0,0 +1,33 @@
+package story_builder.story_builder_server.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.story.builder.store.CachingStoryRepository;
+import org.story.builder.store.FileStoryRepository;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoryCacheMetricsTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void exportsTheCacheCounters() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		CachingStoryRepository cache = new CachingStoryRepository(new FileStoryRepository(dir), 1024);
+		new StoryCacheMetrics(cache).bindTo(registry);
+
+		cache.save("a.md", "alpha");
+		cache.get("a.md");
+		cache.get("a.md");
+
+		assertThat(registry.get("story.cache.misses").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("story.cache.hits").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("story.cache.evictions").functionCounter().count()).isZero();
+		assertThat(registry.get("story.cache.size").gauge().value()).isPositive();
+	}
+}
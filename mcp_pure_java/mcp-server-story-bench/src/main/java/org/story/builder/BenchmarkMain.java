@@ -0,0 +1,41 @@
+package org.story.builder;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the story server benchmarks and writes the results as JSON
+ * ({@code jmh-result.json} unless {@code -rff} says otherwise), so runs of
+ * two builds can be diffed before deploying.
+ *
+ * <p>Accepts the usual JMH command line, e.g.
+ * {@code java -jar target/benchmarks.jar ToolBenchmark -rff before.json}.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include("org\\.story\\.builder\\..*Benchmark");
+        }
+        if (commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(commandLine.getResultFormat().get());
+        } else {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result("jmh-result.json");
+        }
+        builder.jvmArgsAppend("-Dlogback.configurationFile=logback-bench.xml");
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,99 @@
+package org.story.builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.story.builder.characters.CharacterRegistry;
+import org.story.builder.paging.PageRequest;
+import org.story.builder.search.StoryIndex;
+import org.story.builder.store.StoryRepository;
+import org.story.builder.tools.StoryToolEngine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Character tool calls answered from the engine on every call against the
+ * {@link CharacterResponses} built once per registry version, each followed by
+ * JSON encoding of the JSON-RPC response the way the transports write it. Run
+ * with {@code -prof gc} for allocations per call:
+ *
+ * <pre>java -jar benchmarks.jar CharacterResponseBenchmark -prof gc</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharacterResponseBenchmark {
+
+    private final ObjectMapper plain = new ObjectMapper();
+    private final ObjectMapper preEncoded = PreEncodedJson.register(new ObjectMapper());
+    private final Map<String, Object> character = Map.of("character", "Ram");
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+
+    private StoryToolEngine engine;
+    private McpServerFeatures.SyncToolSpecification getBackstory;
+    private McpServerFeatures.SyncToolSpecification listCharacters;
+
+    @Setup
+    public void setUp() throws IOException {
+        CharacterRegistry characters = CharacterRegistry.defaults();
+        StoryTools.useCharacters(characters);
+        engine = new StoryToolEngine(characters, StoryRepository.fromSystemProperties(), new StoryIndex(), 1024);
+        getBackstory = StoryTools.getBackstory();
+        listCharacters = StoryTools.getCharacters();
+    }
+
+    @Benchmark
+    public McpSchema.CallToolResult backstoryPerCall() {
+        return StoryTools.result(engine.getBackstory((String) character.get("character")));
+    }
+
+    @Benchmark
+    public McpSchema.CallToolResult backstoryCached() {
+        return getBackstory.call().apply(null, character);
+    }
+
+    @Benchmark
+    public void backstoryPerCallEncoded() throws IOException {
+        plain.writeValue(out(), response(backstoryPerCall()));
+    }
+
+    @Benchmark
+    public void backstoryCachedEncoded() throws IOException {
+        preEncoded.writeValue(out(), response(backstoryCached()));
+    }
+
+    @Benchmark
+    public void listCharactersPerCallEncoded() throws IOException {
+        plain.writeValue(out(), response(StoryTools.result(engine.listCharacters(PageRequest.first(PageRequest.DEFAULT_LIMIT)))));
+    }
+
+    @Benchmark
+    public void listCharactersCachedEncoded() throws IOException {
+        preEncoded.writeValue(out(), response(listCharacters.call().apply(null, Map.of())));
+    }
+
+    private ByteArrayOutputStream out() {
+        out.reset();
+        return out;
+    }
+
+    private static McpSchema.JSONRPCResponse response(McpSchema.CallToolResult result) {
+        return new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, result, null);
+    }
+}
@@ -0,0 +1,106 @@
+package org.story.builder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.story.builder.store.StoryChunk;
+import org.story.builder.store.StoryWrite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Read latency of uncompressed and GZIP story files over a corpus of generated
+ * prose, drawn from a Zipf-like vocabulary like {@link SearchBenchmark}'s so it
+ * compresses about as well as real text rather than a repeated sentence. The
+ * setup prints the corpus size on disk for each store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final int STORIES = 200;
+    private static final int VOCABULARY = 20_000;
+
+    @Param({"file", "gzip"})
+    public String store;
+
+    @Param({"4096", "262144"})
+    public int size;
+
+    private StoryDirectory stories;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stories = StoryDirectory.create(store);
+        Random random = new Random(42);
+        List<StoryWrite> writes = new ArrayList<>(STORIES);
+        for (int i = 0; i < STORIES; i++) {
+            writes.add(new StoryWrite("story_" + i + ".md", prose(random, size)));
+        }
+        stories.repository().saveAll(writes);
+        long onDisk;
+        try (Stream<Path> files = Files.list(stories.dir())) {
+            onDisk = files.mapToLong(path -> path.toFile().length()).sum();
+        }
+        System.out.printf("%n%s: %d stories of %d bytes take %d bytes on disk (%.2fx)%n",
+                store, STORIES, size, onDisk, (double) STORIES * size / onDisk);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        stories.close();
+    }
+
+    @Benchmark
+    public String get() throws IOException {
+        return stories.repository().get(randomStory());
+    }
+
+    @Benchmark
+    public StoryChunk readFirstChunk() throws IOException {
+        return stories.repository().read(randomStory(), 0, 16 * 1024);
+    }
+
+    @Benchmark
+    public StoryChunk readLastChunk() throws IOException {
+        return stories.repository().read(randomStory(), Math.max(0, size - 16 * 1024), 16 * 1024);
+    }
+
+    private static String randomStory() {
+        return "story_" + ThreadLocalRandom.current().nextInt(STORIES) + ".md";
+    }
+
+    private static String prose(Random random, int size) {
+        StringBuilder story = new StringBuilder(size + 16);
+        story.append("# A generated story\n\n");
+        for (int w = 0; story.length() < size; w++) {
+            // Rank r is drawn with probability roughly proportional to 1/r.
+            int rank = (int) Math.pow(VOCABULARY, random.nextDouble());
+            story.append("w").append(Integer.toString(rank, 36)).append(w % 12 == 11 ? ".\n" : " ");
+        }
+        story.setLength(size);
+        return story.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package org.story.builder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.story.builder.tools.StoryToolEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Saves of formatted stories under new titles where {@code duplicates} percent of
+ * the bodies were saved before, to the one-file-per-story store and to the
+ * content-addressed {@code dedup} store. Each trial prints how many bytes the
+ * saved stories take on disk. Scores are milliseconds per 1000 saves; the
+ * iterations are counted rather than timed so that every trial writes the same
+ * number of stories.
+ *
+ * <pre>java -jar benchmarks.jar DedupBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = 1000)
+@Measurement(iterations = 5, batchSize = 1000)
+@Fork(1)
+public class DedupBenchmark {
+
+    @Param({"file", "dedup"})
+    public String store;
+
+    @Param({"0", "50", "90"})
+    public int duplicates;
+
+    @Param({"16384"})
+    public int size;
+
+    private final Random random = new Random(42);
+    private final List<String> bodies = new ArrayList<>();
+    private StoryDirectory stories;
+    private int saved;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stories = StoryDirectory.create(store);
+        bodies.add(body());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        long onDisk;
+        try (Stream<Path> files = Files.walk(stories.dir())) {
+            onDisk = files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+        System.out.printf("%n%s, %d%% duplicates: %d stories take %d bytes on disk (%d per story)%n",
+                store, duplicates, saved, onDisk, onDisk / Math.max(1, saved));
+        stories.close();
+    }
+
+    @Benchmark
+    public String save() throws IOException {
+        String body;
+        if (random.nextInt(100) < duplicates) {
+            body = bodies.get(random.nextInt(bodies.size()));
+        } else {
+            body = body();
+            bodies.add(body);
+        }
+        String title = "Story number " + saved++;
+        return stories.repository().save(StoryToolEngine.sanitizeFilename(title),
+                StoryToolEngine.formatStory(title, body));
+    }
+
+    private String body() {
+        StringBuilder body = new StringBuilder(size + 16);
+        while (body.length() < size) {
+            body.append("word").append(random.nextInt(10_000)).append(' ');
+        }
+        body.setLength(size);
+        return body.toString();
+    }
+}
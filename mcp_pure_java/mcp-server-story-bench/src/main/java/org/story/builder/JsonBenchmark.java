@@ -0,0 +1,73 @@
+package org.story.builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson round trips of tool call messages with the {@link SseServer} object mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"64", "65536"})
+    public int textSize;
+
+    private final ObjectMapper json = SseServer.JSON;
+    private McpSchema.CallToolResult result;
+    private McpSchema.JSONRPCResponse response;
+    private String requestJson;
+    private String responseJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        String text = "x".repeat(textSize);
+        result = new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(text)), false);
+        response = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, result, null);
+        McpSchema.JSONRPCRequest request = new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION,
+                McpSchema.METHOD_TOOLS_CALL, 1,
+                new McpSchema.CallToolRequest("save_story", Map.of("title", "A title", "content", text)));
+        requestJson = json.writeValueAsString(request);
+        responseJson = json.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public String serializeCallToolResult() throws IOException {
+        return json.writeValueAsString(result);
+    }
+
+    @Benchmark
+    public String serializeResponse() throws IOException {
+        return json.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public McpSchema.JSONRPCMessage deserializeRequest() throws IOException {
+        return McpSchema.deserializeJsonRpcMessage(json, requestJson);
+    }
+
+    @Benchmark
+    public McpSchema.JSONRPCMessage deserializeResponse() throws IOException {
+        return McpSchema.deserializeJsonRpcMessage(json, responseJson);
+    }
+}
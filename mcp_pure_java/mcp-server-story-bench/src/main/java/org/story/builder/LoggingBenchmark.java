@@ -0,0 +1,200 @@
+package org.story.builder;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.JsonEncoder;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.story.builder.transport.AccessLogTransportProvider;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency a request pays for logging: a {@code get_backstory} call through a
+ * session with the access log, handled in process with the transport's writes
+ * discarded, under four logging setups writing to a temporary file:
+ *
+ * <ul>
+ *   <li>{@code off}: access log off, root at WARN;</li>
+ *   <li>{@code sync}: access log and root at INFO, appenders called on the request thread;</li>
+ *   <li>{@code async}: the same through {@link AsyncAppender} queues, as in {@code logback.xml};</li>
+ *   <li>{@code sync-debug}: the old default, root at DEBUG with a synchronous appender.</li>
+ * </ul>
+ *
+ * <pre>java -jar benchmarks.jar LoggingBenchmark -t 4</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+
+    @Param({"off", "sync", "async", "sync-debug"})
+    public String logging;
+
+    private final McpSchema.JSONRPCRequest call = new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION,
+            McpSchema.METHOD_TOOLS_CALL, 1,
+            Map.of("name", "get_backstory", "arguments", Map.of("character", "Ram")));
+
+    private Path logDir;
+    private McpAsyncServer server;
+    private McpServerSession session;
+
+    @Setup
+    public void setUp() throws IOException {
+        logDir = Files.createTempDirectory("logging-benchmark");
+        configureLogging();
+
+        SessionCapture provider = new SessionCapture();
+        McpServerFeatures.SyncToolSpecification backstory = StoryTools.getBackstory();
+        server = McpServer.async(new AccessLogTransportProvider(provider, 1))
+                .serverInfo("logging-benchmark", "1")
+                .capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+                .tools(new McpServerFeatures.AsyncToolSpecification(backstory.tool(),
+                        (exchange, arguments) -> Mono.just(backstory.call().apply(null, arguments))))
+                .build();
+        session = provider.factory.create(new DiscardingTransport());
+        session.handle(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 0,
+                Map.of("protocolVersion", McpSchema.LATEST_PROTOCOL_VERSION, "capabilities", Map.of(),
+                        "clientInfo", Map.of("name", "logging-benchmark", "version", "1")))).block();
+        session.handle(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+                McpSchema.METHOD_NOTIFICATION_INITIALIZED, null)).block();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        try (var files = Files.list(logDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(logDir);
+    }
+
+    @Benchmark
+    public void toolCall() {
+        session.handle(call).block();
+    }
+
+    private void configureLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        ch.qos.logback.classic.Logger access = context.getLogger("story.access");
+        access.setAdditive(false);
+        if (logging.equals("off")) {
+            root.setLevel(Level.WARN);
+            access.setLevel(Level.OFF);
+            return;
+        }
+        PatternLayoutEncoder pattern = new PatternLayoutEncoder();
+        pattern.setPattern(PATTERN);
+        JsonEncoder json = new JsonEncoder();
+        json.setWithContext(false);
+        json.setWithMDC(false);
+        json.setWithArguments(false);
+        boolean async = logging.equals("async");
+        root.setLevel(logging.equals("sync-debug") ? Level.DEBUG : Level.INFO);
+        root.addAppender(appender(context, "server.log", pattern, async));
+        access.setLevel(Level.INFO);
+        access.addAppender(appender(context, "access.log", json, async));
+    }
+
+    private Appender<ILoggingEvent> appender(LoggerContext context, String file, Encoder<ILoggingEvent> encoder,
+                                             boolean async) {
+        encoder.setContext(context);
+        encoder.start();
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setFile(logDir.resolve(file).toString());
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+        if (!async) {
+            return fileAppender;
+        }
+        AsyncAppender asyncAppender = new AsyncAppender();
+        asyncAppender.setContext(context);
+        asyncAppender.setQueueSize(8192);
+        asyncAppender.setNeverBlock(true);
+        asyncAppender.addAppender(fileAppender);
+        asyncAppender.start();
+        return asyncAppender;
+    }
+
+    /**
+     * Keeps the session factory so the benchmark can open a session without a client.
+     */
+    private static final class SessionCapture implements McpServerTransportProvider {
+        McpServerSession.Factory factory;
+
+        @Override
+        public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+            factory = sessionFactory;
+        }
+
+        @Override
+        public Mono<Void> notifyClients(String method, Map<String, Object> params) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.empty();
+        }
+    }
+
+    private static final class DiscardingTransport implements McpServerTransport {
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return Mono.empty();
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+            return SseServer.JSON.convertValue(data, typeRef);
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.empty();
+        }
+    }
+}
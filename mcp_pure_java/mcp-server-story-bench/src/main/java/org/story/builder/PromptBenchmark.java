@@ -0,0 +1,111 @@
+package org.story.builder;
+
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code prompts/get} handlers against the {@code String.format} rendering they
+ * replaced. Run with {@code -prof gc} to compare allocations per call
+ * ({@code gc.alloc.rate.norm}):
+ *
+ * <pre>java -jar benchmarks.jar PromptBenchmark -prof gc</pre>
+ *
+ * {@code *Repeated} calls use the same arguments each time and are served from
+ * the result cache; {@code *Distinct} calls cycle through more arguments than it
+ * holds, so every call renders the template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Dstory.prompts.cacheSize=16")
+public class PromptBenchmark {
+
+    private static final McpSchema.Prompt FORMATTED = new McpSchema.Prompt("get_backstory", "Get back story character.", List.of());
+
+    private McpServerFeatures.SyncPromptSpecification getBackstory;
+    private McpServerFeatures.SyncPromptSpecification saveStory;
+
+    private final McpSchema.GetPromptRequest character = new McpSchema.GetPromptRequest("get_backstory", Map.of("character", "Ram"));
+    private final McpSchema.GetPromptRequest[] characters = new McpSchema.GetPromptRequest[64];
+    private final McpSchema.GetPromptRequest story = new McpSchema.GetPromptRequest("save_story",
+            Map.of("title", "The Lab Accident", "content", "Robert woke up. ".repeat(1024)));
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        getBackstory = StoryPrompts.getBackstory();
+        saveStory = StoryPrompts.saveStory();
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = new McpSchema.GetPromptRequest("get_backstory", Map.of("character", "Character " + i));
+        }
+    }
+
+    @Benchmark
+    public McpSchema.GetPromptResult formattedRepeated() {
+        return formatted(character);
+    }
+
+    @Benchmark
+    public McpSchema.GetPromptResult formattedDistinct() {
+        return formatted(nextCharacter());
+    }
+
+    @Benchmark
+    public McpSchema.GetPromptResult templateRepeated() {
+        return getBackstory.promptHandler().apply(null, character);
+    }
+
+    @Benchmark
+    public McpSchema.GetPromptResult templateDistinct() {
+        return getBackstory.promptHandler().apply(null, nextCharacter());
+    }
+
+    @Benchmark
+    public McpSchema.GetPromptResult saveStoryFormatted() {
+        Map<String, Object> arguments = story.arguments();
+        StringBuilder promptMessage = new StringBuilder("Please save the story to disk: ");
+        promptMessage.append(arguments.get("title"));
+        promptMessage.append(arguments.get("content"));
+        McpSchema.TextContent content = new McpSchema.TextContent(promptMessage.toString());
+        McpSchema.PromptMessage message = new McpSchema.PromptMessage(McpSchema.Role.USER, content);
+        return new McpSchema.GetPromptResult(FORMATTED.description(), List.of(message));
+    }
+
+    @Benchmark
+    public McpSchema.GetPromptResult saveStoryTemplate() {
+        return saveStory.promptHandler().apply(null, story);
+    }
+
+    private McpSchema.GetPromptRequest nextCharacter() {
+        return characters[next++ & (characters.length - 1)];
+    }
+
+    /**
+     * The handler as it was before templates.
+     */
+    private static McpSchema.GetPromptResult formatted(McpSchema.GetPromptRequest request) {
+        Map<String, Object> arguments = request.arguments();
+        McpSchema.TextContent content = new McpSchema.TextContent(
+                String.format("What is the back story character of this story: %s", arguments.get("character"))
+        );
+        McpSchema.PromptMessage message = new McpSchema.PromptMessage(McpSchema.Role.USER, content);
+        return new McpSchema.GetPromptResult(FORMATTED.description(), List.of(message));
+    }
+}
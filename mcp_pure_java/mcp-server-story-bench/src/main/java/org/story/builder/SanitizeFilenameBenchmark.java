@@ -0,0 +1,35 @@
+package org.story.builder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.story.builder.tools.StoryToolEngine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code StoryToolEngine.sanitizeFilename} runs on every {@code save_story}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SanitizeFilenameBenchmark {
+
+    @Param({"Jack", "The Day Robert Became Part Machine After The Accident"})
+    public String title;
+
+    @Benchmark
+    public String sanitizeFilename() {
+        return StoryToolEngine.sanitizeFilename(title);
+    }
+}
@@ -0,0 +1,98 @@
+package org.story.builder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.story.builder.store.Durability;
+import org.story.builder.store.FileStoryRepository;
+import org.story.builder.store.GroupCommitStoryRepository;
+import org.story.builder.store.JournaledStoryRepository;
+import org.story.builder.store.StoryRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Latency distribution of concurrent saves, including the p99 JMH reports in
+ * sample mode: writing the markdown file in place ({@code file}, group-committed
+ * like {@code story.store.durability=fsync} sets it up) against returning once
+ * the save is in the write-ahead journal ({@code journal}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SaveLatencyBenchmark {
+
+    @Param({"file", "journal"})
+    public String store;
+
+    @Param({"none", "fsync"})
+    public String durability;
+
+    @Param({"4096"})
+    public int size;
+
+    private Path dir;
+    private StoryRepository repository;
+    private String content;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Writer {
+        String filename;
+
+        @Setup(Level.Trial)
+        public void setUp(SaveLatencyBenchmark benchmark) {
+            filename = "story-" + benchmark.threads.incrementAndGet() + ".md";
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("story-save-");
+        Durability mode = Durability.valueOf(durability.toUpperCase());
+        repository = switch (store) {
+            case "file" -> mode == Durability.FSYNC
+                    ? new GroupCommitStoryRepository(new FileStoryRepository(dir, mode), 256)
+                    : new FileStoryRepository(dir, mode);
+            case "journal" -> JournaledStoryRepository.open(dir, mode);
+            default -> throw new IllegalArgumentException("Unknown store: " + store);
+        };
+        content = "Once upon a time. ".repeat(size / 18 + 1).substring(0, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public String save(Writer writer) throws IOException {
+        return repository.save(writer.filename, content);
+    }
+}
@@ -0,0 +1,77 @@
+package org.story.builder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.story.builder.search.SearchHit;
+import org.story.builder.search.StoryIndex;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code search_stories} queries against an in-memory index of generated stories
+ * of about 300 words each, drawn from a Zipf-like vocabulary so that common and
+ * rare terms both occur.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+
+    @Param({"1000", "100000"})
+    public int stories;
+
+    private StoryIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new StoryIndex(1024);
+        StringBuilder story = new StringBuilder();
+        for (int i = 0; i < stories; i++) {
+            story.setLength(0);
+            story.append("# Story ").append(i).append("\n\n");
+            for (int w = 0; w < 300; w++) {
+                story.append(word(random)).append(w % 12 == 11 ? ".\n" : " ");
+            }
+            index.put("story_" + i + ".md", story.toString());
+        }
+    }
+
+    private static String word(Random random) {
+        // Rank r is drawn with probability roughly proportional to 1/r.
+        int rank = (int) Math.pow(VOCABULARY, random.nextDouble());
+        return "w" + Integer.toString(rank, 36);
+    }
+
+    @Benchmark
+    public List<SearchHit> rareTerm() {
+        return index.search("w" + Integer.toString(15_000, 36), 10);
+    }
+
+    @Benchmark
+    public List<SearchHit> commonTerm() {
+        return index.search("w1", 10);
+    }
+
+    @Benchmark
+    public List<SearchHit> threeTerms() {
+        return index.search("w5 w" + Integer.toString(300, 36) + " w" + Integer.toString(9_000, 36), 10);
+    }
+}
@@ -0,0 +1,388 @@
+package org.story.builder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.story.builder.cluster.ClusterNode;
+import org.story.builder.cluster.InJvmMessageForwarder;
+import org.story.builder.store.FileStoryRepository;
+import org.story.builder.tools.StoryToolEngine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Load generator for the SSE transport. Opens N sessions against {@code /sse},
+ * each sending {@code tools/call} requests over {@code /message} one after the
+ * other, and reports throughput and latency percentiles per tool. Latency is
+ * measured from sending the POST until the response arrives on the SSE stream.
+ *
+ * <p>Without {@code --url} an in-process {@link SseServer} is started on a free
+ * port with stories in a temporary directory; the other {@code story.http.*}
+ * settings apply to it, so thread pool variants can be compared.
+ *
+ * <p>{@code --nodes N} starts N in-process cluster nodes instead, and {@code --url}
+ * takes a comma separated list of nodes. Session streams are spread over the nodes
+ * and every POST goes to a random node, like a load balancer without affinity
+ * would send it, so most messages are forwarded to the session's owner.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.story.builder.SseLoadGenerator \
+ *     --sessions 200 --duration 30 --warmup 5 \
+ *     --mix list_characters=4,get_backstory=3,save_story=1,get_story=2
+ * java -cp target/benchmarks.jar org.story.builder.SseLoadGenerator \
+ *     --url http://node-a:8282,http://node-b:8282 --sessions 200
+ * </pre>
+ */
+public final class SseLoadGenerator {
+
+    private static final ObjectMapper JSON = SseServer.JSON;
+    private static final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final int STORIES_PER_SESSION = 4;
+
+    private final List<URI> nodes;
+    private final int sessions;
+    private final Duration warmup;
+    private final Duration duration;
+    private final List<String> mix;
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean recording;
+    private volatile boolean running = true;
+
+    SseLoadGenerator(List<URI> nodes, int sessions, Duration warmup, Duration duration, Map<String, Integer> weights) {
+        this.nodes = List.copyOf(nodes);
+        this.sessions = sessions;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.mix = new ArrayList<>();
+        weights.forEach((tool, weight) -> {
+            recorders.put(tool, new Recorder(MAX_LATENCY_NANOS, 3));
+            for (int i = 0; i < weight; i++) {
+                mix.add(tool);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int sessions = Integer.parseInt(options.getOrDefault("sessions", "50"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Map<String, Integer> weights = parseMix(
+                options.getOrDefault("mix", "list_characters=4,get_backstory=3,save_story=1,get_story=2"));
+
+        List<SseServer> servers = new ArrayList<>();
+        Path storyDir = null;
+        List<URI> nodes = new ArrayList<>();
+        if (options.containsKey("url")) {
+            for (String url : options.get("url").split(",")) {
+                nodes.add(URI.create(url.strip()));
+            }
+        } else {
+            storyDir = Files.createTempDirectory("story-load-");
+            StoryTools.useRepository(new FileStoryRepository(storyDir));
+            int count = Integer.parseInt(options.getOrDefault("nodes", "1"));
+            InJvmMessageForwarder forwarder = new InJvmMessageForwarder();
+            for (int i = 0; i < count; i++) {
+                SseServer server = new SseServer(HttpServerConfig.fromSystemProperties().withAddress("127.0.0.1", 0),
+                        count == 1 ? null : new ClusterNode("node-" + i, forwarder));
+                servers.add(server);
+                server.start();
+                nodes.add(URI.create("http://127.0.0.1:" + server.getPort()));
+            }
+        }
+
+        try {
+            new SseLoadGenerator(nodes, sessions, warmup, duration, weights).run();
+        } finally {
+            for (SseServer server : servers) {
+                server.stop();
+            }
+            if (storyDir != null) {
+                deleteRecursively(storyDir);
+            }
+        }
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        System.out.printf("Opening %d SSE sessions against %s%n", sessions, nodes);
+        List<Session> opened = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            opened.add(Session.open(client, nodes, i));
+        }
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Session session : opened) {
+                workers.submit(() -> drive(session));
+            }
+            System.out.printf("Warming up for %ds%n", warmup.toSeconds());
+            Thread.sleep(warmup.toMillis());
+            recorders.values().forEach(Recorder::reset);
+            errors.set(0);
+            recording = true;
+
+            System.out.printf("Measuring for %ds%n", duration.toSeconds());
+            long start = System.nanoTime();
+            Thread.sleep(duration.toMillis());
+            recording = false;
+            long elapsed = System.nanoTime() - start;
+            running = false;
+            report(elapsed);
+            opened.forEach(Session::close);
+        }
+    }
+
+    private void drive(Session session) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            String tool = mix.get(random.nextInt(mix.size()));
+            long start = System.nanoTime();
+            try {
+                JsonNode response = session.call("tools/call", toolArguments(tool, session.index, random));
+                long latency = System.nanoTime() - start;
+                boolean failed = response.has("error") || response.path("result").path("isError").asBoolean();
+                if (recording) {
+                    recorders.get(tool).recordValue(Math.min(latency, MAX_LATENCY_NANOS));
+                    if (failed) {
+                        errors.incrementAndGet();
+                    }
+                }
+            } catch (Exception e) {
+                if (recording) {
+                    errors.incrementAndGet();
+                }
+                if (!running) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static Map<String, Object> toolArguments(String tool, int session, ThreadLocalRandom random) {
+        String character = List.of("Jack", "Ram", "Robert").get(random.nextInt(3));
+        String title = storyTitle(session, random.nextInt(STORIES_PER_SESSION));
+        Map<String, Object> arguments = switch (tool) {
+            case "list_characters" -> Map.of();
+            case "get_backstory", "get_superpower" -> Map.of("character", character);
+            case "save_story" -> storyArguments(title);
+            case "get_story" -> Map.of("filename", StoryToolEngine.sanitizeFilename(title));
+            default -> throw new IllegalArgumentException("Unknown tool: " + tool);
+        };
+        return Map.of("name", tool, "arguments", arguments);
+    }
+
+    private static String storyTitle(int session, int story) {
+        return "load story " + session + " " + story;
+    }
+
+    private static Map<String, Object> storyArguments(String title) {
+        return Map.of("title", title, "content", "It was a dark and stormy night. ".repeat(32));
+    }
+
+    private void report(long elapsedNanos) {
+        Histogram total = new Histogram(MAX_LATENCY_NANOS, 3);
+        System.out.println();
+        System.out.printf("%-16s %10s %10s %10s %10s %10s %10s %10s%n",
+                "tool", "calls", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            Histogram histogram = entry.getValue().getIntervalHistogram();
+            total.add(histogram);
+            printRow(entry.getKey(), histogram, elapsedNanos);
+        }
+        printRow("total", total, elapsedNanos);
+        System.out.printf("%nnodes: %d, sessions: %d, errors: %d, duration: %.1fs%n",
+                nodes.size(), sessions, errors.get(), elapsedNanos / 1e9);
+    }
+
+    private static void printRow(String name, Histogram histogram, long elapsedNanos) {
+        System.out.printf("%-16s %10d %10.1f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / (elapsedNanos / 1e9),
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(90) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMaxValue() / 1e6);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] toolAndWeight = part.split("=");
+            weights.put(toolAndWeight[0].trim(), toolAndWeight.length > 1 ? Integer.parseInt(toolAndWeight[1].trim()) : 1);
+        }
+        return weights;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * One MCP client session: an SSE stream read on its own virtual thread and
+     * a message endpoint to POST requests to, on any of the nodes. Responses are
+     * matched to requests by id.
+     */
+    private static final class Session {
+
+        private final HttpClient client;
+        private final List<URI> nodes;
+        private final int index;
+        private final Map<Long, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+        private final CompletableFuture<String> endpoint = new CompletableFuture<>();
+        private final AtomicLong ids = new AtomicLong();
+        private CompletableFuture<HttpResponse<Stream<String>>> stream;
+
+        private Session(HttpClient client, List<URI> nodes, int index) {
+            this.client = client;
+            this.nodes = nodes;
+            this.index = index;
+        }
+
+        static Session open(HttpClient client, List<URI> nodes, int index) throws Exception {
+            Session session = new Session(client, nodes, index);
+            session.connect(nodes.get(index % nodes.size()));
+            session.call("initialize", Map.of(
+                    "protocolVersion", "2024-11-05",
+                    "capabilities", Map.of(),
+                    "clientInfo", Map.of("name", "story-load-generator", "version", "1.0")));
+            session.notify("notifications/initialized");
+            // Seed the stories get_story reads, so reads never miss.
+            for (int story = 0; story < STORIES_PER_SESSION; story++) {
+                session.call("tools/call", Map.of("name", "save_story",
+                        "arguments", storyArguments(storyTitle(index, story))));
+            }
+            return session;
+        }
+
+        private void connect(URI baseUri) throws Exception {
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/sse"))
+                    .header("Accept", "text/event-stream")
+                    .GET()
+                    .build();
+            stream = client.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+            stream.thenAccept(response -> Thread.ofVirtual().start(() -> read(response.body())));
+            endpoint.get(10, TimeUnit.SECONDS);
+        }
+
+        private void read(Stream<String> lines) {
+            String event = "message";
+            try {
+                for (String line : (Iterable<String>) lines::iterator) {
+                    if (line.startsWith("event:")) {
+                        event = line.substring(6).trim();
+                    } else if (line.startsWith("data:")) {
+                        String data = line.substring(5).trim();
+                        if (event.equals("endpoint")) {
+                            endpoint.complete(data);
+                        } else {
+                            dispatch(data);
+                        }
+                    } else if (line.isEmpty()) {
+                        event = "message";
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                // stream closed by close() or by the server
+            }
+        }
+
+        private void dispatch(String data) {
+            try {
+                JsonNode message = JSON.readTree(data);
+                if (message.has("id")) {
+                    CompletableFuture<JsonNode> future = pending.remove(message.get("id").asLong());
+                    if (future != null) {
+                        future.complete(message);
+                    }
+                }
+            } catch (IOException e) {
+                // not a JSON-RPC message, ignore
+            }
+        }
+
+        JsonNode call(String method, Map<String, Object> params) throws Exception {
+            long id = ids.incrementAndGet();
+            CompletableFuture<JsonNode> response = new CompletableFuture<>();
+            pending.put(id, response);
+            post(Map.of("jsonrpc", "2.0", "id", id, "method", method, "params", params));
+            try {
+                return response.get(MAX_LATENCY_NANOS, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                pending.remove(id);
+                throw e;
+            }
+        }
+
+        void notify(String method) throws Exception {
+            post(Map.of("jsonrpc", "2.0", "method", method));
+        }
+
+        private void post(Map<String, Object> message) throws Exception {
+            URI node = nodes.get(ThreadLocalRandom.current().nextInt(nodes.size()));
+            HttpRequest request = HttpRequest.newBuilder(node.resolve(endpoint.get()))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(message)))
+                    .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                throw new IOException("POST " + request.uri() + " returned " + response.statusCode());
+            }
+        }
+
+        void close() {
+            pending.values().forEach(future -> future.cancel(true));
+            stream.thenAccept(response -> {
+                try {
+                    response.body().close();
+                } catch (RuntimeException e) {
+                    // closing the stream cancels the subscription, which surfaces as an exception
+                }
+            });
+        }
+    }
+}
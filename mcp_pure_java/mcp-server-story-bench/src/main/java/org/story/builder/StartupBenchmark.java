@@ -0,0 +1,139 @@
+package org.story.builder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start benchmark for the stdio server. Launches a fresh JVM running
+ * {@link StdioServer} from the shaded jar, sends {@code initialize} and measures
+ * the time from process start until the response arrives on stdout. Runs once
+ * as is and, when an AppCDS archive exists (see the {@code appcds} profile of
+ * {@code mcp-server-story}), once more with {@code -XX:SharedArchiveFile}.
+ *
+ * <pre>
+ * mvn -P appcds package
+ * java -cp mcp-server-story-bench/target/benchmarks.jar org.story.builder.StartupBenchmark \
+ *     --jar mcp-server-story/target/mcp-server-story.jar --runs 20
+ * </pre>
+ */
+public final class StartupBenchmark {
+
+    private static final String INITIALIZE = """
+            {"jsonrpc":"2.0","id":1,"method":"initialize","params":{"protocolVersion":"2024-11-05",\
+            "capabilities":{},"clientInfo":{"name":"startup-benchmark","version":"1"}}}
+            """;
+
+    private final Path jar;
+    private final Path storyDir;
+    private final int runs;
+
+    StartupBenchmark(Path jar, Path storyDir, int runs) {
+        this.jar = jar;
+        this.storyDir = storyDir;
+        this.runs = runs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        Path jar = Paths.get(options.getOrDefault("jar", "mcp-server-story/target/mcp-server-story.jar"));
+        Path archive = Paths.get(options.getOrDefault("cds",
+                jar.toString().replaceFirst("\\.jar$", "") + ".jsa"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "10"));
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalArgumentException("No server jar at " + jar + "; run mvn package first");
+        }
+
+        Path storyDir = Files.createTempDirectory("story-startup-");
+        try {
+            StartupBenchmark benchmark = new StartupBenchmark(jar, storyDir, runs);
+            Map<String, List<String>> modes = new LinkedHashMap<>();
+            modes.put("default", List.of());
+            if (Files.isRegularFile(archive)) {
+                modes.put("appcds", List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto"));
+            } else {
+                System.out.printf("No AppCDS archive at %s; build it with mvn -P appcds package%n", archive);
+            }
+
+            System.out.printf("Time to first initialize response, %d runs each%n%n", runs);
+            System.out.printf("%-10s %10s %10s %10s %10s%n", "mode", "min ms", "median ms", "p90 ms", "max ms");
+            for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+                long[] millis = benchmark.measure(mode.getValue());
+                Arrays.sort(millis);
+                System.out.printf("%-10s %10d %10d %10d %10d%n", mode.getKey(), millis[0],
+                        millis[millis.length / 2], millis[(int) Math.ceil(millis.length * 0.9) - 1],
+                        millis[millis.length - 1]);
+            }
+        } finally {
+            try (var files = Files.walk(storyDir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    long[] measure(List<String> jvmOptions) throws IOException, InterruptedException {
+        // One unmeasured launch so the jar and JDK files are in the page cache.
+        launch(jvmOptions);
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = TimeUnit.NANOSECONDS.toMillis(launch(jvmOptions));
+        }
+        return millis;
+    }
+
+    private long launch(List<String> jvmOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-Dstory.store.dir=" + storyDir);
+        command.add("-cp");
+        command.add(jar.toString());
+        command.add(StdioServer.class.getName());
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            try (OutputStream stdin = process.getOutputStream()) {
+                stdin.write(INITIALIZE.getBytes(StandardCharsets.UTF_8));
+                stdin.flush();
+                BufferedReader stdout = new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+                for (String line; (line = stdout.readLine()) != null; ) {
+                    if (line.startsWith("{") && line.contains("\"id\":1") && line.contains("\"result\"")) {
+                        return System.nanoTime() - start;
+                    }
+                }
+            }
+            throw new IOException("Server exited without answering initialize");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,173 @@
+package org.story.builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.server.transport.StdioServerTransportProvider;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.story.builder.transport.NioStdioServerTransportProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Messages per second through the stdio transports. The server runs in process
+ * on a pair of pipes; one thread writes {@code --messages} requests back to back
+ * and another counts the responses, so the time covers framing, parsing, dispatch
+ * and serialization of every message, not process start.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.story.builder.StdioTransportBenchmark \
+ *     --messages 100000 --rounds 5 --method ping --transports stdio,nio
+ * </pre>
+ *
+ * {@code --method tool} sends {@code list_characters} calls instead of pings. A
+ * transport that loses responses is reported with the number missing instead of
+ * a rate.
+ */
+public final class StdioTransportBenchmark {
+
+    private static final String INITIALIZE = """
+            {"jsonrpc":"2.0","id":0,"method":"initialize","params":{"protocolVersion":"2024-11-05",\
+            "capabilities":{},"clientInfo":{"name":"stdio-benchmark","version":"1"}}}
+            {"jsonrpc":"2.0","method":"notifications/initialized"}
+            """;
+    private static final long RESPONSE_TIMEOUT_SECONDS = 30;
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", "logback-bench.xml");
+        }
+        Map<String, String> options = parseOptions(args);
+        int messages = Integer.parseInt(options.getOrDefault("messages", "100000"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "5"));
+        String method = options.getOrDefault("method", "ping");
+        List<String> selected = List.of(options.getOrDefault("transports", "stdio,nio").split(","));
+
+        Map<String, BiFunction<Pipe, Pipe, McpServerTransportProvider>> transports = new LinkedHashMap<>();
+        transports.put("stdio", (in, out) -> new StdioServerTransportProvider(new ObjectMapper(),
+                Channels.newInputStream(in.source()), Channels.newOutputStream(out.sink())));
+        transports.put("nio", (in, out) -> new NioStdioServerTransportProvider(new ObjectMapper(),
+                in.source(), out.sink()));
+        transports.keySet().retainAll(selected);
+
+        byte[] requests = requests(messages, method);
+        System.out.printf("%d %s messages per round, %d rounds after one warmup round%n%n", messages, method, rounds);
+        System.out.printf("%-8s %14s %14s%n", "transport", "best msg/s", "median msg/s");
+        for (Map.Entry<String, BiFunction<Pipe, Pipe, McpServerTransportProvider>> transport : transports.entrySet()) {
+            try {
+                run(transport.getValue(), requests, messages);
+                double[] rates = new double[rounds];
+                for (int i = 0; i < rounds; i++) {
+                    rates[i] = messages / (run(transport.getValue(), requests, messages) / 1e9);
+                }
+                Arrays.sort(rates);
+                System.out.printf("%-8s %14.0f %14.0f%n", transport.getKey(), rates[rounds - 1], rates[rounds / 2]);
+            } catch (IllegalStateException e) {
+                System.out.printf("%-8s failed: %s%n", transport.getKey(), e.getMessage());
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * @return nanoseconds from the first request until the last response
+     */
+    private static long run(BiFunction<Pipe, Pipe, McpServerTransportProvider> transport, byte[] requests,
+                            int messages) throws Exception {
+        Pipe in = Pipe.open();
+        Pipe out = Pipe.open();
+        McpSyncServer server = McpServer.sync(transport.apply(in, out))
+                .serverInfo("stdio-benchmark", "1")
+                .capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+                .tools(StoryTools.getCharacters())
+                .build();
+        try {
+            write(in, INITIALIZE.getBytes(StandardCharsets.UTF_8));
+            awaitLines(out, new AtomicInteger(1));
+
+            AtomicInteger missing = new AtomicInteger(messages);
+            CompletableFuture<Void> responses = CompletableFuture.runAsync(() -> awaitLines(out, missing));
+            long start = System.nanoTime();
+            // Written from another thread: a transport that stops reading must not block the timeout.
+            CompletableFuture.runAsync(() -> write(in, requests));
+            try {
+                responses.get(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                throw new IllegalStateException(missing.get() + " of " + messages + " responses never arrived");
+            }
+            return System.nanoTime() - start;
+        } finally {
+            in.sink().close();
+            out.source().close();
+            server.closeGracefully();
+        }
+    }
+
+    private static byte[] requests(int messages, String method) {
+        StringBuilder requests = new StringBuilder();
+        for (int id = 1; id <= messages; id++) {
+            if (method.equals("tool")) {
+                requests.append("{\"jsonrpc\":\"2.0\",\"id\":").append(id)
+                        .append(",\"method\":\"tools/call\",\"params\":{\"name\":\"list_characters\",\"arguments\":{}}}\n");
+            } else {
+                requests.append("{\"jsonrpc\":\"2.0\",\"id\":").append(id).append(",\"method\":\"ping\"}\n");
+            }
+        }
+        return requests.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void write(Pipe pipe, byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                pipe.sink().write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void awaitLines(Pipe pipe, AtomicInteger lines) {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try {
+            while (lines.get() > 0) {
+                if (pipe.source().read(buffer.clear()) < 0) {
+                    throw new IOException("Server closed stdout with " + lines + " responses missing");
+                }
+                for (int i = 0; i < buffer.position(); i++) {
+                    if (buffer.get(i) == '\n') {
+                        lines.decrementAndGet();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
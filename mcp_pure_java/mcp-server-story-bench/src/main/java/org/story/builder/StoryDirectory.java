@@ -0,0 +1,45 @@
+package org.story.builder;
+
+import org.story.builder.store.DedupStoryRepository;
+import org.story.builder.store.Durability;
+import org.story.builder.store.FileStoryRepository;
+import org.story.builder.store.GzipStoryRepository;
+import org.story.builder.store.IndexedStoryRepository;
+import org.story.builder.store.JournaledStoryRepository;
+import org.story.builder.store.StoryRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * A temporary story directory with an uncached repository of the given kind,
+ * deleted again on close.
+ */
+record StoryDirectory(Path dir, StoryRepository repository) implements AutoCloseable {
+
+    static StoryDirectory create(String store) throws IOException {
+        Path dir = Files.createTempDirectory("story-bench-");
+        StoryRepository repository = switch (store) {
+            case "file" -> new FileStoryRepository(dir);
+            case "indexed" -> IndexedStoryRepository.open(dir);
+            case "dedup" -> DedupStoryRepository.open(dir);
+            case "journal" -> JournaledStoryRepository.open(dir, Durability.NONE);
+            case "gzip" -> new GzipStoryRepository(dir, Durability.NONE);
+            default -> throw new IllegalArgumentException("Unknown store: " + store);
+        };
+        return new StoryDirectory(dir, repository);
+    }
+
+    @Override
+    public void close() throws IOException {
+        repository.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
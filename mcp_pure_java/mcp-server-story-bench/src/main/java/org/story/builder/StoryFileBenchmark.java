@@ -0,0 +1,73 @@
+package org.story.builder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.story.builder.store.StoryChunk;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Save and read round trips through the story repositories at different story sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoryFileBenchmark {
+
+    @Param({"file", "indexed", "journal"})
+    public String store;
+
+    @Param({"1024", "65536", "1048576"})
+    public int size;
+
+    private StoryDirectory stories;
+    private String content;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stories = StoryDirectory.create(store);
+        content = "Once upon a time. ".repeat(size / 18 + 1).substring(0, size);
+        stories.repository().save("read.md", content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        stories.close();
+    }
+
+    @Benchmark
+    public String save() throws IOException {
+        return stories.repository().save("write.md", content);
+    }
+
+    @Benchmark
+    public String get() throws IOException {
+        return stories.repository().get("read.md");
+    }
+
+    @Benchmark
+    public StoryChunk readFirstChunk() throws IOException {
+        return stories.repository().read("read.md", 0, 64 * 1024);
+    }
+
+    @Benchmark
+    public String saveThenGet() throws IOException {
+        stories.repository().save("roundtrip.md", content);
+        return stories.repository().get("roundtrip.md");
+    }
+}
@@ -0,0 +1,91 @@
+package org.story.builder;
+
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls each {@code StoryTools} handler directly, without transport or JSON,
+ * against a throwaway story directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolBenchmark {
+
+    @Param({"file", "indexed"})
+    public String store;
+
+    private StoryDirectory stories;
+    private McpServerFeatures.SyncToolSpecification listCharacters;
+    private McpServerFeatures.SyncToolSpecification getBackstory;
+    private McpServerFeatures.SyncToolSpecification getSuperpower;
+    private McpServerFeatures.SyncToolSpecification saveStory;
+    private McpServerFeatures.SyncToolSpecification getStory;
+
+    private final Map<String, Object> noArguments = Map.of();
+    private final Map<String, Object> character = Map.of("character", "Ram");
+    private final Map<String, Object> story = Map.of("title", "The Lab Accident", "content", "Robert woke up. ".repeat(64));
+    private final Map<String, Object> filename = Map.of("filename", "the_lab_accident.md");
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stories = StoryDirectory.create(store);
+        StoryTools.useRepository(stories.repository());
+        listCharacters = StoryTools.getCharacters();
+        getBackstory = StoryTools.getBackstory();
+        getSuperpower = StoryTools.getSuperpower();
+        saveStory = StoryTools.saveStory();
+        getStory = StoryTools.getStory();
+        saveStory.call().apply(null, story);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        stories.close();
+    }
+
+    @Benchmark
+    public McpSchema.CallToolResult listCharacters() {
+        return listCharacters.call().apply(null, noArguments);
+    }
+
+    @Benchmark
+    public McpSchema.CallToolResult getBackstory() {
+        return getBackstory.call().apply(null, character);
+    }
+
+    @Benchmark
+    public McpSchema.CallToolResult getSuperpower() {
+        return getSuperpower.call().apply(null, character);
+    }
+
+    @Benchmark
+    public McpSchema.CallToolResult saveStory() {
+        return saveStory.call().apply(null, story);
+    }
+
+    @Benchmark
+    public McpSchema.CallToolResult getStory() {
+        return getStory.call().apply(null, filename);
+    }
+}
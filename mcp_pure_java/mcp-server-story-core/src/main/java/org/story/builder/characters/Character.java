@@ -0,0 +1,3 @@
+package org.story.builder.characters;
+
+public record Character(String backstory, String superpower) {}
@@ -0,0 +1,280 @@
+package org.story.builder.characters;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.story.builder.paging.Page;
+import org.story.builder.paging.PageRequest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The characters behind {@code list_characters}, {@code get_backstory} and
+ * {@code get_superpower}.
+ *
+ * <p>Readers see an immutable snapshot published through a volatile field, so
+ * lookups are a lock-free O(1) hash lookup. A reload builds a complete new
+ * snapshot off to the side and swaps it in; readers are never blocked and never
+ * see a half-loaded catalog. Each snapshot also carries its names in sorted
+ * order, so {@link #page(PageRequest)} does not sort the catalog per call.
+ *
+ * <p>Characters are loaded from a JSON file (an array of
+ * {@code {"name", "backstory", "superpower"}} objects) or a CSV file with a
+ * {@code name,backstory,superpower} header. With {@link #watch()} the file is
+ * reloaded whenever it changes; a file that fails to parse keeps the previous
+ * snapshot in place.
+ */
+public class CharacterRegistry implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(CharacterRegistry.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final Path file;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+    private WatchService watchService;
+
+    private CharacterRegistry(Path file, Map<String, Character> characters) {
+        this.file = file;
+        this.snapshot = new Snapshot(characters);
+    }
+
+    /**
+     * The built-in characters, used when no character file is configured.
+     */
+    public static CharacterRegistry defaults() {
+        Map<String, Character> characters = new HashMap<>();
+        characters.put("Jack", new Character(
+                "Jack is a former spy who now lives as a covert hero.",
+                "Invisibility and telepathy"
+        ));
+        characters.put("Ram", new Character(
+                "Ram is an ancient warrior reborn in the modern world to fight for peace.",
+                "Invincible body and immense strength"
+        ));
+        characters.put("Robert", new Character(
+                "Robert is a scientist who became part machine after a lab accident.",
+                "Power fused with advanced technology"
+        ));
+        return new CharacterRegistry(null, Collections.unmodifiableMap(characters));
+    }
+
+    public static CharacterRegistry load(Path file) throws IOException {
+        return new CharacterRegistry(file, parse(file));
+    }
+
+    /**
+     * Loads {@code story.characters.file} and watches it for changes (unless
+     * {@code story.characters.watch=false}), or returns the built-in characters.
+     */
+    public static CharacterRegistry fromSystemProperties() throws IOException {
+        String file = System.getProperty("story.characters.file");
+        if (file == null || file.isBlank()) {
+            return defaults();
+        }
+        CharacterRegistry registry = load(Path.of(file));
+        if (Boolean.parseBoolean(System.getProperty("story.characters.watch", "true"))) {
+            registry.watch();
+        }
+        return registry;
+    }
+
+    public Character get(String name) {
+        return snapshot.characters().get(name);
+    }
+
+    public Set<String> names() {
+        return snapshot.characters().keySet();
+    }
+
+    /**
+     * One page of character names in sorted order.
+     */
+    public Page page(PageRequest request) {
+        return Page.of(snapshot.names(), request);
+    }
+
+    public int size() {
+        return snapshot.characters().size();
+    }
+
+    public boolean isEmpty() {
+        return snapshot.characters().isEmpty();
+    }
+
+    /**
+     * Registers a callback run after every successful reload.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Re-reads the character file and swaps in the new snapshot.
+     */
+    public void reload() throws IOException {
+        if (file == null) {
+            return;
+        }
+        Map<String, Character> characters = parse(file);
+        snapshot = new Snapshot(characters);
+        log.info("Loaded {} characters from {}", characters.size(), file);
+        listeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Starts a daemon thread that reloads the registry when the character file changes.
+     */
+    public synchronized void watch() throws IOException {
+        if (file == null || watchService != null) {
+            return;
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        watchService = dir.getFileSystem().newWatchService();
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        WatchService service = watchService;
+        Thread.ofPlatform().daemon().name("character-registry-watch").start(() -> watchLoop(service));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        Path name = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= name.equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    // Editors and copy tools often write in several steps; let them finish.
+                    TimeUnit.MILLISECONDS.sleep(100);
+                    drain(service);
+                    try {
+                        reload();
+                    } catch (IOException | RuntimeException e) {
+                        log.error("Failed to reload characters from {}, keeping the previous {}", file, size(), e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // registry closed
+        }
+    }
+
+    private static void drain(WatchService service) {
+        for (WatchKey key; (key = service.poll()) != null; ) {
+            key.pollEvents();
+            key.reset();
+        }
+    }
+
+    private static Map<String, Character> parse(Path file) throws IOException {
+        String filename = file.getFileName().toString().toLowerCase();
+        Map<String, Character> characters = filename.endsWith(".csv") ? parseCsv(file) : parseJson(file);
+        return Collections.unmodifiableMap(characters);
+    }
+
+    private static Map<String, Character> parseJson(Path file) throws IOException {
+        JsonNode root = JSON.readTree(file.toFile());
+        if (!root.isArray()) {
+            throw new IOException(file + ": expected a JSON array of characters");
+        }
+        Map<String, Character> characters = HashMap.newHashMap(root.size());
+        for (JsonNode node : root) {
+            characters.put(node.path("name").asText(),
+                    new Character(node.path("backstory").asText(), node.path("superpower").asText()));
+        }
+        return characters;
+    }
+
+    private static Map<String, Character> parseCsv(Path file) throws IOException {
+        Map<String, Character> characters = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return characters;
+            }
+            int lineNumber = 1;
+            for (String line; (line = reader.readLine()) != null; ) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = splitCsv(line);
+                if (fields.size() != 3) {
+                    throw new IOException(file + ":" + lineNumber + ": expected name,backstory,superpower");
+                }
+                characters.put(fields.get(0), new Character(fields.get(1), fields.get(2)));
+            }
+        }
+        return characters;
+    }
+
+    /**
+     * Splits one CSV line, honouring double-quoted fields with {@code ""} escapes.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record Snapshot(Map<String, Character> characters, NavigableSet<String> names) {
+
+        Snapshot(Map<String, Character> characters) {
+            this(characters, Collections.unmodifiableNavigableSet(new TreeSet<>(characters.keySet())));
+        }
+    }
+}
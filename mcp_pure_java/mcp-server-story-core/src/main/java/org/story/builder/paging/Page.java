@@ -0,0 +1,54 @@
+package org.story.builder.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.NavigableSet;
+
+/**
+ * A page of names and the cursor to fetch the next one with ({@code null} on the last page).
+ */
+public record Page(List<String> items, String nextCursor) {
+
+    /**
+     * Cuts a page out of a sorted set of names. A prefix narrows the set to a
+     * sub-range and the cursor resumes right after the last name of the previous
+     * page, so a page costs O(log n + page) regardless of the catalog size. A
+     * {@code contains} filter has to look at every name in that range until the
+     * page is full.
+     */
+    public static Page of(NavigableSet<String> names, PageRequest request) {
+        NavigableSet<String> range = names;
+        if (request.prefix() != null) {
+            range = range.subSet(request.prefix(), true, request.prefix() + Character.MAX_VALUE, false);
+        }
+        if (request.cursor() != null) {
+            range = range.tailSet(decodeCursor(request.cursor()), false);
+        }
+
+        List<String> items = new ArrayList<>(Math.min(request.limit(), 64));
+        for (String name : range) {
+            if (request.contains() != null && !name.contains(request.contains())) {
+                continue;
+            }
+            if (items.size() == request.limit()) {
+                return new Page(items, encodeCursor(items.getLast()));
+            }
+            items.add(name);
+        }
+        return new Page(items, null);
+    }
+
+    private static String encodeCursor(String lastName) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastName.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.story.builder.paging;
+
+import java.util.Map;
+
+/**
+ * One page of a name listing.
+ *
+ * @param limit    maximum number of names on the page
+ * @param cursor   the {@link Page#nextCursor()} of the previous page, or {@code null} for the first page
+ * @param prefix   only names starting with this, or {@code null}
+ * @param contains only names containing this, or {@code null}
+ */
+public record PageRequest(int limit, String cursor, String prefix, String contains) {
+
+    public static final int DEFAULT_LIMIT = Integer.getInteger("story.page.defaultLimit", 100);
+    public static final int MAX_LIMIT = Integer.getInteger("story.page.maxLimit", 1000);
+
+    public PageRequest {
+        limit = Math.clamp(limit, 1, MAX_LIMIT);
+        cursor = blankToNull(cursor);
+        prefix = blankToNull(prefix);
+        contains = blankToNull(contains);
+    }
+
+    public static PageRequest first(int limit) {
+        return new PageRequest(limit, null, null, null);
+    }
+
+    /**
+     * Reads {@code limit}, {@code cursor}, {@code prefix} and {@code contains} from tool arguments.
+     */
+    public static PageRequest fromArguments(Map<String, Object> arguments) {
+        Object limit = arguments.get("limit");
+        return new PageRequest(
+                limit instanceof Number number ? number.intValue()
+                        : limit != null ? Integer.parseInt(limit.toString()) : DEFAULT_LIMIT,
+                stringArgument(arguments, "cursor"),
+                stringArgument(arguments, "prefix"),
+                stringArgument(arguments, "contains"));
+    }
+
+    private static String stringArgument(Map<String, Object> arguments, String name) {
+        Object value = arguments.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
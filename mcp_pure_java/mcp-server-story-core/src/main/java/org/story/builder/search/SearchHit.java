@@ -0,0 +1,11 @@
+package org.story.builder.search;
+
+/**
+ * One ranked result of {@link StoryIndex#search(String, int)}.
+ *
+ * @param filename the story's filename
+ * @param score    BM25 score, higher is better
+ * @param snippet  a short excerpt around the first matching term
+ */
+public record SearchHit(String filename, double score, String snippet) {
+}
@@ -0,0 +1,343 @@
+package org.story.builder.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.story.builder.store.CachingStoryRepository;
+import org.story.builder.store.StoryRepository;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index behind {@code search_stories}.
+ *
+ * <p>Every stored version of a story gets an int document id. Each term maps to
+ * a posting list of document ids and term frequencies held in primitive int
+ * arrays, so a query only walks the postings of its own terms and never reads a
+ * story file. Results are ranked with BM25.
+ *
+ * <p>Saving a story again indexes the new version under a fresh id and retires
+ * the old one; the old id is skipped while scoring. Once retired ids make up
+ * half of all ids they are dropped and the live documents renumbered, so ids,
+ * and the score array of a query, stay within twice the number of stories. For
+ * snippets, the first {@code story.search.snippetChars} characters (default 512)
+ * of every story are kept in memory.
+ */
+public class StoryIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(StoryIndex.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int SNIPPET_CONTEXT = 80;
+
+    private final int snippetChars;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final ArrayList<Document> documents = new ArrayList<>();
+    private long totalLength;
+    private int retired;
+    private volatile boolean ready;
+
+    public StoryIndex() {
+        this(Integer.getInteger("story.search.snippetChars", 512));
+    }
+
+    public StoryIndex(int snippetChars) {
+        this.snippetChars = snippetChars;
+    }
+
+    /**
+     * Indexes every story in the repository. Stories saved through {@link #put}
+     * while the build runs are not overwritten with the older content it read.
+     * A read cache in front of the repository is bypassed, as reading every story
+     * through it would evict what it holds.
+     */
+    public void build(StoryRepository repository) throws IOException {
+        if (repository instanceof CachingStoryRepository cache) {
+            repository = cache.delegate();
+        }
+        long start = System.nanoTime();
+        int indexed = 0;
+        for (String filename : repository.list()) {
+            String content;
+            try {
+                content = repository.get(filename);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            if (add(filename, content, false)) {
+                indexed++;
+            }
+        }
+        ready = true;
+        log.info("Indexed {} stories in {} ms", indexed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Runs {@link #build} on a daemon thread, so a server can start answering
+     * before a large story directory is indexed; until then searches see part
+     * of the stories.
+     */
+    public void buildInBackground(StoryRepository repository) {
+        Thread.ofPlatform().daemon().name("story-search-index").start(() -> {
+            try {
+                build(repository);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to build the search index", e);
+            }
+        });
+    }
+
+    /**
+     * Whether {@link #build} has finished; until then searches only see part of the stories.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Indexes a saved story, replacing the previous version of it.
+     */
+    public void put(String filename, String content) {
+        add(filename, content, true);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Document ids in use, live and retired.
+     */
+    int idCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best matching stories for the query, best first.
+     */
+    public List<SearchHit> search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int live = ids.size();
+            if (live == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / live;
+            float[] scores = new float[documents.size()];
+            int[] matched = new int[16];
+            int matchCount = 0;
+            for (String term : queryTerms) {
+                Postings postings = terms.get(term);
+                if (postings == null || postings.live == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (live - postings.live + 0.5) / (postings.live + 0.5));
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = postings.docs[i];
+                    Document document = documents.get(doc);
+                    if (document == null) {
+                        continue;
+                    }
+                    int frequency = postings.frequencies[i];
+                    double norm = K1 * (1 - B + B * document.length() / averageLength);
+                    if (scores[doc] == 0) {
+                        if (matchCount == matched.length) {
+                            matched = Arrays.copyOf(matched, matchCount * 2);
+                        }
+                        matched[matchCount++] = doc;
+                    }
+                    scores[doc] += (float) (idf * frequency * (K1 + 1) / (frequency + norm));
+                }
+            }
+
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(scores[a], scores[b]));
+            for (int i = 0; i < matchCount; i++) {
+                top.add(matched[i]);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            SearchHit[] hits = new SearchHit[top.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                int doc = top.poll();
+                Document document = documents.get(doc);
+                hits[i] = new SearchHit(document.filename(), scores[doc], snippet(document.text(), queryTerms));
+            }
+            return List.of(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean add(String filename, String content, boolean replace) {
+        Map<String, int[]> frequencies = new HashMap<>();
+        List<String> tokens = tokenize(content);
+        for (String token : tokens) {
+            frequencies.computeIfAbsent(token, t -> new int[1])[0]++;
+        }
+        String text = content.length() > snippetChars ? content.substring(0, snippetChars) : content;
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = ids.get(filename);
+            if (previous != null) {
+                if (!replace) {
+                    return false;
+                }
+                retire(previous);
+            }
+            int doc = documents.size();
+            Postings[] postings = new Postings[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+                Postings list = terms.computeIfAbsent(entry.getKey(), t -> new Postings());
+                list.add(doc, entry.getValue()[0]);
+                postings[i++] = list;
+            }
+            documents.add(new Document(filename, tokens.size(), text, postings));
+            ids.put(filename, doc);
+            totalLength += tokens.size();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void retire(int doc) {
+        Document document = documents.set(doc, null);
+        for (Postings postings : document.postings()) {
+            postings.live--;
+        }
+        totalLength -= document.length();
+        if (++retired > ids.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Drops retired documents and renumbers the live ones in order, so posting
+     * lists stay sorted by id.
+     */
+    private void compact() {
+        int[] renumbered = new int[documents.size()];
+        int next = 0;
+        for (int doc = 0; doc < documents.size(); doc++) {
+            Document document = documents.get(doc);
+            if (document == null) {
+                renumbered[doc] = -1;
+            } else {
+                renumbered[doc] = next;
+                documents.set(next, document);
+                ids.put(document.filename(), next);
+                next++;
+            }
+        }
+        documents.subList(next, documents.size()).clear();
+        documents.trimToSize();
+        terms.values().removeIf(postings -> {
+            postings.renumber(renumbered);
+            return postings.size == 0;
+        });
+        retired = 0;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * About {@value #SNIPPET_CONTEXT} characters either side of the first query
+     * term found in the kept text, or the start of the story when none is.
+     */
+    private static String snippet(String text, Set<String> queryTerms) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        int hit = -1;
+        for (String term : queryTerms) {
+            int at = lower.indexOf(term);
+            if (at >= 0 && (hit < 0 || at < hit)) {
+                hit = at;
+            }
+        }
+        int from = Math.max(0, hit - SNIPPET_CONTEXT);
+        int to = Math.min(text.length(), Math.max(hit, 0) + SNIPPET_CONTEXT);
+        String snippet = text.substring(from, to).replaceAll("\\s+", " ").strip();
+        return (from > 0 ? "..." : "") + snippet + (to < text.length() ? "..." : "");
+    }
+
+    private record Document(String filename, int length, String text, Postings[] postings) {
+    }
+
+    private static final class Postings {
+        int[] docs = new int[2];
+        int[] frequencies = new int[2];
+        int size;
+        int live;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+            live++;
+        }
+
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = renumbered[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            if (size < docs.length / 4) {
+                docs = Arrays.copyOf(docs, Math.max(2, size * 2));
+                frequencies = Arrays.copyOf(frequencies, docs.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package org.story.builder.store;
+
+import org.story.builder.paging.Page;
+import org.story.builder.paging.PageRequest;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through LRU cache in front of another repository, bounded by the
+ * total size of the cached story content.
+ *
+ * <p>Entries are weighed at two bytes per character, the upper bound of their
+ * heap footprint. Saves go through to the delegate and then invalidate the
+ * cached entry; a load that raced with any save is not cached, so a cached story
+ * is never older than the last save made through this repository. Changes made
+ * behind its back are picked up after {@link #invalidate(String)}. Stories larger
+ * than the whole budget are not cached.
+ */
+public class CachingStoryRepository implements StoryRepository {
+
+    private final StoryRepository delegate;
+    private final long maxBytes;
+    private final LinkedHashMap<String, String> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong writeVersion = new AtomicLong();
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingStoryRepository(StoryRepository delegate, long maxBytes) {
+        this.delegate = delegate;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public String save(String filename, String content) throws IOException {
+        String location = delegate.save(filename, content);
+        invalidate(filename);
+        return location;
+    }
+
+    @Override
+    public List<SaveResult> saveAll(List<StoryWrite> batch) {
+        List<SaveResult> results = delegate.saveAll(batch);
+        synchronized (cache) {
+            writeVersion.incrementAndGet();
+            for (StoryWrite write : batch) {
+                remove(write.filename());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Drops the cached story, for changes made to the delegate's storage directly.
+     * A load racing with the call is not cached.
+     */
+    public void invalidate(String filename) {
+        synchronized (cache) {
+            writeVersion.incrementAndGet();
+            remove(filename);
+        }
+    }
+
+    @Override
+    public String get(String filename) throws IOException {
+        long version;
+        synchronized (cache) {
+            String content = cache.get(filename);
+            if (content != null) {
+                hits.increment();
+                return content;
+            }
+            version = writeVersion.get();
+        }
+        misses.increment();
+        String content = delegate.get(filename);
+        synchronized (cache) {
+            // A save raced with the load, the loaded content may already be stale.
+            if (writeVersion.get() == version) {
+                put(filename, content);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Serves the first chunk from the cache when the cached story fits into it,
+     * and caches stories that were read whole in a single chunk. Every read that
+     * goes to the delegate counts as a miss.
+     */
+    @Override
+    public StoryChunk read(String filename, long offset, int maxBytes) throws IOException {
+        String content;
+        long version;
+        synchronized (cache) {
+            content = offset == 0 ? cache.get(filename) : null;
+            version = writeVersion.get();
+        }
+        if (content != null) {
+            long size = StoryChunk.utf8Length(content);
+            if (size <= maxBytes) {
+                hits.increment();
+                return new StoryChunk(content, 0, size, size);
+            }
+        }
+        misses.increment();
+        StoryChunk chunk = delegate.read(filename, offset, maxBytes);
+        if (offset == 0 && !chunk.hasMore()) {
+            synchronized (cache) {
+                if (writeVersion.get() == version) {
+                    put(filename, chunk.text());
+                }
+            }
+        }
+        return chunk;
+    }
+
+    @Override
+    public List<String> list() throws IOException {
+        return delegate.list();
+    }
+
+    @Override
+    public Page page(PageRequest request) throws IOException {
+        return delegate.page(request);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (cache) {
+            cache.clear();
+            weight = 0;
+        }
+        delegate.close();
+    }
+
+    /**
+     * The repository behind the cache, for bulk reads that should not pass through it.
+     */
+    public StoryRepository delegate() {
+        return delegate;
+    }
+
+    /**
+     * Counters since the cache was created, and its current size.
+     */
+    public CacheStats stats() {
+        synchronized (cache) {
+            return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), cache.size(), weight, maxBytes);
+        }
+    }
+
+    private void put(String filename, String content) {
+        remove(filename);
+        long size = weigh(content);
+        if (size > maxBytes) {
+            return;
+        }
+        cache.put(filename, content);
+        weight += size;
+        Iterator<Map.Entry<String, String>> eldest = cache.entrySet().iterator();
+        while (weight > maxBytes && eldest.hasNext()) {
+            weight -= weigh(eldest.next().getValue());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(String filename) {
+        String previous = cache.remove(filename);
+        if (previous != null) {
+            weight -= weigh(previous);
+        }
+    }
+
+    private static long weigh(String content) {
+        return 2L * content.length();
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int size, long weightBytes, long maxBytes) {}
+}
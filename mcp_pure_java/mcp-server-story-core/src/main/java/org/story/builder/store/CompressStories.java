@@ -0,0 +1,69 @@
+package org.story.builder.store;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+/**
+ * Converts a story directory between the uncompressed layout of
+ * {@link FileStoryRepository} and the GZIP layout of {@link GzipStoryRepository}.
+ * Each story is written and renamed into place before its old file is removed,
+ * so an interrupted run leaves a directory {@link GzipStoryRepository} can still
+ * read in full; running it again finishes the conversion.
+ *
+ * <pre>
+ * java -cp mcp-server-story.jar org.story.builder.store.CompressStories &lt;dir&gt; [level]
+ * java -cp mcp-server-story.jar org.story.builder.store.CompressStories --decompress &lt;dir&gt;
+ * </pre>
+ */
+public final class CompressStories {
+
+    private CompressStories() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean decompress = args.length > 0 && args[0].equals("--decompress");
+        int first = decompress ? 1 : 0;
+        if (args.length <= first) {
+            System.err.println("Usage: CompressStories [--decompress] <dir> [level]");
+            System.exit(2);
+        }
+        Path dir = Paths.get(args[first]);
+        int level = args.length > first + 1 ? Integer.parseInt(args[first + 1]) : Deflater.DEFAULT_COMPRESSION;
+        GzipStoryRepository compressed = new GzipStoryRepository(dir, Durability.FSYNC, level);
+
+        long before = 0;
+        long after = 0;
+        int converted = 0;
+        for (Path path : files(dir, decompress ? ".md" + GzipStoryRepository.SUFFIX : ".md")) {
+            String name = path.getFileName().toString();
+            before += Files.size(path);
+            if (decompress) {
+                String filename = name.substring(0, name.length() - GzipStoryRepository.SUFFIX.length());
+                Path target = dir.resolve(filename);
+                Path temp = dir.resolve(filename + ".tmp");
+                Files.writeString(temp, compressed.get(filename), StandardCharsets.UTF_8);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Files.delete(path);
+                after += Files.size(target);
+            } else {
+                after += Files.size(Paths.get(compressed.save(name, Files.readString(path))));
+            }
+            converted++;
+        }
+        System.out.printf("%s %d stories: %d bytes -> %d bytes%n",
+                decompress ? "Decompressed" : "Compressed", converted, before, after);
+    }
+
+    private static List<Path> files(Path dir, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+}
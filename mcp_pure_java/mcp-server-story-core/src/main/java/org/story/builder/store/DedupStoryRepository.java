@@ -0,0 +1,456 @@
+package org.story.builder.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.story.builder.paging.Page;
+import org.story.builder.paging.PageRequest;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Stores each distinct story body once, in {@code objects/<2 hex>/<62 hex>} named
+ * by its SHA-256, and maps filenames to bodies in an append-only name index
+ * ({@code stories.names}). Saving a body that is already stored, under any
+ * filename, only appends an index entry.
+ *
+ * <p>{@code save_story} puts the title and the date in front of every story
+ * ({@code # Title\n\n**Date Created:** ...\n\n}), so the same text saved under two
+ * titles differs in its first lines. That header is kept in the index entry and
+ * only the text after it is hashed; content without the header is hashed whole.
+ *
+ * <p>Index entries are {@code [int nameLength][name][int headerLength][header][32 byte hash][long bodyLength]};
+ * the latest entry for a name wins. A body file is complete before it is renamed
+ * into place and before an entry refers to it, so a crash leaves at most an
+ * unreferenced body and a torn index tail, which is truncated on open. Once more
+ * than {@value #COMPACT_MIN_SUPERSEDED} entries are superseded by later ones and
+ * they outnumber the live entries, on open or after a save, the index is
+ * rewritten with the live entries only, to a temporary file renamed over it.
+ * Bodies no longer referenced by any name are not removed. When the index is
+ * created for the first time, existing {@code .md} files in the directory are
+ * imported.
+ */
+public class DedupStoryRepository implements StoryRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(DedupStoryRepository.class);
+
+    static final String INDEX_FILE = "stories.names";
+    static final String OBJECTS_DIR = "objects";
+    private static final String TEMP_FILE = "body.tmp";
+    private static final String INDEX_TEMP_FILE = INDEX_FILE + ".tmp";
+    private static final int COMPACT_MIN_SUPERSEDED = 1024;
+
+    private static final String DATE_LINE = "\n\n**Date Created:** ";
+    private static final int HASH_BYTES = 32;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path dir;
+    private final Path objects;
+    private final Durability durability;
+    /** Replaced when the index is compacted; guarded by {@code this}. */
+    private FileChannel index;
+    /** Entries in the index file, superseded ones included; guarded by {@code this}. */
+    private long indexEntries;
+    private final MessageDigest sha256;
+    private final ConcurrentNavigableMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+    /** Shard directories under {@code objects} known to exist; guarded by {@code this}. */
+    private final Set<String> shards = new HashSet<>();
+
+    private DedupStoryRepository(Path dir, Durability durability, FileChannel index) {
+        this.dir = dir;
+        this.objects = dir.resolve(OBJECTS_DIR);
+        this.durability = durability;
+        this.index = index;
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static DedupStoryRepository open(Path dir) throws IOException {
+        return open(dir, Durability.NONE);
+    }
+
+    public static DedupStoryRepository open(Path dir, Durability durability) throws IOException {
+        Files.createDirectories(dir.resolve(OBJECTS_DIR));
+        FileChannel index = FileChannel.open(dir.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        DedupStoryRepository repository = new DedupStoryRepository(dir, durability, index);
+        boolean fresh = index.size() == 0;
+        repository.loadIndex();
+        repository.compactIfSuperseded();
+        if (fresh) {
+            int imported = repository.importMarkdown(dir);
+            if (imported > 0) {
+                log.info("Imported {} markdown stories from {}", imported, dir.toAbsolutePath());
+            }
+        }
+        return repository;
+    }
+
+    @Override
+    public String save(String filename, String content) throws IOException {
+        return saveAll(List.of(new StoryWrite(filename, content))).getFirst().locationOrThrow();
+    }
+
+    /**
+     * Writes the bodies that are not stored yet, then appends the index entries of
+     * the whole batch with a single write. With {@link Durability#FSYNC} new bodies
+     * and their directory entries are forced before the index, and the index once.
+     * A body that fails fails its story; the rest of the batch is still indexed.
+     */
+    @Override
+    public synchronized List<SaveResult> saveAll(List<StoryWrite> writes) {
+        List<SaveResult> results = new ArrayList<>(writes.size());
+        List<String> names = new ArrayList<>(writes.size());
+        List<Entry> written = new ArrayList<>(writes.size());
+        for (StoryWrite write : writes) {
+            try {
+                String content = write.content();
+                int split = headerLength(content);
+                byte[] header = content.substring(0, split).getBytes(StandardCharsets.UTF_8);
+                byte[] body = content.substring(split).getBytes(StandardCharsets.UTF_8);
+                byte[] hash = sha256.digest(body);
+                storeBody(hash, body);
+                names.add(write.filename());
+                written.add(new Entry(header, hash, body.length));
+                results.add(null);
+            } catch (IOException e) {
+                results.add(SaveResult.failed(write.filename(), e));
+            }
+        }
+        if (names.isEmpty()) {
+            return results;
+        }
+
+        try {
+            appendEntries(names, written);
+        } catch (IOException | ArithmeticException e) {
+            IOException error = e instanceof IOException io ? io : new IOException("Batch too large", e);
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) == null) {
+                    results.set(i, SaveResult.failed(writes.get(i).filename(), error));
+                }
+            }
+            return results;
+        }
+
+        String location = dir.resolve(INDEX_FILE).toAbsolutePath().normalize() + "#";
+        for (int i = 0, w = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                entries.put(names.get(w), written.get(w));
+                w++;
+                results.set(i, SaveResult.saved(writes.get(i).filename(), location + writes.get(i).filename()));
+            }
+        }
+        compactIfSuperseded();
+        return results;
+    }
+
+    /**
+     * Writes the body unless a body with the same hash is stored.
+     */
+    private void storeBody(byte[] hash, byte[] body) throws IOException {
+        Path path = objectPath(hash);
+        if (Files.exists(path)) {
+            return;
+        }
+        String shard = path.getParent().getFileName().toString();
+        boolean newShard = !shards.contains(shard);
+        if (newShard) {
+            Files.createDirectories(path.getParent());
+            shards.add(shard);
+        }
+        // Saves are serialized, so one temp file serves every body.
+        Path temp = objects.resolve(TEMP_FILE);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (durability == Durability.FSYNC) {
+                    channel.force(false);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (durability == Durability.FSYNC) {
+            forceDirectory(path.getParent());
+            if (newShard) {
+                forceDirectory(objects);
+            }
+        }
+    }
+
+    private void appendEntries(List<String> names, List<Entry> written) throws IOException {
+        ByteBuffer buffer = encode(names, written);
+        long start = index.size();
+        long position = start;
+        try {
+            while (buffer.hasRemaining()) {
+                position += index.write(buffer, position);
+            }
+            if (durability == Durability.FSYNC) {
+                index.force(false);
+            }
+        } catch (IOException e) {
+            discardTail(start);
+            throw e;
+        }
+        indexEntries += names.size();
+    }
+
+    private static ByteBuffer encode(List<String> names, List<Entry> written) {
+        List<byte[]> encoded = new ArrayList<>(names.size());
+        int bytes = 0;
+        for (int i = 0; i < names.size(); i++) {
+            byte[] name = names.get(i).getBytes(StandardCharsets.UTF_8);
+            encoded.add(name);
+            bytes = Math.addExact(bytes, 8 + name.length + written.get(i).header().length + HASH_BYTES + 8);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        for (int i = 0; i < names.size(); i++) {
+            Entry entry = written.get(i);
+            buffer.putInt(encoded.get(i).length).put(encoded.get(i))
+                    .putInt(entry.header().length).put(entry.header())
+                    .put(entry.hash()).putLong(entry.bodyLength());
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Rewrites the index with the live entries once superseded ones make up most
+     * of it. The new index is forced before it replaces the old one whatever the
+     * durability, since losing it would lose every name. On failure the old index
+     * stays in use.
+     */
+    private void compactIfSuperseded() {
+        long superseded = indexEntries - entries.size();
+        if (superseded <= COMPACT_MIN_SUPERSEDED || superseded <= entries.size()) {
+            return;
+        }
+        Path temp = dir.resolve(INDEX_TEMP_FILE);
+        try {
+            List<String> names = new ArrayList<>(entries.keySet());
+            ByteBuffer buffer = encode(names, names.stream().map(entries::get).toList());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, dir.resolve(INDEX_FILE), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            forceDirectory(dir);
+            FileChannel old = index;
+            index = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            old.close();
+            log.info("Compacted the story name index from {} to {} entries", indexEntries, names.size());
+            indexEntries = names.size();
+        } catch (IOException | ArithmeticException e) {
+            log.error("Failed to compact the story name index", e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Overwritten by the next compaction.
+            }
+        }
+    }
+
+    /**
+     * Drops partially written entries, so that the next batch is not appended after them.
+     */
+    private void discardTail(long start) {
+        try {
+            index.truncate(start);
+        } catch (IOException e) {
+            log.error("Failed to discard partial index write at {}", start, e);
+        }
+    }
+
+    private static void forceDirectory(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory as a channel (e.g. Windows).
+        }
+    }
+
+    @Override
+    public String get(String filename) throws IOException {
+        Entry entry = entry(filename);
+        return new String(entry.header(), StandardCharsets.UTF_8) + Files.readString(objectPath(entry.hash()));
+    }
+
+    @Override
+    public StoryChunk read(String filename, long offset, int maxBytes) throws IOException {
+        Entry entry = entry(filename);
+        long size = entry.size();
+        if (offset >= size) {
+            return StoryChunk.empty(offset, size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(maxBytes, size - offset));
+        int headerLength = entry.header().length;
+        if (offset < headerLength) {
+            buffer.put(entry.header(), (int) offset, Math.min(buffer.remaining(), headerLength - (int) offset));
+        }
+        if (buffer.hasRemaining()) {
+            try (FileChannel channel = FileChannel.open(objectPath(entry.hash()), StandardOpenOption.READ)) {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offset + buffer.position() - headerLength) < 0) {
+                        break;
+                    }
+                }
+            }
+        }
+        buffer.flip();
+        return StoryChunk.decode(buffer, offset, size);
+    }
+
+    private Entry entry(String filename) throws NoSuchFileException {
+        Entry entry = entries.get(filename);
+        if (entry == null) {
+            throw new NoSuchFileException(filename);
+        }
+        return entry;
+    }
+
+    @Override
+    public List<String> list() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    @Override
+    public Page page(PageRequest request) {
+        return Page.of(entries.navigableKeySet(), request);
+    }
+
+    /**
+     * Imports every {@code .md} file in {@code source} that is not indexed yet.
+     *
+     * @return the number of imported stories
+     */
+    public int importMarkdown(Path source) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(source)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(".md")).toList();
+        }
+        List<StoryWrite> writes = new ArrayList<>(files.size());
+        for (Path file : files) {
+            String filename = file.getFileName().toString();
+            if (!entries.containsKey(filename)) {
+                writes.add(new StoryWrite(filename, Files.readString(file)));
+            }
+        }
+        for (SaveResult result : saveAll(writes)) {
+            result.locationOrThrow();
+        }
+        return writes.size();
+    }
+
+    /**
+     * Distinct story bodies stored, including ones no name refers to any more.
+     */
+    public long bodyCount() throws IOException {
+        try (Stream<Path> files = Files.walk(objects)) {
+            return files.filter(path -> !path.getFileName().toString().equals(TEMP_FILE))
+                    .filter(Files::isRegularFile)
+                    .count();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        index.close();
+    }
+
+    /**
+     * Length of the {@code save_story} header at the start of {@code content}: the
+     * title line and the date line with the blank lines after them, or 0 if the
+     * content does not start with one.
+     */
+    static int headerLength(String content) {
+        if (!content.startsWith("# ")) {
+            return 0;
+        }
+        int titleEnd = content.indexOf("\n\n");
+        if (titleEnd < 0 || !content.startsWith(DATE_LINE, titleEnd)) {
+            return 0;
+        }
+        int dateEnd = content.indexOf("\n\n", titleEnd + DATE_LINE.length());
+        return dateEnd < 0 ? 0 : dateEnd + 2;
+    }
+
+    private Path objectPath(byte[] hash) {
+        String hex = HEX.formatHex(hash);
+        return objects.resolve(hex.substring(0, 2)).resolve(hex.substring(2));
+    }
+
+    private void loadIndex() throws IOException {
+        long good = 0;
+        index.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(index)));
+        try {
+            while (true) {
+                int nameLength = in.readInt();
+                byte[] name = in.readNBytes(Math.max(0, nameLength));
+                if (nameLength < 0 || name.length < nameLength) {
+                    break;
+                }
+                int headerLength = in.readInt();
+                if (headerLength < 0) {
+                    break;
+                }
+                byte[] header = in.readNBytes(headerLength);
+                byte[] hash = in.readNBytes(HASH_BYTES);
+                if (header.length < headerLength || hash.length < HASH_BYTES) {
+                    break;
+                }
+                entries.put(new String(name, StandardCharsets.UTF_8), new Entry(header, hash, in.readLong()));
+                good += 4 + nameLength + 4 + headerLength + HASH_BYTES + 8;
+                indexEntries++;
+            }
+        } catch (EOFException e) {
+            // end of index, possibly a torn last entry
+        }
+        if (index.size() > good) {
+            log.warn("Truncating torn index tail at {}", good);
+            index.truncate(good);
+        }
+    }
+
+    record Entry(byte[] header, byte[] hash, long bodyLength) {
+
+        long size() {
+            return header.length + bodyLength;
+        }
+    }
+}
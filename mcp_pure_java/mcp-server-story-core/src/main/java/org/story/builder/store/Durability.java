@@ -0,0 +1,18 @@
+package org.story.builder.store;
+
+import java.util.Locale;
+
+/**
+ * How far a save is pushed to disk before it returns, set with
+ * {@code story.store.durability}.
+ */
+public enum Durability {
+    /** Leave flushing to the operating system, as {@code Files.writeString} does. */
+    NONE,
+    /** Force written data to the device once per write batch. */
+    FSYNC;
+
+    static Durability fromSystemProperties() {
+        return valueOf(System.getProperty("story.store.durability", "none").toUpperCase(Locale.ROOT));
+    }
+}
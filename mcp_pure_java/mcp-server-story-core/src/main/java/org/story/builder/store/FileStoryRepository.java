@@ -0,0 +1,115 @@
+package org.story.builder.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * One markdown file per story in a directory. This is the original layout and
+ * what existing deployments have on disk.
+ */
+public class FileStoryRepository implements StoryRepository {
+
+    private final Path dir;
+    private final Durability durability;
+
+    public FileStoryRepository(Path dir) {
+        this(dir, Durability.NONE);
+    }
+
+    public FileStoryRepository(Path dir, Durability durability) {
+        this.dir = dir;
+        this.durability = durability;
+    }
+
+    @Override
+    public String save(String filename, String content) throws IOException {
+        return saveAll(List.of(new StoryWrite(filename, content))).getFirst().locationOrThrow();
+    }
+
+    /**
+     * Writes each story to its file. With {@link Durability#FSYNC} every file is
+     * forced before its channel is closed and the directory entry changes are
+     * forced once for the whole batch.
+     */
+    @Override
+    public List<SaveResult> saveAll(List<StoryWrite> writes) {
+        List<SaveResult> results = new ArrayList<>(writes.size());
+        for (StoryWrite write : writes) {
+            Path path = dir.resolve(write.filename());
+            try {
+                if (durability == Durability.FSYNC) {
+                    writeAndForce(path, write.content());
+                } else {
+                    Files.writeString(path, write.content());
+                }
+                results.add(SaveResult.saved(write.filename(), path.toAbsolutePath().normalize().toString()));
+            } catch (IOException e) {
+                results.add(SaveResult.failed(write.filename(), e));
+            }
+        }
+        if (durability == Durability.FSYNC) {
+            forceDirectory();
+        }
+        return results;
+    }
+
+    @Override
+    public String get(String filename) throws IOException {
+        return Files.readString(dir.resolve(filename));
+    }
+
+    @Override
+    public StoryChunk read(String filename, long offset, int maxBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (offset >= size) {
+                return StoryChunk.empty(offset, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(maxBytes, size - offset));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return StoryChunk.decode(buffer, offset, size);
+        }
+    }
+
+    private static void writeAndForce(Path path, String content) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory as a channel (e.g. Windows).
+        }
+    }
+
+    @Override
+    public List<String> list() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(Path::getFileName)
+                    .map(Path::toString)
+                    .filter(name -> name.endsWith(".md"))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.story.builder.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.story.builder.paging.Page;
+import org.story.builder.paging.PageRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Coalesces concurrent single saves into batches. Callers queue their save and
+ * wait; one committer thread takes everything queued so far (up to
+ * {@code maxBatch}) and hands it to the delegate's {@link StoryRepository#saveAll},
+ * so N concurrent saves share one flush cycle instead of paying for N.
+ * A save still returns only after its batch is written.
+ *
+ * <p>{@link #close()} queues a marker behind the saves already queued and waits
+ * for the committer to write them before closing the delegate. The committer is
+ * never interrupted: an interrupt during a {@code FileChannel} write closes the
+ * delegate's channel and fails the batch.
+ */
+public class GroupCommitStoryRepository implements StoryRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitStoryRepository.class);
+    private static final PendingWrite CLOSE = new PendingWrite(null, null);
+
+    private final StoryRepository delegate;
+    private final int maxBatch;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private volatile boolean closed;
+
+    public GroupCommitStoryRepository(StoryRepository delegate, int maxBatch) {
+        this.delegate = delegate;
+        this.maxBatch = maxBatch;
+        this.committer = Thread.ofPlatform().daemon().name("story-group-commit").start(this::commitLoop);
+    }
+
+    @Override
+    public String save(String filename, String content) throws IOException {
+        PendingWrite pending = new PendingWrite(new StoryWrite(filename, content), new CompletableFuture<>());
+        queue.add(pending);
+        if (closed && queue.remove(pending)) {
+            throw new IOException("Story repository is closed");
+        }
+        return pending.result().join().locationOrThrow();
+    }
+
+    @Override
+    public List<SaveResult> saveAll(List<StoryWrite> writes) {
+        return delegate.saveAll(writes);
+    }
+
+    @Override
+    public String get(String filename) throws IOException {
+        return delegate.get(filename);
+    }
+
+    @Override
+    public StoryChunk read(String filename, long offset, int maxBytes) throws IOException {
+        return delegate.read(filename, offset, maxBytes);
+    }
+
+    @Override
+    public List<String> list() throws IOException {
+        return delegate.list();
+    }
+
+    @Override
+    public Page page(PageRequest request) throws IOException {
+        return delegate.page(request);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        queue.add(CLOSE);
+        boolean interrupted = false;
+        while (committer.isAlive()) {
+            try {
+                committer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        for (PendingWrite pending; (pending = queue.poll()) != null; ) {
+            pending.result().complete(SaveResult.failed(pending.write().filename(),
+                    new IOException("Story repository is closed")));
+        }
+        delegate.close();
+    }
+
+    private void commitLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        boolean closing = false;
+        while (!closing) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, maxBatch - batch.size());
+            // Closing: everything queued before close() is in this batch or was
+            // committed earlier; what is still queued behind it is failed by close().
+            closing = batch.removeIf(pending -> pending == CLOSE);
+            if (!batch.isEmpty()) {
+                commit(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        List<StoryWrite> writes = new ArrayList<>(batch.size());
+        for (PendingWrite pending : batch) {
+            writes.add(pending.write());
+        }
+        try {
+            List<SaveResult> results = delegate.saveAll(writes);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.error("Group commit of {} stories failed", batch.size(), e);
+            for (PendingWrite pending : batch) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private record PendingWrite(StoryWrite write, CompletableFuture<SaveResult> result) {}
+}
@@ -0,0 +1,373 @@
+package org.story.builder.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * GZIP (RFC 1952) encoding of stories in independent blocks, so the files stay
+ * readable with {@code zcat} while a read of one range inflates only the blocks
+ * it covers.
+ *
+ * <p>Every {@value #BLOCK_SIZE} bytes of a story are compressed as a gzip member
+ * of their own, as BGZF does. The header of each member carries an extra field,
+ * {@code ST}, holding the length of the member and the size of the whole story,
+ * so a read finds its block by hopping from header to header and knows the size
+ * from the first one. Plain gzip files written by other tools are read too, by
+ * inflating from the start.
+ *
+ * <p>Deflaters, inflaters and the block buffers are pooled: zlib state is costly
+ * to set up, and a read then allocates little more than its result.
+ */
+final class GzipCodec {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+    private static final int HEADER_BYTES = 10;
+    private static final int EXTRA_BYTES = 18;
+    private static final int TRAILER_BYTES = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final int level;
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+
+    GzipCodec(int level) {
+        this.level = level;
+    }
+
+    byte[] encode(byte[] content) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        byte[] buffer = buffer();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 64);
+            ByteArrayOutputStream member = new ByteArrayOutputStream(BLOCK_SIZE / 2);
+            CRC32 crc = new CRC32();
+            int offset = 0;
+            do {
+                int length = Math.min(BLOCK_SIZE, content.length - offset);
+                deflater.reset();
+                deflater.setInput(content, offset, length);
+                deflater.finish();
+                member.reset();
+                while (!deflater.finished()) {
+                    member.write(buffer, 0, deflater.deflate(buffer));
+                }
+                crc.reset();
+                crc.update(content, offset, length);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + EXTRA_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                        .put((byte) 0x1f).put((byte) 0x8b).put((byte) Deflater.DEFLATED).put((byte) FEXTRA)
+                        .putInt(0).put((byte) 0).put((byte) 0xff)
+                        .putShort((short) (EXTRA_BYTES - 2)).put((byte) 'S').put((byte) 'T').putShort((short) 12)
+                        .putInt(HEADER_BYTES + EXTRA_BYTES + member.size() + TRAILER_BYTES)
+                        .putLong(content.length);
+                out.write(header.array(), 0, header.capacity());
+                out.writeBytes(member.toByteArray());
+                ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt((int) crc.getValue())
+                        .putInt(length);
+                out.write(trailer.array(), 0, TRAILER_BYTES);
+                offset += length;
+            } while (offset < content.length);
+            return out.toByteArray();
+        } finally {
+            deflater.reset();
+            deflaters.add(deflater);
+            buffers.add(buffer);
+        }
+    }
+
+    /**
+     * @return the uncompressed size of the story
+     */
+    long size(FileChannel channel) throws IOException {
+        Block first = block(channel, 0);
+        return first != null ? first.storySize() : Integer.toUnsignedLong(trailer(channel).getInt(4));
+    }
+
+    /**
+     * Inflates the whole story and checks it against the CRCs.
+     */
+    byte[] decode(FileChannel channel) throws IOException {
+        long size = size(channel);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Story too large to read at once: " + size + " bytes");
+        }
+        byte[] content = inflate(channel, 0, (int) size);
+        if (block(channel, 0) == null) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            if ((int) crc.getValue() != trailer(channel).getInt(0)) {
+                throw new IOException("Compressed story fails its CRC check");
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Inflates {@code length} bytes of the story starting at {@code offset},
+     * which must lie within the uncompressed size. Every block inflated is
+     * checked against its CRC.
+     */
+    byte[] inflate(FileChannel channel, long offset, int length) throws IOException {
+        Block block = block(channel, 0);
+        if (block == null) {
+            return inflateStream(channel, offset, length);
+        }
+        Inflater inflater = inflater();
+        byte[] input = buffer();
+        byte[] output = buffer();
+        try {
+            long position = 0;
+            for (long skip = offset / BLOCK_SIZE; skip > 0; skip--) {
+                position += block.memberLength();
+                block = requireBlock(channel, position);
+            }
+            byte[] out = new byte[length];
+            int filled = 0;
+            int from = (int) (offset % BLOCK_SIZE);
+            while (filled < length) {
+                int produced = inflateMember(channel, position, block, inflater, input, output);
+                int count = Math.min(produced - from, length - filled);
+                if (count <= 0) {
+                    throw new EOFException("Compressed story is shorter than its header says");
+                }
+                System.arraycopy(output, from, out, filled, count);
+                filled += count;
+                from = 0;
+                if (filled < length) {
+                    position += block.memberLength();
+                    block = requireBlock(channel, position);
+                }
+            }
+            return out;
+        } finally {
+            release(inflater);
+            buffers.add(input);
+            buffers.add(output);
+        }
+    }
+
+    /**
+     * Inflates one member into {@code output} and checks its CRC.
+     *
+     * @return the number of bytes inflated
+     */
+    private int inflateMember(FileChannel channel, long position, Block block, Inflater inflater,
+                              byte[] input, byte[] output) throws IOException {
+        inflater.reset();
+        long data = position + HEADER_BYTES + EXTRA_BYTES;
+        long end = position + block.memberLength() - TRAILER_BYTES;
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, trailer, end);
+        int length = trailer.getInt(4);
+        if (length < 0 || length > output.length) {
+            throw new IOException("Corrupt compressed story block at " + position);
+        }
+        int produced = 0;
+        try {
+            while (produced < length) {
+                if (inflater.needsInput()) {
+                    int read = readAt(channel, input, data, (int) Math.min(input.length, end - data));
+                    if (read <= 0) {
+                        throw new EOFException("Compressed story is truncated");
+                    }
+                    data += read;
+                    inflater.setInput(input, 0, read);
+                }
+                int n = inflater.inflate(output, produced, length - produced);
+                if (n == 0 && (inflater.finished() || inflater.needsDictionary())) {
+                    throw new EOFException("Compressed story block at " + position + " is shorter than its trailer says");
+                }
+                produced += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed story block at " + position, e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(output, 0, produced);
+        if ((int) crc.getValue() != trailer.getInt(0)) {
+            throw new IOException("Compressed story block at " + position + " fails its CRC check");
+        }
+        return produced;
+    }
+
+    /**
+     * Reads a gzip file without block headers from the start, as one stream.
+     */
+    private byte[] inflateStream(FileChannel channel, long offset, int length) throws IOException {
+        Inflater inflater = inflater();
+        byte[] input = buffer();
+        byte[] skip = buffer();
+        try {
+            int read = readAt(channel, input, 0, input.length);
+            int start = headerLength(input, read);
+            inflater.setInput(input, start, read - start);
+            long position = read;
+            byte[] out = new byte[length];
+            long skipped = 0;
+            int filled = 0;
+            while (filled < length) {
+                if (inflater.needsInput()) {
+                    read = readAt(channel, input, position, input.length);
+                    if (read <= 0) {
+                        throw new EOFException("Compressed story is truncated");
+                    }
+                    position += read;
+                    inflater.setInput(input, 0, read);
+                }
+                int produced = skipped < offset
+                        ? inflater.inflate(skip, 0, (int) Math.min(skip.length, offset - skipped))
+                        : inflater.inflate(out, filled, length - filled);
+                if (produced == 0 && (inflater.finished() || inflater.needsDictionary())) {
+                    throw new EOFException("Compressed story is shorter than its trailer says");
+                }
+                if (skipped < offset) {
+                    skipped += produced;
+                } else {
+                    filled += produced;
+                }
+            }
+            return out;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed story", e);
+        } finally {
+            release(inflater);
+            buffers.add(input);
+            buffers.add(skip);
+        }
+    }
+
+    private Inflater inflater() {
+        Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    private void release(Inflater inflater) {
+        inflater.reset();
+        inflaters.add(inflater);
+    }
+
+    private byte[] buffer() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[BLOCK_SIZE];
+    }
+
+    /**
+     * @return the block header at {@code position}, or {@code null} if the member
+     * there has no {@code ST} field
+     */
+    private static Block block(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + EXTRA_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, position + header.position()) > 0) {
+            // read until full or end of file
+        }
+        if (header.position() < 4 || header.get(0) != 0x1f || header.get(1) != (byte) 0x8b
+                || header.get(2) != Deflater.DEFLATED) {
+            throw new IOException("Not a GZIP story file");
+        }
+        if (header.hasRemaining() || header.get(3) != FEXTRA || header.getShort(10) != EXTRA_BYTES - 2
+                || header.get(12) != 'S' || header.get(13) != 'T' || header.getShort(14) != 12) {
+            return null;
+        }
+        int memberLength = header.getInt(16);
+        if (memberLength < HEADER_BYTES + EXTRA_BYTES + TRAILER_BYTES) {
+            throw new IOException("Corrupt compressed story block at " + position);
+        }
+        return new Block(memberLength, header.getLong(20));
+    }
+
+    private static Block requireBlock(FileChannel channel, long position) throws IOException {
+        Block block = block(channel, position);
+        if (block == null) {
+            throw new IOException("Corrupt compressed story block at " + position);
+        }
+        return block;
+    }
+
+    private static ByteBuffer trailer(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES + TRAILER_BYTES) {
+            throw new EOFException("Compressed story is truncated");
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, trailer, size - TRAILER_BYTES);
+        return trailer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Compressed story is truncated");
+            }
+        }
+    }
+
+    private static int readAt(FileChannel channel, byte[] buffer, long position, int length) throws IOException {
+        return channel.read(ByteBuffer.wrap(buffer, 0, length), position);
+    }
+
+    /**
+     * Length of the GZIP header at the start of {@code bytes}, including the
+     * optional fields other tools may have written.
+     */
+    private static int headerLength(byte[] bytes, int length) throws IOException {
+        if (length < HEADER_BYTES || bytes[0] != 0x1f || bytes[1] != (byte) 0x8b || bytes[2] != Deflater.DEFLATED) {
+            throw new IOException("Not a GZIP story file");
+        }
+        int flags = bytes[3];
+        int position = HEADER_BYTES;
+        if ((flags & FEXTRA) != 0) {
+            if (position + 2 > length) {
+                throw new IOException("GZIP header too long");
+            }
+            position += 2 + ((bytes[position] & 0xff) | (bytes[position + 1] & 0xff) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            position = skipZeroTerminated(bytes, position, length);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            position = skipZeroTerminated(bytes, position, length);
+        }
+        if ((flags & FHCRC) != 0) {
+            position += 2;
+        }
+        if (position > length) {
+            throw new IOException("GZIP header too long");
+        }
+        return position;
+    }
+
+    private static int skipZeroTerminated(byte[] bytes, int position, int length) throws IOException {
+        while (position < length && bytes[position] != 0) {
+            position++;
+        }
+        if (position >= length) {
+            throw new IOException("GZIP header too long");
+        }
+        return position + 1;
+    }
+
+    /**
+     * The {@code ST} field of a member header.
+     *
+     * @param memberLength length of the member, header to trailer
+     * @param storySize    uncompressed size of the whole story
+     */
+    private record Block(int memberLength, long storySize) {}
+}
@@ -0,0 +1,147 @@
+package org.story.builder.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+/**
+ * One GZIP-compressed markdown file per story, {@code <filename>.gz}, readable
+ * with {@code zcat} (see {@link GzipCodec} for the block layout). Prose takes
+ * about half the space, and reads move half as much off the disk at the price
+ * of inflating it, which pays off once the stories no longer fit in the page cache.
+ *
+ * <p>Stories an uncompressed {@link FileStoryRepository} left in the directory
+ * are read as they are and replaced by their compressed file on the next save,
+ * so a deployment can switch over without converting first;
+ * {@link CompressStories} converts a whole directory up front. Files are written
+ * to a temporary name and renamed into place, since a torn compressed file
+ * cannot be read at all.
+ */
+public class GzipStoryRepository implements StoryRepository {
+
+    static final String SUFFIX = ".gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+    private final Durability durability;
+    private final GzipCodec codec;
+
+    public GzipStoryRepository(Path dir, Durability durability) {
+        this(dir, durability, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level deflate level, 1 (fastest) to 9 (smallest)
+     */
+    public GzipStoryRepository(Path dir, Durability durability, int level) {
+        this.dir = dir;
+        this.durability = durability;
+        this.codec = new GzipCodec(level);
+    }
+
+    @Override
+    public String save(String filename, String content) throws IOException {
+        return saveAll(List.of(new StoryWrite(filename, content))).getFirst().locationOrThrow();
+    }
+
+    /**
+     * Compresses and writes each story, then removes its uncompressed file if one
+     * is left over. With {@link Durability#FSYNC} every file is forced before it is
+     * renamed and the directory once for the whole batch.
+     */
+    @Override
+    public List<SaveResult> saveAll(List<StoryWrite> writes) {
+        List<SaveResult> results = new ArrayList<>(writes.size());
+        for (StoryWrite write : writes) {
+            try {
+                Path path = write(write.filename(), codec.encode(write.content().getBytes(StandardCharsets.UTF_8)));
+                Files.deleteIfExists(dir.resolve(write.filename()));
+                results.add(SaveResult.saved(write.filename(), path.toAbsolutePath().normalize().toString()));
+            } catch (IOException e) {
+                results.add(SaveResult.failed(write.filename(), e));
+            }
+        }
+        if (durability == Durability.FSYNC) {
+            forceDirectory();
+        }
+        return results;
+    }
+
+    @Override
+    public String get(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve(filename + SUFFIX), StandardOpenOption.READ)) {
+            return new String(codec.decode(channel), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return Files.readString(dir.resolve(filename));
+        }
+    }
+
+    /**
+     * Inflates only the blocks the requested range covers.
+     */
+    @Override
+    public StoryChunk read(String filename, long offset, int maxBytes) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(dir.resolve(filename + SUFFIX), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return new FileStoryRepository(dir).read(filename, offset, maxBytes);
+        }
+        try (channel) {
+            long size = codec.size(channel);
+            if (offset >= size) {
+                return StoryChunk.empty(offset, size);
+            }
+            byte[] bytes = codec.inflate(channel, offset, (int) Math.min(maxBytes, size - offset));
+            return StoryChunk.decode(ByteBuffer.wrap(bytes), offset, size);
+        }
+    }
+
+    @Override
+    public List<String> list() throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .map(name -> name.endsWith(".md" + SUFFIX) ? name.substring(0, name.length() - SUFFIX.length()) : name)
+                    .filter(name -> name.endsWith(".md"))
+                    .forEach(names::add);
+        }
+        return new ArrayList<>(names);
+    }
+
+    private Path write(String filename, byte[] compressed) throws IOException {
+        Path target = dir.resolve(filename + SUFFIX);
+        Path temp = dir.resolve(filename + SUFFIX + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (durability == Durability.FSYNC) {
+                channel.force(false);
+            }
+        }
+        return Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory as a channel (e.g. Windows).
+        }
+    }
+}
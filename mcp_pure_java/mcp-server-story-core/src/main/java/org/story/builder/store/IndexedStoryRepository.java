@@ -0,0 +1,396 @@
+package org.story.builder.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.story.builder.paging.Page;
+import org.story.builder.paging.PageRequest;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Stores all stories in a single append-only segment file ({@code stories.seg})
+ * and keeps an offset index ({@code stories.idx}) next to it.
+ *
+ * <p>Segment records are {@code [int nameLength][name][int contentLength][content]},
+ * index entries are {@code [int nameLength][name][long contentOffset][int contentLength]}.
+ * Overwriting a story appends a new record; the latest index entry for a name wins.
+ * The index is held in memory, sorted by filename, so lookups are O(log n), a page of
+ * {@link #page(PageRequest)} costs O(log n + page), and reads are served from
+ * memory mappings of the segment without touching the directory. The segment is
+ * mapped in fixed regions of {@value #REGION_BYTES} bytes, each once it is full;
+ * records in the region still being appended to, or crossing into the next one,
+ * are read with positional reads, so appends never cause a remap.
+ *
+ * <p>On open, segment records written after the last index entry (e.g. after a crash)
+ * are re-indexed and a torn tail is truncated. When the segment is created for the
+ * first time, existing {@code .md} files in the directory are imported.
+ */
+public class IndexedStoryRepository implements StoryRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexedStoryRepository.class);
+
+    static final String SEGMENT_FILE = "stories.seg";
+    static final String INDEX_FILE = "stories.idx";
+    private static final long REGION_BYTES = 64L * 1024 * 1024;
+
+    private final Path dir;
+    private final Durability durability;
+    private final FileChannel segment;
+    private final FileChannel index;
+    private final long regionBytes;
+    private final ConcurrentNavigableMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+    private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+    /** Segment bytes holding complete records; only regions below it are mapped. */
+    private volatile long committed;
+
+    private IndexedStoryRepository(Path dir, Durability durability, FileChannel segment, FileChannel index,
+                                   long regionBytes) {
+        this.dir = dir;
+        this.durability = durability;
+        this.segment = segment;
+        this.index = index;
+        this.regionBytes = regionBytes;
+    }
+
+    public static IndexedStoryRepository open(Path dir) throws IOException {
+        return open(dir, Durability.NONE);
+    }
+
+    public static IndexedStoryRepository open(Path dir, Durability durability) throws IOException {
+        return open(dir, durability, REGION_BYTES);
+    }
+
+    static IndexedStoryRepository open(Path dir, Durability durability, long regionBytes) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel segment = FileChannel.open(dir.resolve(SEGMENT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(dir.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        IndexedStoryRepository repository = new IndexedStoryRepository(dir, durability, segment, index,
+                regionBytes);
+        boolean fresh = segment.size() == 0;
+        repository.load();
+        if (fresh) {
+            int imported = repository.importMarkdown(dir);
+            if (imported > 0) {
+                log.info("Imported {} markdown stories from {}", imported, dir.toAbsolutePath());
+            }
+        }
+        return repository;
+    }
+
+    @Override
+    public String save(String filename, String content) throws IOException {
+        return saveAll(List.of(new StoryWrite(filename, content))).getFirst().locationOrThrow();
+    }
+
+    /**
+     * Appends the whole batch with a single segment write and a single index write,
+     * forcing both once with {@link Durability#FSYNC}. The batch succeeds or fails as a whole.
+     */
+    @Override
+    public synchronized List<SaveResult> saveAll(List<StoryWrite> writes) {
+        List<SaveResult> results = new ArrayList<>(writes.size());
+        long start = -1;
+        long indexStart = -1;
+        try {
+            start = segment.size();
+            indexStart = index.size();
+            List<byte[]> names = new ArrayList<>(writes.size());
+            List<byte[]> bodies = new ArrayList<>(writes.size());
+            int recordBytes = 0;
+            int indexBytes = 0;
+            for (StoryWrite write : writes) {
+                byte[] name = write.filename().getBytes(StandardCharsets.UTF_8);
+                byte[] body = write.content().getBytes(StandardCharsets.UTF_8);
+                names.add(name);
+                bodies.add(body);
+                recordBytes = Math.addExact(recordBytes, 8 + name.length + body.length);
+                indexBytes = Math.addExact(indexBytes, 16 + name.length);
+            }
+
+            ByteBuffer records = ByteBuffer.allocate(recordBytes);
+            ByteBuffer indexEntries = ByteBuffer.allocate(indexBytes);
+            List<Entry> written = new ArrayList<>(writes.size());
+            for (int i = 0; i < writes.size(); i++) {
+                byte[] name = names.get(i);
+                byte[] body = bodies.get(i);
+                Entry entry = new Entry(start + records.position() + 8 + name.length, body.length);
+                records.putInt(name.length).put(name).putInt(body.length).put(body);
+                indexEntries.putInt(name.length).put(name).putLong(entry.offset()).putInt(entry.length());
+                written.add(entry);
+            }
+            writeFully(segment, records.flip(), start);
+            writeFully(index, indexEntries.flip(), indexStart);
+            if (durability == Durability.FSYNC) {
+                segment.force(false);
+                index.force(false);
+            }
+            committed = start + recordBytes;
+
+            String location = dir.resolve(SEGMENT_FILE).toAbsolutePath().normalize() + "#";
+            for (int i = 0; i < writes.size(); i++) {
+                String filename = writes.get(i).filename();
+                entries.put(filename, written.get(i));
+                results.add(SaveResult.saved(filename, location + filename));
+            }
+        } catch (IOException | ArithmeticException e) {
+            IOException error = e instanceof IOException io ? io : new IOException("Batch too large", e);
+            discardTail(start, indexStart);
+            results.clear();
+            for (StoryWrite write : writes) {
+                results.add(SaveResult.failed(write.filename(), error));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Drops a partially written batch from the segment and the index, so that
+     * later records are not cut off with it when the files are recovered, and the
+     * index never points at records that are gone.
+     */
+    private void discardTail(long start, long indexStart) {
+        if (start >= 0) {
+            try {
+                segment.truncate(start);
+            } catch (IOException e) {
+                log.error("Failed to discard partial write at {}", start, e);
+            }
+        }
+        if (indexStart >= 0) {
+            try {
+                index.truncate(indexStart);
+            } catch (IOException e) {
+                log.error("Failed to discard partial index write at {}", indexStart, e);
+            }
+        }
+    }
+
+    @Override
+    public String get(String filename) throws IOException {
+        Entry entry = entries.get(filename);
+        if (entry == null) {
+            throw new NoSuchFileException(filename);
+        }
+        return new String(read(entry), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public StoryChunk read(String filename, long offset, int maxBytes) throws IOException {
+        Entry entry = entries.get(filename);
+        if (entry == null) {
+            throw new NoSuchFileException(filename);
+        }
+        if (offset >= entry.length()) {
+            return StoryChunk.empty(offset, entry.length());
+        }
+        int length = (int) Math.min(maxBytes, entry.length() - offset);
+        byte[] bytes = read(new Entry(entry.offset() + offset, length));
+        return StoryChunk.decode(ByteBuffer.wrap(bytes), offset, entry.length());
+    }
+
+    @Override
+    public List<String> list() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    @Override
+    public Page page(PageRequest request) {
+        return Page.of(entries.navigableKeySet(), request);
+    }
+
+    /**
+     * Imports every {@code .md} file in {@code source} that is not indexed yet.
+     *
+     * @return the number of imported stories
+     */
+    public int importMarkdown(Path source) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(source)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(".md")).toList();
+        }
+        int imported = 0;
+        for (Path file : files) {
+            String filename = file.getFileName().toString();
+            if (!entries.containsKey(filename)) {
+                save(filename, Files.readString(file));
+                imported++;
+            }
+        }
+        return imported;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        regions = new MappedByteBuffer[0];
+        try {
+            segment.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    private byte[] read(Entry entry) throws IOException {
+        byte[] bytes = new byte[entry.length()];
+        int region = (int) (entry.offset() / regionBytes);
+        long regionStart = region * regionBytes;
+        MappedByteBuffer buffer = entry.offset() + entry.length() <= regionStart + regionBytes ? region(region) : null;
+        if (buffer != null) {
+            buffer.get((int) (entry.offset() - regionStart), bytes);
+        } else {
+            // The region is still being appended to, or the record crosses into the next one.
+            ByteBuffer target = ByteBuffer.wrap(bytes);
+            long position = entry.offset();
+            while (target.hasRemaining()) {
+                int n = segment.read(target, position);
+                if (n < 0) {
+                    throw new EOFException("Truncated story record at " + position);
+                }
+                position += n;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * The mapping of a full region, mapped on first use, or {@code null} while the
+     * region is not full yet.
+     */
+    private MappedByteBuffer region(int region) throws IOException {
+        MappedByteBuffer[] mapped = regions;
+        if (region < mapped.length && mapped[region] != null) {
+            return mapped[region];
+        }
+        if (committed < (region + 1) * regionBytes) {
+            return null;
+        }
+        synchronized (this) {
+            mapped = regions;
+            if (region >= mapped.length || mapped[region] == null) {
+                mapped = Arrays.copyOf(mapped, Math.max(mapped.length, region + 1));
+                mapped[region] = segment.map(FileChannel.MapMode.READ_ONLY, region * regionBytes, regionBytes);
+                regions = mapped;
+            }
+            return mapped[region];
+        }
+    }
+
+    private void load() throws IOException {
+        long indexed = loadIndex();
+        recoverSegment(indexed);
+        committed = segment.size();
+    }
+
+    /**
+     * Reads the index file and returns the segment offset it covers up to.
+     */
+    private long loadIndex() throws IOException {
+        long good = 0;
+        long covered = 0;
+        index.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(index)));
+        try {
+            while (true) {
+                int nameLength = in.readInt();
+                if (nameLength < 0 || nameLength > index.size() - good) {
+                    break;
+                }
+                byte[] name = in.readNBytes(nameLength);
+                if (name.length < nameLength) {
+                    break;
+                }
+                Entry entry = new Entry(in.readLong(), in.readInt());
+                entries.put(new String(name, StandardCharsets.UTF_8), entry);
+                covered = Math.max(covered, entry.offset() + entry.length());
+                good += 4 + nameLength + 12;
+            }
+        } catch (EOFException e) {
+            // end of index, possibly a torn last entry
+        }
+        if (index.size() > good) {
+            log.warn("Truncating torn index tail at {}", good);
+            index.truncate(good);
+        }
+        index.position(good);
+        return covered;
+    }
+
+    /**
+     * Re-indexes segment records written after {@code from} and truncates a torn tail.
+     */
+    private void recoverSegment(long from) throws IOException {
+        long size = segment.size();
+        long position = from;
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (position + 8 <= size) {
+            int nameLength = readInt(header, position);
+            if (nameLength < 0 || position + 8 + nameLength > size) {
+                break;
+            }
+            ByteBuffer name = ByteBuffer.allocate(nameLength);
+            readFully(name, position + 4);
+            int length = readInt(header, position + 4 + nameLength);
+            long offset = position + 8 + nameLength;
+            if (length < 0 || offset + length > size) {
+                break;
+            }
+            Entry entry = new Entry(offset, length);
+            appendIndexEntry(name.array(), entry);
+            entries.put(new String(name.array(), StandardCharsets.UTF_8), entry);
+            position = offset + length;
+        }
+        if (position < size) {
+            log.warn("Truncating torn segment tail at {}", position);
+            segment.truncate(position);
+        }
+    }
+
+    private void appendIndexEntry(byte[] name, Entry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + name.length + 12);
+        buffer.putInt(name.length).put(name).putLong(entry.offset()).putInt(entry.length()).flip();
+        writeFully(index, buffer, index.size());
+    }
+
+    private int readInt(ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        readFully(buffer, position);
+        return buffer.getInt(0);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = segment.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of segment at " + position);
+            }
+            position += n;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    record Entry(long offset, int length) {}
+}
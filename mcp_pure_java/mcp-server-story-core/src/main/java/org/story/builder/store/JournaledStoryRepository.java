@@ -0,0 +1,587 @@
+package org.story.builder.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * One markdown file per story, like {@link FileStoryRepository}, but saves are
+ * written ahead to an append-only journal and return as soon as they are journaled.
+ *
+ * <p>Savers add their stories to a lock-free queue and wait. A single writer
+ * thread takes everything queued, appends it to the journal with one sequential
+ * write (forced once per batch with {@link Durability#FSYNC}) and releases the
+ * savers. A materializer thread then writes the {@code .md} files, each to a
+ * temporary file renamed over the target, so a file is never seen half written.
+ * Until then reads are answered from the journaled content held in memory.
+ *
+ * <p>The journal is a series of segment files, {@code stories-<first seq>.journal},
+ * of records {@code [int payloadLength][int crc32c][long seq][int nameLength][name][content]}.
+ * The writer starts a new segment once the current one exceeds
+ * {@code segmentBytes}, and a full segment is deleted as soon as all its records
+ * are in their files. Journaling is much faster than writing files, so while
+ * {@value #MAX_FULL_SEGMENTS} full segments are waiting for the materializer the
+ * writer stops taking saves; the journal stays a few segments long however many
+ * stories are saved. A story that cannot be written to its file stays in memory
+ * and in the journal and is retried every {@value #RETRY_MILLIS} ms; the segments
+ * from its record on are kept until it is written, so while writes keep failing
+ * the writer stops taking saves rather than let the journal grow. A save the
+ * writer has not taken within {@code saveTimeoutMillis} is withdrawn and fails
+ * with an {@link IOException}, so callers get an error instead of hanging while
+ * the files cannot be written. On open, every intact record is materialized again and the
+ * segments are removed; a record that is cut short or fails its checksum ends
+ * its segment.
+ */
+public class JournaledStoryRepository implements StoryRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(JournaledStoryRepository.class);
+
+    private static final String SEGMENT_PREFIX = "stories-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_FULL_SEGMENTS = 4;
+    private static final long RETRY_MILLIS = 1000;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+    private final Durability durability;
+    private final long segmentBytes;
+    private final long saveTimeoutMillis;
+    private final FileStoryRepository files;
+    private final Deque<Segment> fullSegments = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+    private final BlockingQueue<List<Journaled>> toMaterialize = new LinkedBlockingQueue<>();
+    private final Map<String, Journaled> unmaterialized = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private final Thread materializer;
+    private Segment segment;
+    private long nextSeq = 1;
+    private volatile long journaledSeq;
+    private volatile long materializedSeq;
+    /** Highest sequence number handed to the materializer; used by its thread only. */
+    private long takenSeq;
+    private volatile boolean closed;
+
+    private JournaledStoryRepository(Path dir, Durability durability, long segmentBytes, long saveTimeoutMillis) {
+        this.dir = dir;
+        this.durability = durability;
+        this.segmentBytes = segmentBytes;
+        this.saveTimeoutMillis = saveTimeoutMillis;
+        this.files = new FileStoryRepository(dir, durability);
+        this.writer = Thread.ofPlatform().daemon().name("story-journal-writer").unstarted(this::writeLoop);
+        this.materializer = Thread.ofPlatform().daemon().name("story-journal-materializer")
+                .unstarted(this::materializeLoop);
+    }
+
+    public static JournaledStoryRepository open(Path dir, Durability durability) throws IOException {
+        return open(dir, durability, 16L * 1024 * 1024);
+    }
+
+    public static JournaledStoryRepository open(Path dir, Durability durability, long segmentBytes)
+            throws IOException {
+        return open(dir, durability, segmentBytes, 30_000);
+    }
+
+    /**
+     * Opens the journal in {@code dir}, materializing whatever an earlier run left in it.
+     *
+     * @param segmentBytes      size after which the writer starts a new journal segment
+     * @param saveTimeoutMillis how long a save waits for the writer to take it before it fails
+     */
+    public static JournaledStoryRepository open(Path dir, Durability durability, long segmentBytes,
+                                                long saveTimeoutMillis) throws IOException {
+        Files.createDirectories(dir);
+        JournaledStoryRepository repository = new JournaledStoryRepository(dir, durability, segmentBytes,
+                saveTimeoutMillis);
+        repository.replay();
+        repository.segment = repository.newSegment();
+        repository.writer.start();
+        repository.materializer.start();
+        return repository;
+    }
+
+    @Override
+    public String save(String filename, String content) throws IOException {
+        return saveAll(List.of(new StoryWrite(filename, content))).getFirst().locationOrThrow();
+    }
+
+    /**
+     * Journals the stories and returns; they are written to their files afterwards.
+     */
+    @Override
+    public List<SaveResult> saveAll(List<StoryWrite> writes) {
+        List<PendingWrite> pending = new ArrayList<>(writes.size());
+        for (StoryWrite write : writes) {
+            pending.add(new PendingWrite(write, new CompletableFuture<>()));
+        }
+        queue.addAll(pending);
+        LockSupport.unpark(writer);
+        if (closed) {
+            // The writer may already have stopped; whatever it has not taken fails.
+            for (PendingWrite write : pending) {
+                if (queue.remove(write)) {
+                    write.result().complete(SaveResult.failed(write.write().filename(),
+                            new IOException("Story repository is closed")));
+                }
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(saveTimeoutMillis);
+        List<SaveResult> results = new ArrayList<>(writes.size());
+        for (PendingWrite write : pending) {
+            results.add(await(write, deadline));
+        }
+        return results;
+    }
+
+    /**
+     * The result of a queued save. Past the deadline a save the writer has not
+     * taken is withdrawn and fails; one it has taken is being appended and is
+     * waited for.
+     */
+    private SaveResult await(PendingWrite write, long deadline) {
+        IOException error;
+        try {
+            return write.result().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            error = new IOException("Story journal is full: stories could not be written to their files for "
+                    + saveTimeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = new IOException("Interrupted while waiting for the story journal");
+        } catch (ExecutionException e) {
+            return SaveResult.failed(write.write().filename(), new IOException("Failed to journal story", e.getCause()));
+        }
+        if (queue.remove(write)) {
+            return SaveResult.failed(write.write().filename(), error);
+        }
+        return write.result().join();
+    }
+
+    @Override
+    public String get(String filename) throws IOException {
+        Journaled story = unmaterialized.get(filename);
+        return story != null ? story.content() : files.get(filename);
+    }
+
+    @Override
+    public StoryChunk read(String filename, long offset, int maxBytes) throws IOException {
+        Journaled story = unmaterialized.get(filename);
+        if (story == null) {
+            return files.read(filename, offset, maxBytes);
+        }
+        byte[] bytes = story.content().getBytes(StandardCharsets.UTF_8);
+        if (offset >= bytes.length) {
+            return StoryChunk.empty(offset, bytes.length);
+        }
+        int length = (int) Math.min(maxBytes, bytes.length - offset);
+        return StoryChunk.decode(ByteBuffer.wrap(bytes, (int) offset, length), offset, bytes.length);
+    }
+
+    @Override
+    public List<String> list() throws IOException {
+        Set<String> names = new LinkedHashSet<>(files.list());
+        names.addAll(unmaterialized.keySet());
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Waits for the queued saves and their materialization, then removes the journal.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+            toMaterialize.add(List.of());
+            materializer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.channel().close();
+        if (materializedSeq == journaledSeq) {
+            fullSegments.add(new Segment(segment.path(), segment.channel(), journaledSeq));
+            deleteMaterializedSegments();
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (true) {
+            for (PendingWrite write; (write = queue.poll()) != null; ) {
+                batch.add(write);
+            }
+            if (!batch.isEmpty()) {
+                append(batch);
+                batch.clear();
+            } else if (closed) {
+                // Savers check closed after queueing, so an empty queue now stays empty.
+                if (queue.isEmpty()) {
+                    return;
+                }
+            } else {
+                LockSupport.park(this);
+            }
+            // Unparked by the materializer as it deletes segments, and by close().
+            while (fullSegments.size() >= MAX_FULL_SEGMENTS && !closed) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    private void append(List<PendingWrite> batch) {
+        List<Journaled> journaled = new ArrayList<>(batch.size());
+        List<ByteBuffer> records = new ArrayList<>(batch.size());
+        FileChannel journal = segment.channel();
+        long start = -1;
+        try {
+            for (PendingWrite write : batch) {
+                Journaled story = new Journaled(nextSeq++, write.write().filename(), write.write().content());
+                journaled.add(story);
+                records.add(encode(story));
+            }
+            ByteBuffer[] buffers = records.toArray(ByteBuffer[]::new);
+            start = journal.size();
+            journal.position(start);
+            for (long remaining = totalBytes(buffers); remaining > 0; ) {
+                remaining -= journal.write(buffers);
+            }
+            if (durability == Durability.FSYNC) {
+                journal.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            IOException error = e instanceof IOException io ? io : new IOException("Failed to journal stories", e);
+            log.error("Failed to journal {} stories", batch.size(), e);
+            discardTail(journal, start);
+            for (PendingWrite write : batch) {
+                write.result().complete(SaveResult.failed(write.write().filename(), error));
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Journaled story = journaled.get(i);
+            unmaterialized.put(story.filename(), story);
+            batch.get(i).result().complete(SaveResult.saved(story.filename(), location(story.filename())));
+        }
+        journaledSeq = journaled.getLast().seq();
+        if (journalSize(journal) >= segmentBytes) {
+            rollSegment();
+        }
+        toMaterialize.add(journaled);
+    }
+
+    private static long totalBytes(ByteBuffer[] buffers) {
+        long total = 0;
+        for (ByteBuffer buffer : buffers) {
+            total += buffer.remaining();
+        }
+        return total;
+    }
+
+    private static long journalSize(FileChannel journal) {
+        try {
+            return journal.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Seals the current segment, which ends with {@link #journaledSeq}, and
+     * continues in a new one. On failure the writer keeps appending to the
+     * current segment.
+     */
+    private void rollSegment() {
+        try {
+            Segment next = newSegment();
+            Segment full = new Segment(segment.path(), segment.channel(), journaledSeq);
+            segment = next;
+            full.channel().close();
+            fullSegments.add(full);
+        } catch (IOException e) {
+            log.error("Failed to start a new story journal segment", e);
+        }
+    }
+
+    private Segment newSegment() throws IOException {
+        Path path = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSeq, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (durability == Durability.FSYNC) {
+            forceDirectory();
+        }
+        return new Segment(path, channel, Long.MAX_VALUE);
+    }
+
+    /**
+     * Deletes the full segments whose records have all been written to their files.
+     */
+    private void deleteMaterializedSegments() {
+        for (Segment full; (full = fullSegments.peek()) != null && full.lastSeq() <= materializedSeq; ) {
+            try {
+                Files.deleteIfExists(full.path());
+            } catch (IOException e) {
+                log.error("Failed to delete story journal segment {}", full.path(), e);
+            }
+            fullSegments.poll();
+        }
+        LockSupport.unpark(writer);
+    }
+
+    private void discardTail(FileChannel journal, long start) {
+        if (start < 0) {
+            return;
+        }
+        try {
+            journal.truncate(start);
+        } catch (IOException e) {
+            log.error("Failed to discard partial journal write at {}", start, e);
+        }
+    }
+
+    private void materializeLoop() {
+        List<List<Journaled>> taken = new ArrayList<>();
+        List<Journaled> batch = new ArrayList<>();
+        Map<String, Journaled> failed = Map.of();
+        boolean done = false;
+        while (!done) {
+            try {
+                List<Journaled> next = failed.isEmpty()
+                        ? toMaterialize.take()
+                        : toMaterialize.poll(RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    taken.add(next);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            toMaterialize.drainTo(taken);
+            // Older than anything taken, so newer versions of the same stories win.
+            batch.addAll(failed.values());
+            for (List<Journaled> journaled : taken) {
+                // close() queues an empty batch after the writer's last one.
+                done |= journaled.isEmpty();
+                batch.addAll(journaled);
+            }
+            if (!batch.isEmpty()) {
+                failed = materialize(batch, failed);
+            }
+            taken.clear();
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes the latest version of every story in the batch to its file and
+     * deletes the segments holding nothing but written records.
+     *
+     * @param failed the stories that failed in the previous pass
+     * @return the stories that could not be written, to be retried
+     */
+    private Map<String, Journaled> materialize(List<Journaled> batch, Map<String, Journaled> failed) {
+        Map<String, Journaled> latest = new LinkedHashMap<>();
+        for (Journaled story : batch) {
+            latest.put(story.filename(), story);
+            takenSeq = Math.max(takenSeq, story.seq());
+        }
+        Map<String, Journaled> stillFailed = new LinkedHashMap<>();
+        long firstFailedSeq = Long.MAX_VALUE;
+        for (Journaled story : latest.values()) {
+            try {
+                writeAtomically(story.filename(), story.content());
+                unmaterialized.remove(story.filename(), story);
+            } catch (IOException e) {
+                // Still served from memory and replayed from the journal on the next start.
+                if (failed.get(story.filename()) != story) {
+                    log.error("Failed to write story {}; it stays in the journal and is retried",
+                            story.filename(), e);
+                }
+                stillFailed.put(story.filename(), story);
+                firstFailedSeq = Math.min(firstFailedSeq, story.seq());
+            }
+        }
+        if (durability == Durability.FSYNC) {
+            forceDirectory();
+        }
+        if (stillFailed.isEmpty() && !failed.isEmpty()) {
+            log.info("Stories that failed to be written are now in their files");
+        }
+        // Records before the first failed one are written or superseded by written ones.
+        long written = stillFailed.isEmpty() ? takenSeq : firstFailedSeq - 1;
+        if (written > materializedSeq) {
+            materializedSeq = written;
+            deleteMaterializedSegments();
+        }
+        return stillFailed;
+    }
+
+    private void writeAtomically(String filename, String content) throws IOException {
+        Path target = dir.resolve(filename);
+        Path temp = dir.resolve(filename + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (durability == Durability.FSYNC) {
+                channel.force(false);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory as a channel (e.g. Windows).
+        }
+    }
+
+    /**
+     * Materializes every intact journal record left by the previous run, then
+     * deletes the segments. A record that is cut short or fails its checksum ends
+     * its segment: nothing after it was acknowledged as one whole batch.
+     */
+    private void replay() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> listing = Files.list(dir)) {
+            segments = listing
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+        Map<String, Journaled> latest = new LinkedHashMap<>();
+        for (Path path : segments) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                readSegment(path, channel, latest);
+            }
+        }
+        if (!latest.isEmpty()) {
+            log.info("Replaying {} stories from the journal in {}", latest.size(), dir.toAbsolutePath());
+            for (Journaled story : latest.values()) {
+                writeAtomically(story.filename(), story.content());
+            }
+        }
+        for (Path path : segments) {
+            Files.delete(path);
+        }
+        if (!segments.isEmpty()) {
+            forceDirectory();
+        }
+        journaledSeq = materializedSeq = nextSeq - 1;
+    }
+
+    private void readSegment(Path path, FileChannel channel, Map<String, Journaled> latest) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            int length = header.getInt(0);
+            int crc = header.getInt(4);
+            if (length < 12 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + HEADER_BYTES);
+            Journaled story = decode(payload.flip(), crc);
+            if (story == null || story.seq() < nextSeq) {
+                break;
+            }
+            latest.put(story.filename(), story);
+            nextSeq = story.seq() + 1;
+            position += HEADER_BYTES + length;
+        }
+        if (position < size) {
+            log.warn("Dropping torn story journal tail at {} of {} bytes in {}", position, size, path);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of journal at " + position);
+            }
+            position += n;
+        }
+    }
+
+    private static ByteBuffer encode(Journaled story) {
+        byte[] name = story.filename().getBytes(StandardCharsets.UTF_8);
+        byte[] content = story.content().getBytes(StandardCharsets.UTF_8);
+        int length = Math.addExact(12 + name.length, content.length);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length);
+        record.putInt(length).putInt(0).putLong(story.seq()).putInt(name.length).put(name).put(content);
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), HEADER_BYTES, length);
+        return record.putInt(4, (int) crc.getValue()).flip();
+    }
+
+    /**
+     * @return the record, or {@code null} if the checksum does not match
+     */
+    private static Journaled decode(ByteBuffer payload, int expectedCrc) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            return null;
+        }
+        long seq = payload.getLong();
+        int nameLength = payload.getInt();
+        if (nameLength < 0 || nameLength > payload.remaining()) {
+            return null;
+        }
+        String name = new String(payload.array(), payload.position(), nameLength, StandardCharsets.UTF_8);
+        int contentStart = payload.position() + nameLength;
+        String content = new String(payload.array(), contentStart, payload.limit() - contentStart,
+                StandardCharsets.UTF_8);
+        return new Journaled(seq, name, content);
+    }
+
+    private String location(String filename) {
+        return dir.resolve(filename).toAbsolutePath().normalize().toString();
+    }
+
+    private record PendingWrite(StoryWrite write, CompletableFuture<SaveResult> result) {}
+
+    private record Journaled(long seq, String filename, String content) {}
+
+    /**
+     * @param lastSeq sequence number of the last record, once the segment is full
+     */
+    private record Segment(Path path, FileChannel channel, long lastSeq) {}
+}
@@ -0,0 +1,32 @@
+package org.story.builder.store;
+
+import java.io.IOException;
+
+/**
+ * Outcome of one story of a batch save: the location it was stored at, or the error.
+ */
+public record SaveResult(String filename, String location, IOException error) {
+
+    public static SaveResult saved(String filename, String location) {
+        return new SaveResult(filename, location, null);
+    }
+
+    public static SaveResult failed(String filename, IOException error) {
+        return new SaveResult(filename, null, error);
+    }
+
+    public boolean isSaved() {
+        return error == null;
+    }
+
+    /**
+     * @return the location
+     * @throws IOException the error, if the save failed
+     */
+    public String locationOrThrow() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+        return location;
+    }
+}
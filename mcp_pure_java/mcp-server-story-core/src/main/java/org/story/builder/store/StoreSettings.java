@@ -0,0 +1,44 @@
+package org.story.builder.store;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * How to open the story repository; see {@link StoryRepository} for what each
+ * setting does. Both servers build their repository from these with
+ * {@link StoryRepository#open(StoreSettings)}, the plain one from system
+ * properties and the Spring one from its configuration properties.
+ *
+ * @param type               {@code file}, {@code indexed} or {@code dedup}
+ * @param compression        {@code none} or {@code gzip}
+ * @param groupCommit        group-commit saves even without {@link Durability#FSYNC}
+ * @param cacheBytes         bound of the read cache, {@code 0} for none
+ */
+public record StoreSettings(
+        String type,
+        Path dir,
+        Durability durability,
+        boolean journal,
+        long journalSegmentBytes,
+        long journalSaveTimeoutMillis,
+        String compression,
+        int compressionLevel,
+        boolean groupCommit,
+        int maxBatch,
+        long cacheBytes) {
+
+    public static StoreSettings fromSystemProperties() {
+        return new StoreSettings(
+                System.getProperty("story.store", "file"),
+                Paths.get(System.getProperty("story.store.dir", ".")),
+                Durability.fromSystemProperties(),
+                Boolean.getBoolean("story.store.journal"),
+                Long.getLong("story.store.journalSegmentBytes", 16L * 1024 * 1024),
+                Long.getLong("story.store.journalSaveTimeoutMs", 30_000),
+                System.getProperty("story.store.compression", "none"),
+                Integer.getInteger("story.store.compressionLevel", 6),
+                Boolean.getBoolean("story.store.groupCommit"),
+                Integer.getInteger("story.store.maxBatch", 256),
+                Long.getLong("story.cache.maxBytes", 64L * 1024 * 1024));
+    }
+}
@@ -0,0 +1,75 @@
+package org.story.builder.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A byte range of a stored story, decoded as UTF-8. Chunks always end on a
+ * character boundary, so {@link #nextOffset()} can be passed back as the offset
+ * of the following read.
+ *
+ * @param text       the decoded content of the range
+ * @param offset     byte offset of the first byte of the range
+ * @param nextOffset byte offset just past the range
+ * @param size       total size of the story in bytes
+ */
+public record StoryChunk(String text, long offset, long nextOffset, long size) {
+
+    public boolean hasMore() {
+        return nextOffset < size;
+    }
+
+    /**
+     * Decodes {@code bytes}, which hold the story bytes starting at {@code offset},
+     * dropping a multi-byte sequence cut off at the end of the buffer.
+     */
+    static StoryChunk decode(ByteBuffer bytes, long offset, long size) {
+        int start = bytes.position();
+        int end = bytes.limit();
+        if (offset + (end - start) < size) {
+            end = characterBoundary(bytes, start, end);
+        }
+        String text = StandardCharsets.UTF_8.decode(bytes.slice(start, end - start)).toString();
+        return new StoryChunk(text, offset, offset + (end - start), size);
+    }
+
+    static StoryChunk empty(long offset, long size) {
+        return new StoryChunk("", offset, Math.max(offset, size), size);
+    }
+
+    /**
+     * Returns the number of bytes {@code text} takes up encoded as UTF-8.
+     */
+    public static long utf8Length(CharSequence text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int characterBoundary(ByteBuffer bytes, int start, int end) {
+        // Walk back over at most three continuation bytes to the lead byte.
+        int lead = end - 1;
+        while (lead > start && lead > end - 4 && (bytes.get(lead) & 0xC0) == 0x80) {
+            lead--;
+        }
+        if (lead < start) {
+            return end;
+        }
+        int b = bytes.get(lead) & 0xFF;
+        int width = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        return lead + width > end ? lead : end;
+    }
+}
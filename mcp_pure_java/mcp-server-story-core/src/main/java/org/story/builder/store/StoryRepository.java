@@ -0,0 +1,141 @@
+package org.story.builder.store;
+
+import org.story.builder.paging.Page;
+import org.story.builder.paging.PageRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Storage behind the story tools. Stories are addressed by the sanitized
+ * filename that {@code save_story} derives from the title (e.g. {@code my_story.md}).
+ *
+ * <p>The implementation is picked with the {@code story.store} system property:
+ * {@code file} (default, one markdown file per story), {@code indexed}
+ * (append-only segment with an offset index, see {@link IndexedStoryRepository})
+ * or {@code dedup} (each distinct story body stored once under its content hash,
+ * see {@link DedupStoryRepository}).
+ * {@code story.store.dir} sets the directory, defaulting to the working directory.
+ * {@code story.store.durability} is {@code none} (default) or {@code fsync}, see
+ * {@link Durability}; with {@code fsync}, concurrent saves are group-committed
+ * (see {@link GroupCommitStoryRepository}), which can also be forced on with
+ * {@code story.store.groupCommit=true}.
+ * {@code story.store.journal=true} puts a write-ahead journal in front of the
+ * {@code file} store (see {@link JournaledStoryRepository}); its writer thread
+ * already batches concurrent saves, so group commit is not added on top. A save
+ * the journal cannot take within {@code story.store.journalSaveTimeoutMs}
+ * (default 30000) fails.
+ * {@code story.store.compression=gzip} stores {@code file} stories GZIP-compressed
+ * instead (see {@link GzipStoryRepository}), at {@code story.store.compressionLevel}
+ * (1 to 9, default 6). Both only apply to the {@code file} store and are
+ * rejected with any other.
+ * {@code story.cache.maxBytes} bounds the read cache put in front of it
+ * (default 64 MiB, {@code 0} disables caching, see {@link CachingStoryRepository}).
+ * The same settings come from Spring configuration in the Spring server, see
+ * {@link StoreSettings}.
+ */
+public interface StoryRepository extends Closeable {
+
+    /**
+     * Stores the story, replacing any previous story with the same filename.
+     *
+     * @return a human readable location of the stored story
+     */
+    String save(String filename, String content) throws IOException;
+
+    /**
+     * Stores several stories as one batch. Implementations write the batch in one
+     * flush cycle where they can; the default saves them one by one.
+     *
+     * @return one result per write, in the same order
+     */
+    default List<SaveResult> saveAll(List<StoryWrite> writes) {
+        List<SaveResult> results = new ArrayList<>(writes.size());
+        for (StoryWrite write : writes) {
+            try {
+                results.add(SaveResult.saved(write.filename(), save(write.filename(), write.content())));
+            } catch (IOException e) {
+                results.add(SaveResult.failed(write.filename(), e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @throws java.nio.file.NoSuchFileException if no story is stored under the filename
+     */
+    String get(String filename) throws IOException;
+
+    /**
+     * Reads at most {@code maxBytes} of the story starting at byte {@code offset}
+     * without loading the rest of it.
+     *
+     * @throws java.nio.file.NoSuchFileException if no story is stored under the filename
+     */
+    StoryChunk read(String filename, long offset, int maxBytes) throws IOException;
+
+    List<String> list() throws IOException;
+
+    /**
+     * One page of story filenames in sorted order. The default sorts {@link #list()}
+     * on every call; stores that keep their names sorted serve a page without that.
+     */
+    default Page page(PageRequest request) throws IOException {
+        return Page.of(new TreeSet<>(list()), request);
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    static StoryRepository fromSystemProperties() throws IOException {
+        return open(StoreSettings.fromSystemProperties());
+    }
+
+    /**
+     * Opens the store the settings describe, with group commit and the read cache
+     * in front of it as configured.
+     *
+     * @throws IllegalArgumentException for an unknown type or compression, or a
+     *                                  journal or compression with a store other than {@code file}
+     */
+    static StoryRepository open(StoreSettings settings) throws IOException {
+        String type = settings.type();
+        String compression = settings.compression();
+        if (!compression.equals("none") && !compression.equals("gzip")) {
+            throw new IllegalArgumentException("Unknown story store compression: " + compression);
+        }
+        boolean gzip = compression.equals("gzip");
+        if (gzip && settings.journal()) {
+            throw new IllegalArgumentException("Story store compression gzip cannot be combined with the journal");
+        }
+        if (settings.journal() && !type.equals("file")) {
+            throw new IllegalArgumentException("The story store journal only applies to the file store, not " + type);
+        }
+        if (gzip && !type.equals("file")) {
+            throw new IllegalArgumentException("Story store compression gzip only applies to the file store, not " + type);
+        }
+        Path dir = settings.dir();
+        Durability durability = settings.durability();
+        StoryRepository repository = switch (type) {
+            case "file" -> settings.journal()
+                    ? JournaledStoryRepository.open(dir, durability, settings.journalSegmentBytes(),
+                            settings.journalSaveTimeoutMillis())
+                    : gzip
+                    ? new GzipStoryRepository(dir, durability, settings.compressionLevel())
+                    : new FileStoryRepository(dir, durability);
+            case "indexed" -> IndexedStoryRepository.open(dir, durability);
+            case "dedup" -> DedupStoryRepository.open(dir, durability);
+            default -> throw new IllegalArgumentException("Unknown story store type: " + type);
+        };
+        // The journal writer already batches concurrent saves.
+        if (!settings.journal() && (durability == Durability.FSYNC || settings.groupCommit())) {
+            repository = new GroupCommitStoryRepository(repository, settings.maxBatch());
+        }
+        return settings.cacheBytes() > 0 ? new CachingStoryRepository(repository, settings.cacheBytes()) : repository;
+    }
+}
@@ -0,0 +1,6 @@
+package org.story.builder.store;
+
+/**
+ * One story of a batch save.
+ */
+public record StoryWrite(String filename, String content) {}
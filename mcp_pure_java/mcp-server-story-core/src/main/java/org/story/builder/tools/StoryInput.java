@@ -0,0 +1,7 @@
+package org.story.builder.tools;
+
+/**
+ * One story of a {@code save_stories} call.
+ */
+public record StoryInput(String title, String content) {
+}
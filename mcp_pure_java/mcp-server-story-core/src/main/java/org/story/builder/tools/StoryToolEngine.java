@@ -0,0 +1,229 @@
+package org.story.builder.tools;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.story.builder.characters.Character;
+import org.story.builder.characters.CharacterRegistry;
+import org.story.builder.paging.Page;
+import org.story.builder.paging.PageRequest;
+import org.story.builder.search.SearchHit;
+import org.story.builder.search.StoryIndex;
+import org.story.builder.store.SaveResult;
+import org.story.builder.store.StoryChunk;
+import org.story.builder.store.StoryRepository;
+import org.story.builder.store.StoryWrite;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The story tools, independent of the server they are exposed through. Both the
+ * plain MCP server and the Spring server adapt these methods, so they share one
+ * character registry, repository and search index, and answer every call with
+ * the same text and the same error flag.
+ */
+public class StoryToolEngine {
+    private static final Logger log = LoggerFactory.getLogger(StoryToolEngine.class);
+
+    public static final String CHARACTER_NOT_FOUND = "Character not found.";
+
+    private static final DateTimeFormatter DATE_CREATED = DateTimeFormatter.ofPattern("MMMM dd, yyyy");
+
+    private final CharacterRegistry characters;
+    private final StoryRepository stories;
+    private final StoryIndex index;
+    private final int maxChunkBytes;
+    private final List<Consumer<String>> savedListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param maxChunkBytes largest slice of a story {@link #getStory} returns in one
+     *                      response; larger stories are paged with {@code offset}
+     */
+    public StoryToolEngine(CharacterRegistry characters, StoryRepository stories, StoryIndex index, int maxChunkBytes) {
+        this.characters = characters;
+        this.stories = stories;
+        this.index = index;
+        this.maxChunkBytes = maxChunkBytes;
+    }
+
+    /**
+     * Calls {@code listener} with the file name of every story saved through the engine.
+     */
+    public void onSaved(Consumer<String> listener) {
+        savedListeners.add(listener);
+    }
+
+    public ToolResult listCharacters(PageRequest request) {
+        if (characters.isEmpty()) {
+            return ToolResult.of("No characters");
+        }
+        try {
+            return pageResult(characters.page(request));
+        } catch (IllegalArgumentException e) {
+            return ToolResult.error("Error listing characters: " + describe(e));
+        }
+    }
+
+    public ToolResult getBackstory(String character) {
+        return characterResult(character, Character::backstory);
+    }
+
+    public ToolResult getSuperpower(String character) {
+        return characterResult(character, Character::superpower);
+    }
+
+    private ToolResult characterResult(String name, Function<Character, String> attribute) {
+        Character character = characters.get(name);
+        return ToolResult.of(character == null ? CHARACTER_NOT_FOUND : attribute.apply(character));
+    }
+
+    public ToolResult saveStory(String title, String content) {
+        String filename = sanitizeFilename(title);
+        String fullContent = formatStory(title, content);
+        try {
+            String location = stories.save(filename, fullContent);
+            saved(filename, fullContent);
+            return ToolResult.of("Story has been saved at: " + location);
+
+        } catch (IOException e) {
+            log.error("Error saving story {}", filename, e);
+            return ToolResult.error("Error saving story " + filename + ": " + describe(e));
+        }
+    }
+
+    /**
+     * Saves the stories as one batch. Stories that fail do not stop the others;
+     * the result has a line per story and is an error if any of them failed.
+     */
+    public ToolResult saveStories(List<StoryInput> inputs) {
+        List<StoryWrite> writes = new ArrayList<>(inputs.size());
+        for (StoryInput input : inputs) {
+            writes.add(new StoryWrite(sanitizeFilename(input.title()), formatStory(input.title(), input.content())));
+        }
+
+        boolean isError = false;
+        List<String> texts = new ArrayList<>(writes.size());
+        List<SaveResult> results = stories.saveAll(writes);
+        for (int i = 0; i < results.size(); i++) {
+            SaveResult result = results.get(i);
+            if (result.isSaved()) {
+                saved(result.filename(), writes.get(i).content());
+                texts.add("Story has been saved at: " + result.location());
+            } else {
+                isError = true;
+                log.error("Error saving story {}", result.filename(), result.error());
+                texts.add("Error saving story " + result.filename() + ": " + describe(result.error()));
+            }
+        }
+        return new ToolResult(texts, isError);
+    }
+
+    private void saved(String filename, String content) {
+        index.put(filename, content);
+        for (Consumer<String> listener : savedListeners) {
+            listener.accept(filename);
+        }
+    }
+
+    public ToolResult listStories(PageRequest request) {
+        try {
+            return pageResult(stories.page(request));
+
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Error listing stories", e);
+            return ToolResult.error("Error listing stories: " + describe(e));
+        }
+    }
+
+    /**
+     * Names on the page, one per line, followed by a note with the cursor for the
+     * next page when there is one.
+     */
+    private static ToolResult pageResult(Page page) {
+        String names = String.join("\n", page.items());
+        if (page.nextCursor() == null) {
+            return ToolResult.of(names);
+        }
+        return ToolResult.of(names, "[more results; pass cursor " + page.nextCursor() + " for the next page]");
+    }
+
+    /**
+     * Best matches first, {@code limit} clamped to 1..100 (10 when {@code null}).
+     */
+    public ToolResult searchStories(String query, Integer limit) {
+        List<SearchHit> hits = index.search(query, limit == null ? 10 : Math.clamp(limit, 1, 100));
+        List<String> texts = new ArrayList<>(hits.size() + 1);
+        for (SearchHit hit : hits) {
+            texts.add(String.format(Locale.ROOT, "%s (score %.2f)\n%s", hit.filename(), hit.score(), hit.snippet()));
+        }
+        if (hits.isEmpty()) {
+            texts.add("No stories match: " + query);
+        }
+        if (!index.isReady()) {
+            texts.add("[the search index is still being built; results may be incomplete]");
+        }
+        return new ToolResult(texts, false);
+    }
+
+    /**
+     * Reads up to {@code length} bytes of a story from {@code offset}. Without
+     * either argument the whole story is returned if it fits in one chunk; a
+     * paged read, or a story that does not fit, gets a note with the byte range.
+     */
+    public ToolResult getStory(String filename, Long offset, Integer length) {
+        boolean paged = offset != null || length != null;
+        long from = offset == null ? 0 : Math.max(0, offset);
+        int bytes = length == null ? maxChunkBytes : Math.clamp(length, 4, maxChunkBytes);
+        try {
+            StoryChunk chunk = stories.read(filename, from, bytes);
+            if (paged || chunk.hasMore()) {
+                return ToolResult.of(chunk.text(), pageNote(chunk));
+            }
+            return ToolResult.of(chunk.text());
+
+        } catch (NoSuchFileException e) {
+            return ToolResult.error("Story file not found: " + filename);
+        } catch (IOException e) {
+            log.error("Error reading story {}", filename, e);
+            return ToolResult.error("Error reading story " + filename + ": " + describe(e));
+        }
+    }
+
+    private static String pageNote(StoryChunk chunk) {
+        if (chunk.hasMore()) {
+            return String.format("[bytes %d-%d of %d; call get_story with offset %d for the rest]",
+                    chunk.offset(), chunk.nextOffset(), chunk.size(), chunk.nextOffset());
+        }
+        return String.format("[bytes %d-%d of %d; end of story]", chunk.offset(), chunk.nextOffset(), chunk.size());
+    }
+
+    private static String describe(Exception e) {
+        return e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+
+    public static String formatStory(String title, String content) {
+        String dateCreated = LocalDateTime.now().format(DATE_CREATED);
+        return String.format("# %s\n\n**Date Created:** %s\n\n%s", title, dateCreated, content);
+    }
+
+    public static String sanitizeFilename(String title) {
+        String filename = title.toLowerCase().replaceAll("\\s+", "_");
+        String[] parts = filename.split("_");
+        if (parts.length > 4) {
+            filename = String.join("_", Arrays.copyOfRange(parts, 0, 4));
+        }
+        if (filename.length() > 30) {
+            filename = filename.substring(0, 30);
+        }
+        return filename + ".md";
+    }
+}
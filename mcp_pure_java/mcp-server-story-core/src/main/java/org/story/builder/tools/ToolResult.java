@@ -0,0 +1,29 @@
+package org.story.builder.tools;
+
+import java.util.List;
+
+/**
+ * What a tool call produced: one or more blocks of text, and whether the call
+ * failed. Each server maps this onto its own response type.
+ */
+public record ToolResult(List<String> texts, boolean isError) {
+
+    public ToolResult {
+        texts = List.copyOf(texts);
+    }
+
+    public static ToolResult of(String... texts) {
+        return new ToolResult(List.of(texts), false);
+    }
+
+    public static ToolResult error(String text) {
+        return new ToolResult(List.of(text), true);
+    }
+
+    /**
+     * The blocks as a single text, one per line.
+     */
+    public String text() {
+        return String.join("\n", texts);
+    }
+}
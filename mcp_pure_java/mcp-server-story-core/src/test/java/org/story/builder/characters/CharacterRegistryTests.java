@@ -0,0 +1,51 @@
+package org.story.builder.characters;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CharacterRegistryTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void loadsCsvWithQuotedFields() throws Exception {
+		Path file = dir.resolve("characters.csv");
+		Files.writeString(file, """
+				name,backstory,superpower
+				Mia,"A pilot, retired",Flight
+				Zed,"Says ""hi"" a lot",Speed
+				""");
+		CharacterRegistry registry = CharacterRegistry.load(file);
+		assertThat(registry.names()).containsExactlyInAnyOrder("Mia", "Zed");
+		assertThat(registry.get("Mia").backstory()).isEqualTo("A pilot, retired");
+		assertThat(registry.get("Zed").backstory()).isEqualTo("Says \"hi\" a lot");
+	}
+
+	@Test
+	void reloadsJsonWhenTheFileChanges() throws Exception {
+		Path file = dir.resolve("characters.json");
+		Files.writeString(file, """
+				[{"name": "Mia", "backstory": "A pilot", "superpower": "Flight"}]
+				""");
+		try (CharacterRegistry registry = CharacterRegistry.load(file)) {
+			CountDownLatch reloaded = new CountDownLatch(1);
+			registry.addListener(reloaded::countDown);
+			registry.watch();
+			Files.writeString(file, """
+					[{"name": "Mia", "backstory": "A pilot", "superpower": "Flight"},
+					 {"name": "Zed", "backstory": "A runner", "superpower": "Speed"}]
+					""");
+			assertThat(reloaded.await(30, TimeUnit.SECONDS)).isTrue();
+			assertThat(registry.get("Zed").superpower()).isEqualTo("Speed");
+		}
+	}
+
+}
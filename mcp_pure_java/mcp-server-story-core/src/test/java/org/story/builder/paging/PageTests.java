@@ -0,0 +1,44 @@
+package org.story.builder.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageTests {
+
+	private final NavigableSet<String> names = new TreeSet<>(List.of(
+			"alpha.md", "apple_pie.md", "apricot.md", "banana.md", "cherry_pie.md"));
+
+	@Test
+	void walksAllPagesWithTheCursor() {
+		List<String> seen = new ArrayList<>();
+		String cursor = null;
+		do {
+			Page page = Page.of(names, new PageRequest(2, cursor, null, null));
+			assertThat(page.items()).hasSizeLessThanOrEqualTo(2);
+			seen.addAll(page.items());
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		assertThat(seen).containsExactlyElementsOf(names);
+	}
+
+	@Test
+	void filtersByPrefixAndSubstring() {
+		Page page = Page.of(names, new PageRequest(1, null, "ap", null));
+		assertThat(page.items()).containsExactly("apple_pie.md");
+		assertThat(Page.of(names, new PageRequest(10, page.nextCursor(), "ap", null)).items())
+				.containsExactly("apricot.md");
+
+		assertThat(Page.of(names, new PageRequest(10, null, null, "_pie")).items())
+				.containsExactly("apple_pie.md", "cherry_pie.md");
+		assertThat(Page.of(names, new PageRequest(1, null, null, "_pie")).nextCursor()).isNotNull();
+		assertThatThrownBy(() -> Page.of(names, new PageRequest(1, "not base64!", null, null)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
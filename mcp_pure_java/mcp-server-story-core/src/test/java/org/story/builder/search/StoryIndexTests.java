@@ -0,0 +1,52 @@
+package org.story.builder.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoryIndexTests {
+
+	@Test
+	void ranksStoriesByBm25WithSnippets() {
+		StoryIndex index = new StoryIndex(1024);
+		index.put("dragon.md", "# The Dragon\n\nA dragon guards the mountain. The dragon sleeps.");
+		index.put("knight.md", "# The Knight\n\nA knight rides toward the mountain to find a dragon.");
+		index.put("garden.md", "# The Garden\n\nFlowers grow quietly.");
+
+		List<SearchHit> hits = index.search("Dragon", 10);
+
+		assertThat(hits).extracting(SearchHit::filename).containsExactly("dragon.md", "knight.md");
+		assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+		assertThat(hits.get(1).snippet()).contains("find a dragon");
+		assertThat(index.search("unicorn", 10)).isEmpty();
+	}
+
+	@Test
+	void replacesTheOldVersionOfAResavedStory() {
+		StoryIndex index = new StoryIndex(1024);
+		for (int i = 0; i < 10; i++) {
+			index.put("story.md", "version " + i + " mentions word" + i);
+		}
+
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(index.search("word3", 10)).isEmpty();
+		assertThat(index.search("word9", 10)).extracting(SearchHit::filename).containsExactly("story.md");
+		assertThat(index.search("version", 10)).hasSize(1);
+	}
+
+	@Test
+	void renumbersDocumentsWhenCompacting() {
+		StoryIndex index = new StoryIndex(1024);
+		index.put("dragon.md", "A dragon sleeps");
+		for (int i = 0; i < 1000; i++) {
+			index.put("story_" + i % 3 + ".md", "a knight named knight" + i);
+		}
+
+		assertThat(index.idCount()).isLessThanOrEqualTo(2 * index.size() + 1);
+		assertThat(index.search("knight998", 10)).extracting(SearchHit::filename).containsExactly("story_2.md");
+		assertThat(index.search("knight", 10)).hasSize(3);
+		assertThat(index.search("dragon", 10)).extracting(SearchHit::filename).containsExactly("dragon.md");
+	}
+}
@@ -0,0 +1,75 @@
+package org.story.builder.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingStoryRepositoryTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void servesRepeatedReadsFromMemoryAndInvalidatesOnSave() throws Exception {
+		CachingStoryRepository repository = new CachingStoryRepository(new FileStoryRepository(dir), 1024);
+		repository.save("a.md", "first");
+		assertThat(repository.get("a.md")).isEqualTo("first");
+		assertThat(repository.get("a.md")).isEqualTo("first");
+		repository.save("a.md", "second");
+		assertThat(repository.get("a.md")).isEqualTo("second");
+
+		CachingStoryRepository.CacheStats stats = repository.stats();
+		assertThat(stats.hits()).isEqualTo(1);
+		assertThat(stats.misses()).isEqualTo(2);
+	}
+
+	@Test
+	void picksUpChangesMadeBehindItsBackOnceInvalidated() throws Exception {
+		CachingStoryRepository repository = new CachingStoryRepository(new FileStoryRepository(dir), 1024);
+		repository.save("a.md", "first");
+		repository.get("a.md");
+		Files.writeString(dir.resolve("a.md"), "edited");
+		assertThat(repository.get("a.md")).isEqualTo("first");
+
+		repository.invalidate("a.md");
+		assertThat(repository.get("a.md")).isEqualTo("edited");
+	}
+
+	@Test
+	void countsEveryChunkReadFromTheStoreAsAMiss() throws Exception {
+		CachingStoryRepository repository = new CachingStoryRepository(new FileStoryRepository(dir), 1024);
+		repository.save("long.md", "0123456789");
+		repository.read("long.md", 0, 4);
+		repository.read("long.md", 4, 4);
+		repository.save("short.md", "abc");
+		repository.read("short.md", 0, 16);
+		repository.read("short.md", 0, 16);
+
+		CachingStoryRepository.CacheStats stats = repository.stats();
+		assertThat(stats.misses()).isEqualTo(3);
+		assertThat(stats.hits()).isEqualTo(1);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedWhenOverBudget() throws Exception {
+		CachingStoryRepository repository = new CachingStoryRepository(new FileStoryRepository(dir), 40);
+		repository.save("a.md", "a".repeat(10));
+		repository.save("b.md", "b".repeat(10));
+		repository.save("c.md", "c".repeat(10));
+		repository.get("a.md");
+		repository.get("b.md");
+		repository.get("a.md");
+		repository.get("c.md");
+
+		CachingStoryRepository.CacheStats stats = repository.stats();
+		assertThat(stats.evictions()).isEqualTo(1);
+		assertThat(stats.weightBytes()).isLessThanOrEqualTo(40);
+		repository.get("a.md");
+		assertThat(repository.stats().hits()).isEqualTo(2);
+	}
+
+}
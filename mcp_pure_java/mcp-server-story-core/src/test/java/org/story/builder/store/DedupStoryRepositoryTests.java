@@ -0,0 +1,94 @@
+package org.story.builder.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.story.builder.tools.StoryToolEngine;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DedupStoryRepositoryTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void storesTheSameBodyOnceUnderDifferentTitles() throws Exception {
+		String first = StoryToolEngine.formatStory("The Lost Sword", "Once upon a time.");
+		String second = StoryToolEngine.formatStory("A Sword Lost Again", "Once upon a time.");
+		try (DedupStoryRepository repository = DedupStoryRepository.open(dir)) {
+			repository.saveAll(List.of(new StoryWrite("the_lost_sword.md", first),
+					new StoryWrite("a_sword_lost_again.md", second)));
+			repository.save("plain.md", "Once upon a time.");
+
+			assertThat(repository.bodyCount()).isEqualTo(1);
+			assertThat(repository.get("the_lost_sword.md")).isEqualTo(first);
+			assertThat(repository.get("a_sword_lost_again.md")).isEqualTo(second);
+			assertThat(repository.get("plain.md")).isEqualTo("Once upon a time.");
+		}
+	}
+
+	@Test
+	void readsChunksAcrossHeaderAndBody() throws Exception {
+		String story = StoryToolEngine.formatStory("Café", "Ünïcode body text");
+		try (DedupStoryRepository repository = DedupStoryRepository.open(dir)) {
+			repository.save("cafe.md", story);
+
+			StringBuilder text = new StringBuilder();
+			long offset = 0;
+			StoryChunk chunk;
+			do {
+				chunk = repository.read("cafe.md", offset, 7);
+				text.append(chunk.text());
+				offset = chunk.nextOffset();
+			} while (chunk.hasMore());
+			assertThat(text.toString()).isEqualTo(story);
+		}
+	}
+
+	@Test
+	void importsMarkdownAndSurvivesReopenWithTornIndex() throws Exception {
+		Files.writeString(dir.resolve("old_story.md"), "# Old");
+		try (DedupStoryRepository repository = DedupStoryRepository.open(dir)) {
+			assertThat(repository.get("old_story.md")).isEqualTo("# Old");
+			repository.save("new_story.md", "first");
+			repository.save("new_story.md", "second");
+		}
+		Files.write(dir.resolve(DedupStoryRepository.INDEX_FILE), new byte[] {0, 0, 0, 9, 'x'},
+				StandardOpenOption.APPEND);
+		try (DedupStoryRepository repository = DedupStoryRepository.open(dir)) {
+			assertThat(repository.list()).containsExactlyInAnyOrder("old_story.md", "new_story.md");
+			assertThat(repository.get("new_story.md")).isEqualTo("second");
+			assertThatThrownBy(() -> repository.get("missing.md")).isInstanceOf(NoSuchFileException.class);
+			repository.save("c.md", "gamma");
+		}
+		try (DedupStoryRepository repository = DedupStoryRepository.open(dir)) {
+			assertThat(repository.get("c.md")).isEqualTo("gamma");
+		}
+	}
+
+	@Test
+	void compactsTheNameIndexOnceMostEntriesAreSuperseded() throws Exception {
+		Path index = dir.resolve(DedupStoryRepository.INDEX_FILE);
+		try (DedupStoryRepository repository = DedupStoryRepository.open(dir, Durability.NONE)) {
+			repository.save("kept.md", "kept");
+			for (int i = 0; i < 3000; i++) {
+				repository.save("rewritten.md", "version " + i);
+			}
+			assertThat(repository.get("rewritten.md")).isEqualTo("version 2999");
+			assertThat(Files.size(index)).isLessThan(1100L * 64);
+		}
+		try (DedupStoryRepository repository = DedupStoryRepository.open(dir)) {
+			assertThat(repository.list()).containsExactlyInAnyOrder("kept.md", "rewritten.md");
+			assertThat(repository.get("kept.md")).isEqualTo("kept");
+			assertThat(repository.get("rewritten.md")).isEqualTo("version 2999");
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+package org.story.builder.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GroupCommitStoryRepositoryTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void concurrentSavesAreAllWrittenAsMarkdownFiles() throws Exception {
+		try (GroupCommitStoryRepository repository =
+					 new GroupCommitStoryRepository(new FileStoryRepository(dir, Durability.FSYNC), 16);
+			 ExecutorService executor = Executors.newFixedThreadPool(8)) {
+			List<Future<String>> saves = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				String filename = "story_" + i + ".md";
+				saves.add(executor.submit(() -> repository.save(filename, "content of " + filename)));
+			}
+			for (Future<String> save : saves) {
+				assertThat(save.get()).endsWith(".md");
+			}
+		}
+		assertThat(Files.readString(dir.resolve("story_42.md"))).isEqualTo("content of story_42.md");
+		try (var files = Files.list(dir)) {
+			assertThat(files.count()).isEqualTo(100);
+		}
+	}
+
+	@Test
+	void batchReportsPerItemResults() throws Exception {
+		try (IndexedStoryRepository repository = IndexedStoryRepository.open(dir, Durability.FSYNC)) {
+			List<SaveResult> results = repository.saveAll(List.of(
+					new StoryWrite("a.md", "alpha"), new StoryWrite("b.md", "beta")));
+			assertThat(results).extracting(SaveResult::filename).containsExactly("a.md", "b.md");
+			assertThat(results).allMatch(SaveResult::isSaved);
+			assertThat(repository.get("b.md")).isEqualTo("beta");
+		}
+	}
+
+	@Test
+	void closeCommitsTheSavesInFlight() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		IndexedStoryRepository indexed = IndexedStoryRepository.open(dir, Durability.FSYNC);
+		StoryRepository gated = new StoryRepository() {
+			@Override
+			public String save(String filename, String content) throws IOException {
+				return indexed.save(filename, content);
+			}
+
+			@Override
+			public List<SaveResult> saveAll(List<StoryWrite> writes) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return indexed.saveAll(writes);
+			}
+
+			@Override
+			public String get(String filename) throws IOException {
+				return indexed.get(filename);
+			}
+
+			@Override
+			public StoryChunk read(String filename, long offset, int maxBytes) throws IOException {
+				return indexed.read(filename, offset, maxBytes);
+			}
+
+			@Override
+			public List<String> list() throws IOException {
+				return indexed.list();
+			}
+
+			@Override
+			public void close() throws IOException {
+				indexed.close();
+			}
+		};
+		GroupCommitStoryRepository repository = new GroupCommitStoryRepository(gated, 4);
+		List<Thread> savers = new ArrayList<>();
+		List<Throwable> failures = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			String filename = "story_" + i + ".md";
+			savers.add(Thread.ofPlatform().start(() -> {
+				try {
+					repository.save(filename, "content of " + filename);
+				} catch (Throwable e) {
+					failures.add(e);
+				}
+			}));
+		}
+		// Every saver is parked waiting for its batch, so all 64 are queued.
+		while (savers.stream().anyMatch(saver -> saver.getState() != Thread.State.WAITING)) {
+			Thread.sleep(5);
+		}
+		Thread closer = Thread.ofPlatform().start(() -> {
+			try {
+				repository.close();
+			} catch (IOException e) {
+				failures.add(e);
+			}
+		});
+		release.countDown();
+		closer.join(TimeUnit.SECONDS.toMillis(10));
+		for (Thread saver : savers) {
+			saver.join(TimeUnit.SECONDS.toMillis(10));
+		}
+
+		assertThat(failures).isEmpty();
+		try (IndexedStoryRepository reopened = IndexedStoryRepository.open(dir)) {
+			assertThat(reopened.list()).hasSize(64);
+			assertThat(reopened.get("story_63.md")).isEqualTo("content of story_63.md");
+		}
+	}
+
+}
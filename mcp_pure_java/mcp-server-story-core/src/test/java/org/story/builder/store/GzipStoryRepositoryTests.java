@@ -0,0 +1,67 @@
+package org.story.builder.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GzipStoryRepositoryTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void storiesAreStoredCompressedAndReadBackInChunksAcrossBlocks() throws Exception {
+		StringBuilder story = new StringBuilder();
+		for (int i = 0; story.length() < 200_000; i++) {
+			story.append("Ünïcode dragon ").append(i).append(" — had tea.\n");
+		}
+		GzipStoryRepository repository = new GzipStoryRepository(dir, Durability.NONE);
+		repository.save("dragon.md", story.toString());
+
+		Path file = dir.resolve("dragon.md.gz");
+		assertThat(Files.size(file)).isLessThan(story.length() / 2);
+		try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(story.toString());
+		}
+		assertThat(repository.get("dragon.md")).isEqualTo(story.toString());
+
+		StringBuilder chunks = new StringBuilder();
+		StoryChunk chunk;
+		long offset = 0;
+		do {
+			chunk = repository.read("dragon.md", offset, 50_000);
+			chunks.append(chunk.text());
+			offset = chunk.nextOffset();
+		} while (chunk.hasMore());
+		assertThat(chunks.toString()).isEqualTo(story.toString());
+		assertThat(repository.list()).containsExactly("dragon.md");
+	}
+
+	@Test
+	void readsUncompressedAndForeignGzipFilesAndCompressesThemOnSave() throws Exception {
+		Files.writeString(dir.resolve("plain.md"), "plain story");
+		ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+			out.write("gzipped elsewhere".getBytes(StandardCharsets.UTF_8));
+		}
+		Files.write(dir.resolve("foreign.md.gz"), gzip.toByteArray());
+
+		GzipStoryRepository repository = new GzipStoryRepository(dir, Durability.FSYNC);
+		assertThat(repository.list()).containsExactlyInAnyOrder("plain.md", "foreign.md");
+		assertThat(repository.get("plain.md")).isEqualTo("plain story");
+		assertThat(repository.read("foreign.md", 8, 100).text()).isEqualTo("elsewhere");
+
+		repository.save("plain.md", "plain story, compressed");
+		assertThat(dir.resolve("plain.md")).doesNotExist();
+		assertThat(repository.get("plain.md")).isEqualTo("plain story, compressed");
+	}
+
+}
@@ -0,0 +1,73 @@
+package org.story.builder.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IndexedStoryRepositoryTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void importsMarkdownAndSurvivesReopen() throws Exception {
+		Files.writeString(dir.resolve("old_story.md"), "# Old");
+		try (IndexedStoryRepository repository = IndexedStoryRepository.open(dir)) {
+			assertThat(repository.get("old_story.md")).isEqualTo("# Old");
+			repository.save("new_story.md", "first");
+			repository.save("new_story.md", "second");
+		}
+		try (IndexedStoryRepository repository = IndexedStoryRepository.open(dir)) {
+			assertThat(repository.list()).containsExactlyInAnyOrder("old_story.md", "new_story.md");
+			assertThat(repository.get("new_story.md")).isEqualTo("second");
+			assertThatThrownBy(() -> repository.get("missing.md")).isInstanceOf(NoSuchFileException.class);
+		}
+	}
+
+	@Test
+	void reindexesSegmentTailAfterLostIndex() throws Exception {
+		try (IndexedStoryRepository repository = IndexedStoryRepository.open(dir)) {
+			repository.save("a.md", "alpha");
+			repository.save("b.md", "beta");
+		}
+		Files.write(dir.resolve(IndexedStoryRepository.INDEX_FILE), new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
+		Files.write(dir.resolve(IndexedStoryRepository.SEGMENT_FILE), new byte[] {0, 0}, StandardOpenOption.APPEND);
+		try (IndexedStoryRepository repository = IndexedStoryRepository.open(dir)) {
+			assertThat(repository.get("a.md")).isEqualTo("alpha");
+			assertThat(repository.get("b.md")).isEqualTo("beta");
+			repository.save("c.md", "gamma");
+			assertThat(repository.get("c.md")).isEqualTo("gamma");
+		}
+	}
+
+	@Test
+	void readsRecordsAcrossMappedRegionsAndDropsATornIndexEntry() throws Exception {
+		try (IndexedStoryRepository repository = IndexedStoryRepository.open(dir, Durability.NONE, 64)) {
+			for (int i = 0; i < 20; i++) {
+				repository.save("story_" + i + ".md", "story " + i + " " + "x".repeat(i * 3));
+				for (int j = 0; j <= i; j++) {
+					assertThat(repository.get("story_" + j + ".md")).isEqualTo("story " + j + " " + "x".repeat(j * 3));
+				}
+			}
+			assertThat(repository.read("story_19.md", 3, 6).text()).isEqualTo("ry 19 ");
+		}
+		Files.write(dir.resolve(IndexedStoryRepository.INDEX_FILE), new byte[] {(byte) 0xff, 0, 0, 0, 'x'},
+				StandardOpenOption.APPEND);
+		try (IndexedStoryRepository repository = IndexedStoryRepository.open(dir, Durability.NONE, 64)) {
+			assertThat(repository.list()).hasSize(20);
+			repository.save("after.md", "after");
+		}
+		try (IndexedStoryRepository repository = IndexedStoryRepository.open(dir)) {
+			assertThat(repository.get("after.md")).isEqualTo("after");
+			assertThat(repository.get("story_7.md")).isEqualTo("story 7 " + "x".repeat(21));
+		}
+	}
+
+}
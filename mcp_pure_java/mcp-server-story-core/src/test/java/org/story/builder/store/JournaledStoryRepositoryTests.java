@@ -0,0 +1,136 @@
+package org.story.builder.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournaledStoryRepositoryTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void savedStoriesAreReadableAndEndUpInTheirFiles() throws Exception {
+		try (JournaledStoryRepository repository = JournaledStoryRepository.open(dir, Durability.FSYNC, 1024)) {
+			for (int i = 0; i < 200; i++) {
+				repository.save("story_" + i % 50 + ".md", "version " + i);
+			}
+			assertThat(repository.get("story_7.md")).isEqualTo("version 157");
+			assertThat(repository.read("story_7.md", 8, 100).text()).isEqualTo("157");
+			assertThat(repository.list()).hasSize(50);
+		}
+		assertThat(Files.readString(dir.resolve("story_7.md"))).isEqualTo("version 157");
+		try (var files = Files.list(dir)) {
+			assertThat(files.map(path -> path.getFileName().toString()))
+					.hasSize(50)
+					.allMatch(name -> name.endsWith(".md"));
+		}
+	}
+
+	@Test
+	void replaysJournalLeftByACrashAndDropsTheTornTail() throws Exception {
+		ByteBuffer first = record(1, "a.md", "alpha");
+		ByteBuffer second = record(2, "b.md", "beta");
+		ByteBuffer torn = record(3, "c.md", "gamma");
+		torn.limit(torn.limit() - 2);
+		byte[] journal = new byte[first.remaining() + second.remaining() + torn.remaining()];
+		ByteBuffer.wrap(journal).put(first).put(second).put(torn);
+		Files.write(dir.resolve("stories-00000000000000000001.journal"), journal);
+
+		try (JournaledStoryRepository repository = JournaledStoryRepository.open(dir, Durability.NONE)) {
+			assertThat(repository.list()).containsExactlyInAnyOrder("a.md", "b.md");
+			repository.save("d.md", "delta");
+		}
+		assertThat(Files.readString(dir.resolve("a.md"))).isEqualTo("alpha");
+		assertThat(Files.readString(dir.resolve("b.md"))).isEqualTo("beta");
+		assertThat(dir.resolve("c.md")).doesNotExist();
+		try (JournaledStoryRepository repository = JournaledStoryRepository.open(dir, Durability.NONE)) {
+			assertThat(repository.list()).containsExactlyInAnyOrder("a.md", "b.md", "d.md");
+		}
+	}
+
+	@Test
+	void retriesAStoryThatFailedToBeWrittenAndThenDeletesTheJournal() throws Exception {
+		// A non-empty directory in the way: the rename over it fails until it is removed.
+		Path blocker = Files.createDirectories(dir.resolve("blocked.md"));
+		Files.writeString(blocker.resolve("inside"), "x");
+		try (JournaledStoryRepository repository = JournaledStoryRepository.open(dir, Durability.NONE, 64)) {
+			repository.save("blocked.md", "blocked story");
+			for (int i = 0; i < 3; i++) {
+				repository.save("story_" + i + ".md", "story " + i);
+			}
+			waitFor(() -> Files.exists(dir.resolve("story_2.md")));
+			assertThat(repository.get("blocked.md")).isEqualTo("blocked story");
+			assertThat(journalSegments()).hasSizeGreaterThan(1);
+
+			Files.delete(blocker.resolve("inside"));
+			Files.delete(blocker);
+			waitFor(() -> Files.isRegularFile(dir.resolve("blocked.md")) && journalSegments().size() == 1);
+			repository.save("after.md", "after");
+		}
+		assertThat(Files.readString(dir.resolve("blocked.md"))).isEqualTo("blocked story");
+		assertThat(Files.readString(dir.resolve("after.md"))).isEqualTo("after");
+		assertThat(journalSegments()).isEmpty();
+	}
+
+	@Test
+	void failsSavesOnceTheJournalIsFullOfStoriesThatCannotBeWritten() throws Exception {
+		Path blocker = Files.createDirectories(dir.resolve("blocked.md"));
+		Files.writeString(blocker.resolve("inside"), "x");
+		try (JournaledStoryRepository repository = JournaledStoryRepository.open(dir, Durability.NONE, 64, 200)) {
+			repository.save("blocked.md", "blocked story");
+			// Every later segment is kept behind the blocked story until the writer stops taking saves.
+			assertThatThrownBy(() -> {
+				for (int i = 0; i < 100; i++) {
+					repository.save("story_" + i + ".md", "story " + i);
+				}
+			}).isInstanceOf(IOException.class).hasMessageContaining("journal is full");
+
+			Files.delete(blocker.resolve("inside"));
+			Files.delete(blocker);
+			waitFor(() -> Files.isRegularFile(dir.resolve("blocked.md")));
+			repository.save("after.md", "after");
+		}
+		assertThat(Files.readString(dir.resolve("after.md"))).isEqualTo("after");
+	}
+
+	private List<Path> journalSegments() throws Exception {
+		try (var files = Files.list(dir)) {
+			return files.filter(path -> path.getFileName().toString().endsWith(".journal")).toList();
+		}
+	}
+
+	private static void waitFor(Condition condition) throws Exception {
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (!condition.holds()) {
+			assertThat(System.nanoTime()).as("condition within 5 s").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private interface Condition {
+		boolean holds() throws Exception;
+	}
+
+	private static ByteBuffer record(long seq, String filename, String content) {
+		byte[] name = filename.getBytes(StandardCharsets.UTF_8);
+		byte[] text = content.getBytes(StandardCharsets.UTF_8);
+		int length = 12 + name.length + text.length;
+		ByteBuffer record = ByteBuffer.allocate(8 + length);
+		record.putInt(length).putInt(0).putLong(seq).putInt(name.length).put(name).put(text);
+		CRC32C crc = new CRC32C();
+		crc.update(record.array(), 8, length);
+		return record.putInt(4, (int) crc.getValue()).flip();
+	}
+
+}
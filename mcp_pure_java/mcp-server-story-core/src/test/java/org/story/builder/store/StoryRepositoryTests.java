@@ -0,0 +1,44 @@
+package org.story.builder.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StoryRepositoryTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void opensTheConfiguredStoreBehindGroupCommitAndTheCache() throws Exception {
+		try (StoryRepository repository = StoryRepository.open(
+				new StoreSettings("indexed", dir, Durability.FSYNC, false, 0, 30_000, "none", 6, false, 16, 1024))) {
+			assertThat(repository).isInstanceOf(CachingStoryRepository.class);
+			StoryRepository delegate = ((CachingStoryRepository) repository).delegate();
+			assertThat(delegate).isInstanceOf(GroupCommitStoryRepository.class);
+			repository.save("a.md", "alpha");
+			assertThat(repository.get("a.md")).isEqualTo("alpha");
+		}
+		try (StoryRepository repository = StoryRepository.open(
+				new StoreSettings("file", dir, Durability.NONE, false, 0, 30_000, "gzip", 6, false, 16, 0))) {
+			assertThat(repository).isInstanceOf(GzipStoryRepository.class);
+		}
+	}
+
+	@Test
+	void rejectsSettingsThatOnlyApplyToTheFileStore() {
+		assertThatThrownBy(() -> StoryRepository.open(
+				new StoreSettings("dedup", dir, Durability.NONE, true, 1024, 30_000, "none", 6, false, 16, 0)))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("journal");
+		assertThatThrownBy(() -> StoryRepository.open(
+				new StoreSettings("indexed", dir, Durability.NONE, false, 0, 30_000, "gzip", 6, false, 16, 0)))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("gzip");
+		assertThatThrownBy(() -> StoryRepository.open(
+				new StoreSettings("sqlite", dir, Durability.NONE, false, 0, 30_000, "none", 6, false, 16, 0)))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("sqlite");
+	}
+}
@@ -0,0 +1,75 @@
+package org.story.builder.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.story.builder.characters.CharacterRegistry;
+import org.story.builder.paging.PageRequest;
+import org.story.builder.search.StoryIndex;
+import org.story.builder.store.FileStoryRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoryToolEngineTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void savesAndPagesStoriesAndNotifiesListeners() throws Exception {
+		StoryToolEngine engine = new StoryToolEngine(CharacterRegistry.defaults(), new FileStoryRepository(dir),
+				new StoryIndex(), 16);
+		List<String> saved = new ArrayList<>();
+		engine.onSaved(saved::add);
+
+		ToolResult result = engine.saveStory("The Long Night", "x".repeat(100));
+		assertThat(result.isError()).isFalse();
+		assertThat(saved).containsExactly("the_long_night.md");
+
+		ToolResult chunk = engine.getStory("the_long_night.md", null, null);
+		assertThat(chunk.isError()).isFalse();
+		assertThat(chunk.texts()).hasSize(2);
+		assertThat(chunk.texts().get(0)).startsWith("# The Long Night");
+		assertThat(chunk.texts().get(1)).contains("call get_story with offset 16");
+
+		engine.saveStories(List.of(new StoryInput("b", "b"), new StoryInput("c", "c")));
+		ToolResult page = engine.listStories(PageRequest.first(2));
+		assertThat(page.texts().get(0)).isEqualTo("b.md\nc.md");
+		assertThat(page.texts().get(1)).startsWith("[more results; pass cursor ");
+	}
+
+	@Test
+	void reportsFailuresAsErrors() throws Exception {
+		StoryToolEngine engine = new StoryToolEngine(CharacterRegistry.defaults(), new FileStoryRepository(dir),
+				new StoryIndex(), 1024);
+
+		ToolResult missing = engine.getStory("missing.md", null, null);
+		assertThat(missing.isError()).isTrue();
+		assertThat(missing.text()).isEqualTo("Story file not found: missing.md");
+
+		ToolResult badCursor = engine.listStories(new PageRequest(10, "not a cursor!", null, null));
+		assertThat(badCursor.isError()).isTrue();
+		assertThat(engine.getBackstory("nobody").text()).isEqualTo("Character not found.");
+	}
+
+	@Test
+	void formatsSearchHitsTheSameInEveryLocale() throws Exception {
+		FileStoryRepository stories = new FileStoryRepository(dir);
+		stories.save("dragon.md", "A dragon slept.");
+		StoryIndex index = new StoryIndex();
+		index.build(stories);
+		StoryToolEngine engine = new StoryToolEngine(CharacterRegistry.defaults(), stories, index, 1024);
+		Locale defaultLocale = Locale.getDefault();
+		Locale.setDefault(Locale.GERMANY);
+		try {
+			assertThat(engine.searchStories("dragon", null).texts().get(0)).matches("dragon\\.md \\(score \\d+\\.\\d{2}\\)\n.*");
+		} finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+}
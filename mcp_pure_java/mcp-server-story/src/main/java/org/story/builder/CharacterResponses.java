@@ -0,0 +1,91 @@
+package org.story.builder;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.story.builder.characters.CharacterRegistry;
+import org.story.builder.paging.PageRequest;
+import org.story.builder.tools.StoryToolEngine;
+import org.story.builder.tools.ToolResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The answers of {@code get_backstory}, {@code get_superpower} and an argument-less
+ * {@code list_characters}, built once per version of the character registry.
+ * They only change when the registry reloads, so a call is a map lookup that
+ * returns the same immutable {@link McpSchema.CallToolResult}, and the results
+ * are published to this instance's {@link PreEncodedJson} so their JSON is not
+ * encoded again either.
+ */
+final class CharacterResponses {
+    private static final Logger log = LoggerFactory.getLogger(CharacterResponses.class);
+
+    private record Snapshot(Map<String, McpSchema.CallToolResult> backstories,
+                            Map<String, McpSchema.CallToolResult> superpowers,
+                            McpSchema.CallToolResult notFound,
+                            McpSchema.CallToolResult firstPage) {
+    }
+
+    private final StoryToolEngine engine;
+    private final CharacterRegistry characters;
+    private final PreEncodedJson json = new PreEncodedJson();
+    private volatile Snapshot snapshot;
+
+    CharacterResponses(StoryToolEngine engine, CharacterRegistry characters) {
+        this.engine = engine;
+        this.characters = characters;
+        rebuild();
+        characters.addListener(this::rebuild);
+    }
+
+    /**
+     * The encoded JSON of the current responses.
+     */
+    PreEncodedJson json() {
+        return json;
+    }
+
+    McpSchema.CallToolResult backstory(String name) {
+        Snapshot current = snapshot;
+        return current.backstories().getOrDefault(name, current.notFound());
+    }
+
+    McpSchema.CallToolResult superpower(String name) {
+        Snapshot current = snapshot;
+        return current.superpowers().getOrDefault(name, current.notFound());
+    }
+
+    /**
+     * The first page with the default limit, what {@code list_characters} returns
+     * when called without arguments.
+     */
+    McpSchema.CallToolResult firstPage() {
+        return snapshot.firstPage();
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        Map<String, McpSchema.CallToolResult> backstories = HashMap.newHashMap(characters.size());
+        Map<String, McpSchema.CallToolResult> superpowers = HashMap.newHashMap(characters.size());
+        for (String name : characters.names()) {
+            backstories.put(name, StoryTools.result(engine.getBackstory(name)));
+            superpowers.put(name, StoryTools.result(engine.getSuperpower(name)));
+        }
+        Snapshot next = new Snapshot(backstories, superpowers,
+                StoryTools.result(ToolResult.of(StoryToolEngine.CHARACTER_NOT_FOUND)),
+                StoryTools.result(engine.listCharacters(PageRequest.first(PageRequest.DEFAULT_LIMIT))));
+
+        List<McpSchema.CallToolResult> results = new ArrayList<>(backstories.size() + superpowers.size() + 2);
+        results.addAll(backstories.values());
+        results.addAll(superpowers.values());
+        results.add(next.notFound());
+        results.add(next.firstPage());
+        json.publish(results);
+        snapshot = next;
+        log.debug("Rebuilt {} character responses in {} µs", results.size(), (System.nanoTime() - start) / 1000);
+    }
+}
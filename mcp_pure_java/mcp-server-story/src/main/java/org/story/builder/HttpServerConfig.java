@@ -0,0 +1,57 @@
+package org.story.builder;
+
+/**
+ * Jetty settings for {@link SseServer}, read from {@code story.http.*} system properties.
+ *
+ * <table>
+ *   <caption>System properties</caption>
+ *   <tr><td>{@code story.http.host}</td><td>listen address, default {@code 0.0.0.0}</td></tr>
+ *   <tr><td>{@code story.http.port}</td><td>listen port, default {@code 8282}, {@code 0} picks a free port</td></tr>
+ *   <tr><td>{@code story.http.virtualThreads}</td><td>run servlet calls on virtual threads, keeping
+ *       only selectors and acceptors on the platform thread pool; default {@code false}</td></tr>
+ *   <tr><td>{@code story.http.maxThreads}</td><td>maximum platform threads, default 200</td></tr>
+ *   <tr><td>{@code story.http.minThreads}</td><td>minimum platform threads, default 8</td></tr>
+ *   <tr><td>{@code story.http.acceptors}</td><td>acceptor threads, default {@code -1} (Jetty picks)</td></tr>
+ *   <tr><td>{@code story.http.selectors}</td><td>selector threads, default {@code -1} (Jetty picks)</td></tr>
+ *   <tr><td>{@code story.http.idleTimeoutMs}</td><td>connection idle timeout, default 30000</td></tr>
+ *   <tr><td>{@code story.http.sseKeepAliveMs}</td><td>interval of the keep-alive comment written to
+ *       every SSE stream, default 15000, {@code 0} for none; keep it below the idle timeout of
+ *       Jetty and of any proxy, or streams waiting for events are closed</td></tr>
+ *   <tr><td>{@code story.http.outputBufferSize}</td><td>response buffer size in bytes, default 32768</td></tr>
+ *   <tr><td>{@code story.http.sessions}</td><td>enable servlet sessions, default {@code false};
+ *       the MCP transport keeps its own sessions</td></tr>
+ * </table>
+ */
+public record HttpServerConfig(
+        String host,
+        int port,
+        boolean virtualThreads,
+        int maxThreads,
+        int minThreads,
+        int acceptors,
+        int selectors,
+        long idleTimeoutMs,
+        long sseKeepAliveMs,
+        int outputBufferSize,
+        boolean sessions) {
+
+    public static HttpServerConfig fromSystemProperties() {
+        return new HttpServerConfig(
+                System.getProperty("story.http.host", "0.0.0.0"),
+                Integer.getInteger("story.http.port", 8282),
+                Boolean.getBoolean("story.http.virtualThreads"),
+                Integer.getInteger("story.http.maxThreads", 200),
+                Integer.getInteger("story.http.minThreads", 8),
+                Integer.getInteger("story.http.acceptors", -1),
+                Integer.getInteger("story.http.selectors", -1),
+                Long.getLong("story.http.idleTimeoutMs", 30_000),
+                Long.getLong("story.http.sseKeepAliveMs", 15_000),
+                Integer.getInteger("story.http.outputBufferSize", 32 * 1024),
+                Boolean.getBoolean("story.http.sessions"));
+    }
+
+    public HttpServerConfig withAddress(String host, int port) {
+        return new HttpServerConfig(host, port, virtualThreads, maxThreads, minThreads, acceptors, selectors,
+                idleTimeoutMs, sseKeepAliveMs, outputBufferSize, sessions);
+    }
+}
@@ -0,0 +1,139 @@
+package org.story.builder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import io.modelcontextprotocol.spec.McpSchema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Tool results whose JSON was encoded ahead of time, one table per
+ * {@link CharacterResponses}. A mapper with {@link #module(Supplier)} writes a
+ * result published to the current table as its stored UTF-8 bytes instead of
+ * walking the object again; every other result is serialized as usual. Results
+ * are matched by identity, so only the exact instances handed to
+ * {@link #publish} are affected.
+ *
+ * <p>The mapper is built with the transport, before the tools create their
+ * responses and again whenever the registry or repository is replaced, so it
+ * is given a supplier of the table rather than the table itself.
+ */
+final class PreEncodedJson {
+
+    private static final ObjectMapper ENCODER = new ObjectMapper();
+
+    private volatile Map<McpSchema.CallToolResult, SerializableString> encoded = new IdentityHashMap<>();
+
+    /**
+     * Replaces the published results with {@code results}.
+     */
+    void publish(List<McpSchema.CallToolResult> results) {
+        Map<McpSchema.CallToolResult, SerializableString> next = new IdentityHashMap<>(results.size());
+        for (McpSchema.CallToolResult result : results) {
+            try {
+                next.put(result, new SerializedString(ENCODER.writeValueAsString(result)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        encoded = next;
+    }
+
+    /**
+     * @return the stored JSON of {@code result}, or {@code null} if it was not published
+     */
+    SerializableString get(McpSchema.CallToolResult result) {
+        return encoded.get(result);
+    }
+
+    /**
+     * Registers {@link #module(Supplier)} with the table of the tools' current
+     * {@link CharacterResponses}.
+     */
+    static ObjectMapper register(ObjectMapper mapper) {
+        return register(mapper, StoryTools::preEncodedJson);
+    }
+
+    static ObjectMapper register(ObjectMapper mapper, Supplier<PreEncodedJson> table) {
+        return mapper.registerModule(module(table));
+    }
+
+    /**
+     * @param table the table to look results up in, or a supplier of {@code null} while there is none
+     */
+    static Module module(Supplier<PreEncodedJson> table) {
+        SimpleModule module = new SimpleModule("story-pre-encoded-json");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                                                      JsonSerializer<?> serializer) {
+                if (description.getBeanClass() == McpSchema.CallToolResult.class) {
+                    @SuppressWarnings("unchecked")
+                    JsonSerializer<McpSchema.CallToolResult> fallback = (JsonSerializer<McpSchema.CallToolResult>) serializer;
+                    return new CallToolResultSerializer(table, fallback);
+                }
+                return serializer;
+            }
+        });
+        return module;
+    }
+
+    private static final class CallToolResultSerializer extends JsonSerializer<McpSchema.CallToolResult>
+            implements ResolvableSerializer, ContextualSerializer {
+        private final Supplier<PreEncodedJson> table;
+        private final JsonSerializer<McpSchema.CallToolResult> fallback;
+
+        CallToolResultSerializer(Supplier<PreEncodedJson> table, JsonSerializer<McpSchema.CallToolResult> fallback) {
+            this.table = table;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (fallback instanceof ResolvableSerializer resolvable) {
+                resolvable.resolve(provider);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+                throws JsonMappingException {
+            if (fallback instanceof ContextualSerializer contextual) {
+                return new CallToolResultSerializer(table,
+                        (JsonSerializer<McpSchema.CallToolResult>) contextual.createContextual(provider, property));
+            }
+            return this;
+        }
+
+        @Override
+        public void serialize(McpSchema.CallToolResult value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            PreEncodedJson current = table.get();
+            SerializableString json = current == null ? null : current.get(value);
+            if (json != null) {
+                generator.writeRawValue(json);
+            } else {
+                fallback.serialize(value, generator, provider);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.story.builder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A prompt text with {@code {{name}}} placeholders, split once into literal
+ * segments and argument names. Rendering appends the segments and argument
+ * values into a pooled buffer sized from the previous renders, so a call
+ * allocates little more than the resulting string.
+ */
+final class PromptTemplate {
+
+    /**
+     * Buffers that grew past this are dropped instead of returned to the pool.
+     */
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private static final Map<String, PromptTemplate> templates = new ConcurrentHashMap<>();
+
+    private final String[] literals;
+    private final String[] names;
+    private final Queue<StringBuilder> buffers = new ConcurrentLinkedQueue<>();
+
+    private PromptTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+    }
+
+    /**
+     * The template in a classpath resource, read and compiled on first use.
+     * Trailing whitespace, like the final newline of the file, is not part of it.
+     */
+    static PromptTemplate load(String resource) throws IOException {
+        try {
+            return templates.computeIfAbsent(resource, PromptTemplate::read);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static PromptTemplate read(String resource) {
+        try (InputStream inputStream = PromptTemplate.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new NoSuchFileException(resource);
+            }
+            return compile(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).stripTrailing());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static PromptTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int from = 0;
+        int open;
+        while ((open = text.indexOf("{{", from)) >= 0) {
+            int close = text.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at " + open + ": " + text);
+            }
+            literals.add(text.substring(from, open));
+            names.add(text.substring(open + 2, close).strip());
+            from = close + 2;
+        }
+        literals.add(text.substring(from));
+        return new PromptTemplate(literals.toArray(String[]::new), names.toArray(String[]::new));
+    }
+
+    List<String> argumentNames() {
+        return List.of(names);
+    }
+
+    /**
+     * Identifies the rendered text for these arguments: the value itself for a
+     * one-argument template, the list of values otherwise. {@code null} when an
+     * argument is missing, so it is not confused with the text {@code "null"},
+     * or longer than {@code maxChars}, so large inputs are not pinned in a cache.
+     */
+    Object key(Map<String, Object> arguments, int maxChars) {
+        if (names.length == 0) {
+            return "";
+        }
+        if (arguments == null) {
+            return null;
+        }
+        if (names.length == 1) {
+            return value(arguments, names[0], maxChars);
+        }
+        List<String> values = new ArrayList<>(names.length);
+        for (String name : names) {
+            String value = value(arguments, name, maxChars);
+            if (value == null) {
+                return null;
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    private static String value(Map<String, Object> arguments, String name, int maxChars) {
+        Object value = arguments.get(name);
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString();
+        return text.length() <= maxChars ? text : null;
+    }
+
+    String render(Map<String, Object> arguments) {
+        if (names.length == 0) {
+            return literals[0];
+        }
+        StringBuilder buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new StringBuilder(128);
+        }
+        try {
+            for (int i = 0; i < names.length; i++) {
+                buffer.append(literals[i]).append(arguments.get(names[i]));
+            }
+            return buffer.append(literals[names.length]).toString();
+
+        } finally {
+            if (buffer.capacity() <= MAX_POOLED_CAPACITY) {
+                buffer.setLength(0);
+                buffers.offer(buffer);
+            }
+        }
+    }
+}
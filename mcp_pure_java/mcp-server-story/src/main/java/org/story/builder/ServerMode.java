@@ -0,0 +1,25 @@
+package org.story.builder;
+
+import java.util.Locale;
+
+/**
+ * Which MCP server API the story servers are built on, chosen with
+ * {@code -Dstory.server.mode=sync|async} (default {@code sync}).
+ *
+ * <p>{@link #SYNC} builds a {@code McpSyncServer}, whose blocking handlers share
+ * Reactor's bounded elastic pool. {@link #ASYNC} builds a {@code McpAsyncServer}
+ * and runs each handler on its own virtual thread, see {@link VirtualThreadSpecifications}.
+ */
+enum ServerMode {
+    SYNC,
+    ASYNC;
+
+    static ServerMode fromSystemProperties() {
+        return valueOf(System.getProperty("story.server.mode", "sync").toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,85 +1,209 @@
 package org.story.builder;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpAsyncServer;
 import io.modelcontextprotocol.server.McpServer;
 import io.modelcontextprotocol.server.McpSyncServer;
 import io.modelcontextprotocol.server.transport.HttpServletSseServerTransportProvider;
 import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import jakarta.servlet.DispatcherType;
+import org.eclipse.jetty.ee10.servlet.FilterHolder;
 import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
 import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.story.builder.cluster.ClusterNode;
+import org.story.builder.cluster.ClusterSseServerTransportProvider;
+import org.story.builder.metrics.MetricsServlet;
+import org.story.builder.metrics.SseSessionFilter;
+import org.story.builder.transport.AccessLogTransportProvider;
+import org.story.builder.transport.AdmissionConfig;
+import org.story.builder.transport.AdmissionControlTransportProvider;
+import org.story.builder.transport.ResourceSubscriptions;
+import org.story.builder.transport.SseDisconnectFilter;
+import org.story.builder.transport.SseKeepAliveFilter;
+import org.story.builder.transport.SubscribingServerTransportProvider;
+import org.story.builder.transport.ToolCallScheduler;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
+import java.util.EnumSet;
+import java.util.concurrent.Executors;
 
 public class SseServer {
 
     private static final Logger logger = LoggerFactory.getLogger(SseServer.class);
     private static final String SERVER_NAME = "mcp-server-story-builder";
     private static final String SERVER_VERSION = "0.8.1";
-    private static final ObjectMapper JSON = new ObjectMapper();
+    static final ObjectMapper JSON = PreEncodedJson.register(new ObjectMapper());
     private static final String MSG_ENDPOINT = "/message";
     private static final String SSE_ENDPOINT = "/sse";
-    private McpSyncServer server;
+    private static final String METRICS_ENDPOINT = "/metrics";
+    private final HttpServerConfig config;
+    private final ClusterNode cluster;
+    private McpAsyncServer server;
+    private StoryResources resources;
+    private Server httpserver;
+
+    public SseServer() {
+        this(HttpServerConfig.fromSystemProperties(), ClusterNode.fromSystemProperties());
+    }
+
+    /**
+     * @param config Jetty settings; port {@code 0} picks a free port, see {@link #getPort()}
+     */
+    public SseServer(HttpServerConfig config) {
+        this(config, null);
+    }
 
-    private void initialize() throws IOException {
+    /**
+     * @param cluster this server's node in a cluster, or {@code null} to run on its own
+     */
+    public SseServer(HttpServerConfig config, ClusterNode cluster) {
+        this.config = config;
+        this.cluster = cluster;
+    }
+
+    /**
+     * Builds the MCP server and starts Jetty without blocking the calling thread.
+     */
+    public void start() throws IOException {
         McpSchema.ServerCapabilities serverCapabilities = McpSchema.ServerCapabilities.builder()
             .tools(true)
             .prompts(true)
             .resources(true, true)
             .build();
 
-        HttpServletSseServerTransportProvider transport = new HttpServletSseServerTransportProvider(
-            JSON, MSG_ENDPOINT, SSE_ENDPOINT
-        );
-        server = McpServer.sync(transport)
-            .serverInfo(SERVER_NAME, SERVER_VERSION)
-            .capabilities(serverCapabilities)
-            .build();
-
-        StoryPrompts.addToServer(server);
-        StoryTools.addToServer(server);
+        HttpServletSseServerTransportProvider transport = cluster == null
+            ? new HttpServletSseServerTransportProvider(JSON, MSG_ENDPOINT, SSE_ENDPOINT)
+            : new ClusterSseServerTransportProvider(JSON, MSG_ENDPOINT, SSE_ENDPOINT, cluster);
+        ResourceSubscriptions subscriptions = new ResourceSubscriptions();
+        resources = StoryResources.fromSystemProperties(subscriptions);
+        McpServerTransportProvider provider = new SubscribingServerTransportProvider(transport, subscriptions);
+        AdmissionConfig admission = AdmissionConfig.fromSystemProperties();
+        AdmissionControlTransportProvider admissionControl = null;
+        if (admission.enabled()) {
+            admissionControl = new AdmissionControlTransportProvider(provider, new ToolCallScheduler(admission));
+            provider = admissionControl;
+        }
+        provider = AccessLogTransportProvider.fromSystemProperties(provider);
+        if (ServerMode.fromSystemProperties() == ServerMode.ASYNC) {
+            server = McpServer.async(provider)
+                .serverInfo(SERVER_NAME, SERVER_VERSION)
+                .capabilities(serverCapabilities)
+                .resources(resources.asyncSpecifications())
+                .build();
+
+            StoryPrompts.addToServer(server);
+            StoryTools.addToServer(server);
+        } else {
+            McpSyncServer syncServer = McpServer.sync(provider)
+                .serverInfo(SERVER_NAME, SERVER_VERSION)
+                .capabilities(serverCapabilities)
+                .resources(resources.specifications())
+                .build();
+
+            StoryPrompts.addToServer(syncServer);
+            StoryTools.addToServer(syncServer);
+            server = syncServer.getAsyncServer();
+        }
+        resources.watch(server);
+        logger.info("MCP server running in {} mode", ServerMode.fromSystemProperties());
+        if (cluster != null) {
+            logger.info("Cluster node {}", cluster.id());
+        }
 
-        startHttpServer(transport);
+        startHttpServer(transport, admissionControl);
     }
 
-    private void startHttpServer(HttpServletSseServerTransportProvider transport) {
-        ServletContextHandler servletContextHandler = new ServletContextHandler(ServletContextHandler.SESSIONS);
+    private void startHttpServer(HttpServletSseServerTransportProvider transport,
+                                 AdmissionControlTransportProvider admissionControl) throws IOException {
+        int options = config.sessions() ? ServletContextHandler.SESSIONS : ServletContextHandler.NO_SESSIONS;
+        ServletContextHandler servletContextHandler = new ServletContextHandler(options);
         servletContextHandler.setContextPath("/");
 
         ServletHolder servletHolder = new ServletHolder(transport);
+        servletHolder.setAsyncSupported(true);
         servletContextHandler.addServlet(servletHolder, "/*");
+        servletContextHandler.addServlet(new ServletHolder(new MetricsServlet()), METRICS_ENDPOINT);
+        servletContextHandler.addFilter(new FilterHolder(new SseSessionFilter()), SSE_ENDPOINT,
+                EnumSet.of(DispatcherType.REQUEST));
+        if (config.sseKeepAliveMs() > 0) {
+            servletContextHandler.addFilter(new FilterHolder(new SseKeepAliveFilter(config.sseKeepAliveMs())),
+                    SSE_ENDPOINT, EnumSet.of(DispatcherType.REQUEST));
+        }
+        if (admissionControl != null) {
+            servletContextHandler.addFilter(new FilterHolder(new SseDisconnectFilter(admissionControl::sessionClosed)),
+                    SSE_ENDPOINT, EnumSet.of(DispatcherType.REQUEST));
+        }
+
+        httpserver = new Server(createThreadPool());
 
-        // Start server on 0.0.0.0:8282
-        Server httpserver = new Server(new InetSocketAddress("0.0.0.0", 8282));
+        HttpConfiguration httpConfiguration = new HttpConfiguration();
+        httpConfiguration.setOutputBufferSize(config.outputBufferSize());
+        ServerConnector connector = new ServerConnector(httpserver, config.acceptors(), config.selectors(),
+                new HttpConnectionFactory(httpConfiguration));
+        connector.setHost(config.host());
+        connector.setPort(config.port());
+        connector.setIdleTimeout(config.idleTimeoutMs());
+        httpserver.addConnector(connector);
         httpserver.setHandler(servletContextHandler);
 
         try {
             httpserver.start();
-            logger.info("Jetty HTTP server started on http://0.0.0.0:8282");
-
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                try {
-                    logger.info("Shutting down HTTP server");
-                    httpserver.stop();
-                    server.close();
-                } catch (Exception e) {
-                    logger.error("Error stopping HTTP server", e);
-                }
-            }));
-
-            httpserver.join();
+            logger.info("Jetty HTTP server started on http://{}:{} ({} threads)", config.host(), getPort(),
+                    config.virtualThreads() ? "virtual" : "platform");
         } catch (Exception e) {
-            logger.error("Error starting HTTP server on http://0.0.0.0:8282", e);
+            logger.error("Error starting HTTP server on http://{}:{}", config.host(), config.port(), e);
             server.close();
+            throw new IOException("Failed to start HTTP server", e);
+        }
+    }
+
+    private QueuedThreadPool createThreadPool() {
+        QueuedThreadPool threadPool = new QueuedThreadPool(config.maxThreads(), config.minThreads());
+        threadPool.setName("sse");
+        if (config.virtualThreads()) {
+            // Selectors and acceptors stay on platform threads; servlet calls that may
+            // block run on virtual threads.
+            threadPool.setVirtualThreadsExecutor(Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("sse-vt-", 0).factory()));
         }
+        return threadPool;
     }
 
-    public static void main(String[] args) throws IOException {
+    /**
+     * @return the port Jetty is listening on
+     */
+    public int getPort() {
+        return ((ServerConnector) httpserver.getConnectors()[0]).getLocalPort();
+    }
+
+    public void stop() throws Exception {
+        logger.info("Shutting down HTTP server");
+        httpserver.stop();
+        resources.close();
+        server.close();
+    }
+
+    public static void main(String[] args) throws Exception {
         SseServer mcpSseServer = new SseServer();
-        mcpSseServer.initialize();
+        mcpSseServer.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                mcpSseServer.stop();
+            } catch (Exception e) {
+                logger.error("Error stopping HTTP server", e);
+            }
+        }));
+
+        mcpSseServer.httpserver.join();
     }
 
 }
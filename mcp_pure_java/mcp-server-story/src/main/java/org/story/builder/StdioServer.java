@@ -1,41 +1,89 @@
 package org.story.builder;
 
+import io.modelcontextprotocol.server.McpAsyncServer;
 import io.modelcontextprotocol.server.McpServer;
 import io.modelcontextprotocol.server.McpSyncServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.modelcontextprotocol.server.transport.StdioServerTransportProvider;
 import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.story.builder.transport.AccessLogTransportProvider;
+import org.story.builder.transport.NioStdioServerTransportProvider;
+import org.story.builder.transport.ResourceSubscriptions;
+import org.story.builder.transport.SubscribingServerTransportProvider;
 
 import java.io.IOException;
 
+/**
+ * MCP server on stdin/stdout. {@code story.stdio.transport=nio} swaps the SDK's
+ * stdio transport for {@link NioStdioServerTransportProvider}.
+ */
 public class StdioServer {
 
+    private static final Logger logger = LoggerFactory.getLogger(StdioServer.class);
+
     private static final String SERVER_NAME = "mcp-server-story-builder";
 
     private static final String SERVER_VERSION = "0.8.1";
 
     private McpSyncServer server;
 
-    private void initialize() {
+    private McpAsyncServer asyncServer;
+
+    private StoryResources resources;
+
+    private void initialize() throws IOException {
         McpSchema.ServerCapabilities serverCapabilities = McpSchema.ServerCapabilities.builder()
             .tools(true)
             .prompts(true)
             .resources(true, true)
             .build();
 
-        server = McpServer.sync(new StdioServerTransportProvider())
-            .serverInfo(SERVER_NAME, SERVER_VERSION)
-            .capabilities(serverCapabilities)
-            .build();
+        ResourceSubscriptions subscriptions = new ResourceSubscriptions();
+        resources = StoryResources.fromSystemProperties(subscriptions);
+        McpServerTransportProvider transport = AccessLogTransportProvider.fromSystemProperties(
+            new SubscribingServerTransportProvider(createTransport(), subscriptions));
+        ServerMode mode = ServerMode.fromSystemProperties();
+        if (mode == ServerMode.ASYNC) {
+            asyncServer = McpServer.async(transport)
+                .serverInfo(SERVER_NAME, SERVER_VERSION)
+                .capabilities(serverCapabilities)
+                .resources(resources.asyncSpecifications())
+                .build();
+            resources.watch(asyncServer);
+        } else {
+            server = McpServer.sync(transport)
+                .serverInfo(SERVER_NAME, SERVER_VERSION)
+                .capabilities(serverCapabilities)
+                .resources(resources.specifications())
+                .build();
+            resources.watch(server.getAsyncServer());
+        }
+
+        logger.info("{} {} initialized in STDIO {} mode", SERVER_NAME, SERVER_VERSION, mode);
+    }
 
-        System.err.println(SERVER_NAME + " " + SERVER_VERSION + " initialized in STDIO mode");
+    private static McpServerTransportProvider createTransport() {
+        String transport = System.getProperty("story.stdio.transport", "stdio");
+        return switch (transport) {
+            case "stdio" -> new StdioServerTransportProvider(PreEncodedJson.register(new ObjectMapper()));
+            case "nio" -> new NioStdioServerTransportProvider(PreEncodedJson.register(new ObjectMapper()));
+            default -> throw new IllegalArgumentException("Unknown story.stdio.transport: " + transport);
+        };
     }
 
     public static void main(String[] args) throws IOException {
         StdioServer mcpStdioServer = new StdioServer();
         mcpStdioServer.initialize();
-        //McpResources.addAllTo(mcpStdioServer.server);
-        StoryPrompts.addToServer(mcpStdioServer.server);
-        StoryTools.addToServer(mcpStdioServer.server);
+        if (mcpStdioServer.asyncServer != null) {
+            StoryPrompts.addToServer(mcpStdioServer.asyncServer);
+            StoryTools.addToServer(mcpStdioServer.asyncServer);
+        } else {
+            StoryPrompts.addToServer(mcpStdioServer.server);
+            StoryTools.addToServer(mcpStdioServer.server);
+        }
     }
 
 }
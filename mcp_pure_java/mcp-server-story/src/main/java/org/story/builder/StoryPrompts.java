@@ -1,30 +1,39 @@
 package org.story.builder;
 
+import io.modelcontextprotocol.server.McpAsyncServer;
 import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.server.McpSyncServer;
 import io.modelcontextprotocol.spec.McpSchema;
+import org.story.builder.metrics.Metrics;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.function.Supplier;
+
+/**
+ * The story prompts. Their texts are {@link PromptTemplate}s under
+ * {@code prompts/} on the classpath, and each prompt keeps the results it
+ * rendered for the most recent arguments, so a repeated {@code prompts/get}
+ * returns the same immutable result instead of building it again.
+ */
 public final class StoryPrompts {
 
+    /**
+     * Results cached per prompt; the least recently used are dropped beyond this.
+     */
+    private static final int MAX_CACHED_RESULTS = Integer.getInteger("story.prompts.cacheSize", 256);
+
+    /**
+     * Arguments longer than this are rendered on every call rather than cached.
+     */
+    private static final int MAX_CACHED_ARGUMENT_CHARS = 256;
 
     public static McpServerFeatures.SyncPromptSpecification getCharacters() throws IOException {
         McpSchema.Prompt prompt = new McpSchema
                 .Prompt("get_characters", "Get all characters.", List.of());
-        return new McpServerFeatures.SyncPromptSpecification(
-                prompt,
-                (exchange, request) -> {
-                    Map<String, Object> arguments = request.arguments();
-                    McpSchema.TextContent content = new McpSchema.TextContent(
-                            String.format("What are the characters of this story")
-                    );
-                    McpSchema.PromptMessage message = new McpSchema.PromptMessage(McpSchema.Role.USER, content);
-                    return new McpSchema.GetPromptResult(prompt.description(), List.of(message));
-                }
-        );
+        return templated(prompt, "prompts/get_characters.txt");
     }
 
     public static McpServerFeatures.SyncPromptSpecification getBackstory() throws IOException {
@@ -32,18 +41,7 @@ public final class StoryPrompts {
                 .PromptArgument("character", "The back story character", true);
         McpSchema.Prompt prompt = new McpSchema
                 .Prompt("get_backstory", "Get back story character.", List.of(character));
-        return new McpServerFeatures.SyncPromptSpecification(
-                prompt,
-                (exchange, request) -> {
-                    Map<String, Object> arguments = request.arguments();
-                    McpSchema.TextContent content = new McpSchema.TextContent(
-                            String.format("What is the back story character of this story: %s", arguments.get("character"))
-                    );
-                    McpSchema.PromptMessage message = new McpSchema.PromptMessage(McpSchema.Role.USER, content);
-                    return new McpSchema.GetPromptResult(prompt.description(), List.of(message));
-                }
-        );
-
+        return templated(prompt, "prompts/get_backstory.txt");
     }
 
     public static McpServerFeatures.SyncPromptSpecification getSuperpower() throws IOException {
@@ -51,20 +49,13 @@ public final class StoryPrompts {
                 .PromptArgument("character", "The super power character", true);
         McpSchema.Prompt prompt = new McpSchema
                 .Prompt("get_superpower", "Get super power.", List.of(character));
-        return new McpServerFeatures.SyncPromptSpecification(
-                prompt,
-                (exchange, request) -> {
-                    Map<String, Object> arguments = request.arguments();
-                    McpSchema.TextContent content = new McpSchema.TextContent(
-                            String.format("What is the super power of this story: %s", arguments.get("character"))
-                    );
-                    McpSchema.PromptMessage message = new McpSchema.PromptMessage(McpSchema.Role.USER, content);
-                    return new McpSchema.GetPromptResult(prompt.description(), List.of(message));
-                }
-        );
-
+        return templated(prompt, "prompts/get_superpower.txt");
     }
 
+    /**
+     * The instruction names the title; the story content follows as a message of
+     * its own, passed through as is rather than copied into the instruction.
+     */
     public static McpServerFeatures.SyncPromptSpecification saveStory() throws IOException {
         McpSchema.PromptArgument title = new McpSchema
                 .PromptArgument("title", "The title of story", true);
@@ -76,21 +67,19 @@ public final class StoryPrompts {
         McpSchema.Prompt prompt = new McpSchema
                 .Prompt("save_story", "Save story to disck.", args);
 
+        PromptTemplate template = PromptTemplate.load("prompts/save_story.txt");
+        ResultCache<McpSchema.PromptMessage> instructions = new ResultCache<>(MAX_CACHED_RESULTS);
         return new McpServerFeatures.SyncPromptSpecification(
                 prompt,
                 (exchange, request) -> {
                     Map<String, Object> arguments = request.arguments();
-
-                    StringBuilder promptMessage = new StringBuilder("Please save the story to disk: ");
-                    promptMessage.append(arguments.get("title"));
-                    promptMessage.append(arguments.get("content"));
-
-                    McpSchema.TextContent content = new McpSchema.TextContent(promptMessage.toString());
-                    McpSchema.PromptMessage message = new McpSchema.PromptMessage(McpSchema.Role.USER, content);
-                    return new McpSchema.GetPromptResult(prompt.description(), List.of(message));
+                    McpSchema.PromptMessage instruction = instructions.get(
+                            template.key(arguments, MAX_CACHED_ARGUMENT_CHARS),
+                            () -> message(template.render(arguments)));
+                    McpSchema.PromptMessage content = message(String.valueOf(arguments.get("content")));
+                    return new McpSchema.GetPromptResult(prompt.description(), List.of(instruction, content));
                 }
         );
-
     }
 
     public static McpServerFeatures.SyncPromptSpecification getStory() throws IOException {
@@ -99,25 +88,76 @@ public final class StoryPrompts {
 
         McpSchema.Prompt prompt = new McpSchema
                 .Prompt("get_story", "Read complete story.", List.of(filename));
+        return templated(prompt, "prompts/get_story.txt");
+    }
 
+    /**
+     * A prompt answered with one user message rendered from the template.
+     */
+    private static McpServerFeatures.SyncPromptSpecification templated(McpSchema.Prompt prompt, String resource)
+            throws IOException {
+        PromptTemplate template = PromptTemplate.load(resource);
+        ResultCache<McpSchema.GetPromptResult> results = new ResultCache<>(MAX_CACHED_RESULTS);
         return new McpServerFeatures.SyncPromptSpecification(
                 prompt,
-                (exchange, request) -> {
-                    Map<String, Object> arguments = request.arguments();
-                    McpSchema.TextContent content = new McpSchema.TextContent(
-                            String.format("What is the content of this story: %s", arguments.get("filename"))
-                    );
-                    McpSchema.PromptMessage message = new McpSchema.PromptMessage(McpSchema.Role.USER, content);
-                    return new McpSchema.GetPromptResult(prompt.description(), List.of(message));
-                }
+                (exchange, request) -> results.get(
+                        template.key(request.arguments(), MAX_CACHED_ARGUMENT_CHARS),
+                        () -> new McpSchema.GetPromptResult(prompt.description(),
+                                List.of(message(template.render(request.arguments())))))
         );
     }
 
+    private static McpSchema.PromptMessage message(String text) {
+        return new McpSchema.PromptMessage(McpSchema.Role.USER, new McpSchema.TextContent(text));
+    }
+
+    /**
+     * LRU map from a {@link PromptTemplate#key} to what was rendered for it. A
+     * {@code null} key is never cached.
+     */
+    private static final class ResultCache<V> {
+        private final LinkedHashMap<Object, V> results;
+
+        ResultCache(int maxSize) {
+            this.results = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, V> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        V get(Object key, Supplier<V> render) {
+            if (key == null) {
+                return render.get();
+            }
+            synchronized (results) {
+                V result = results.get(key);
+                if (result != null) {
+                    return result;
+                }
+            }
+            // Rendered outside the lock; two racing callers may both render, the last one is kept.
+            V result = render.get();
+            synchronized (results) {
+                results.put(key, result);
+            }
+            return result;
+        }
+    }
+
     public static void addToServer(McpSyncServer server) throws IOException {
-        server.addPrompt(getCharacters());
-        server.addPrompt(getBackstory());
-        server.addPrompt(getSuperpower());
-        server.addPrompt(saveStory());
-        server.addPrompt(getStory());
+        server.addPrompt(Metrics.instrument(getCharacters()));
+        server.addPrompt(Metrics.instrument(getBackstory()));
+        server.addPrompt(Metrics.instrument(getSuperpower()));
+        server.addPrompt(Metrics.instrument(saveStory()));
+        server.addPrompt(Metrics.instrument(getStory()));
+    }
+
+    public static void addToServer(McpAsyncServer server) throws IOException {
+        for (McpServerFeatures.SyncPromptSpecification prompt : List.of(
+                getCharacters(), getBackstory(), getSuperpower(), saveStory(), getStory())) {
+            server.addPrompt(VirtualThreadSpecifications.toAsync(Metrics.instrument(prompt))).block();
+        }
     }
 }
@@ -0,0 +1,245 @@
+package org.story.builder;
+
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.story.builder.store.CachingStoryRepository;
+import org.story.builder.store.StoryRepository;
+import org.story.builder.transport.ResourceSubscriptions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Saved stories as MCP resources, {@code story://<filename>}. The stories present
+ * at startup are registered with the server when it is built; afterwards every
+ * story saved through the tools is registered (the server then sends
+ * {@code resources/list_changed}) and the sessions subscribed to it are sent
+ * {@code resources/updated}, whatever the store, so clients no longer poll
+ * {@code list_stories} and {@code get_story}.
+ *
+ * <p>A {@link WatchService} on the story directory covers files added, changed
+ * or deleted outside the server, for the file-per-story stores: the plain, gzip
+ * and journaled file stores. Events for a story the server saved within the last
+ * second are taken to be that save and skipped. Whether a story exists is always
+ * asked of the repository, never of the directory, and a story changed outside
+ * the server is dropped from the read cache before its subscribers are told.
+ */
+public final class StoryResources implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(StoryResources.class);
+
+    static final String URI_PREFIX = "story://";
+
+    private static final String MIME_TYPE = "text/markdown";
+
+    private static final long OWN_SAVE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final StoryRepository stories;
+    private final Path dir;
+    private final ResourceSubscriptions subscriptions;
+    private final Set<String> registered = ConcurrentHashMap.newKeySet();
+    /** When the server last saved each story, to tell its own saves from outside changes. */
+    private final Map<String, Long> savedAt = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Consumer<String> savedListener;
+
+    public StoryResources(StoryRepository stories, Path dir, ResourceSubscriptions subscriptions) {
+        this.stories = stories;
+        this.dir = dir;
+        this.subscriptions = subscriptions;
+    }
+
+    /**
+     * Resources over the repository behind {@link StoryTools}, in {@code story.store.dir}.
+     */
+    public static StoryResources fromSystemProperties(ResourceSubscriptions subscriptions) {
+        return new StoryResources(StoryTools.stories(), Paths.get(System.getProperty("story.store.dir", ".")), subscriptions);
+    }
+
+    /**
+     * One resource per story saved so far, for the server builder.
+     */
+    public List<McpServerFeatures.SyncResourceSpecification> specifications() throws IOException {
+        List<String> filenames = stories.list();
+        List<McpServerFeatures.SyncResourceSpecification> specifications = new ArrayList<>(filenames.size());
+        for (String filename : filenames) {
+            registered.add(filename);
+            specifications.add(specification(filename));
+        }
+        return specifications;
+    }
+
+    public List<McpServerFeatures.AsyncResourceSpecification> asyncSpecifications() throws IOException {
+        return specifications().stream().map(VirtualThreadSpecifications::toAsync).toList();
+    }
+
+    private McpServerFeatures.SyncResourceSpecification specification(String filename) {
+        String uri = URI_PREFIX + filename;
+        McpSchema.Resource resource = new McpSchema.Resource(uri, filename, null, MIME_TYPE, null);
+        return new McpServerFeatures.SyncResourceSpecification(resource, (exchange, request) -> {
+            try {
+                return new McpSchema.ReadResourceResult(
+                        List.of(new McpSchema.TextResourceContents(uri, MIME_TYPE, stories.get(filename))));
+            } catch (IOException e) {
+                throw new McpError("Failed to read " + uri + ": " + e);
+            }
+        });
+    }
+
+    /**
+     * Registers stories saved through {@link StoryTools} and starts a daemon thread
+     * that keeps the server's resources in step with changes made outside it,
+     * notifying subscribers of changed stories.
+     */
+    public synchronized void watch(McpAsyncServer server) throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        savedListener = filename -> saved(server, filename);
+        StoryTools.addSavedListener(savedListener);
+        watchService = dir.getFileSystem().newWatchService();
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        WatchService service = watchService;
+        Thread.ofPlatform().daemon().name("story-resources-watch").start(() -> watchLoop(service, server));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (savedListener != null) {
+            StoryTools.removeSavedListener(savedListener);
+            savedListener = null;
+        }
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    private void watchLoop(WatchService service, McpAsyncServer server) {
+        try {
+            while (true) {
+                Set<String> changed = new HashSet<>();
+                boolean overflow = collect(service.take(), changed);
+                // Saves write in several steps (temp file, move, gzip members); let them finish.
+                TimeUnit.MILLISECONDS.sleep(100);
+                for (WatchKey key; (key = service.poll()) != null; ) {
+                    overflow |= collect(key, changed);
+                }
+                long now = System.nanoTime();
+                savedAt.values().removeIf(at -> now - at > OWN_SAVE_NANOS);
+                changed.removeAll(savedAt.keySet());
+                Set<String> present = null;
+                if (overflow) {
+                    try {
+                        present = new HashSet<>(stories.list());
+                        changed.addAll(registered);
+                        changed.addAll(present);
+                    } catch (IOException e) {
+                        // Refresh what the events named; never unregister stories on a failed listing.
+                        log.error("Failed to list stories in {}", dir, e);
+                    }
+                }
+                for (String filename : changed) {
+                    try {
+                        refresh(server, filename, present);
+                    } catch (IOException | RuntimeException e) {
+                        log.error("Failed to update resource {}{}", URI_PREFIX, filename, e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Adds the story names of the key's events to {@code changed}; {@code true}
+     * if events were lost and the directory has to be rescanned.
+     */
+    private static boolean collect(WatchKey key, Set<String> changed) {
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else if (event.context() instanceof Path path) {
+                String name = path.toString();
+                if (name.endsWith(".md.gz")) {
+                    name = name.substring(0, name.length() - ".gz".length());
+                }
+                if (name.endsWith(".md")) {
+                    changed.add(name);
+                }
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    /**
+     * A story saved through the tools: the repository has it, and has already
+     * dropped it from any read cache.
+     */
+    private void saved(McpAsyncServer server, String filename) {
+        savedAt.put(filename, System.nanoTime());
+        String uri = URI_PREFIX + filename;
+        try {
+            if (registered.add(filename)) {
+                server.addResource(VirtualThreadSpecifications.toAsync(specification(filename))).block();
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to add resource {}", uri, e);
+        }
+        subscriptions.notifyUpdated(uri);
+    }
+
+    /**
+     * @param present every story in the repository after an overflow, or {@code null}
+     *                to ask the repository about this one
+     */
+    private void refresh(McpAsyncServer server, String filename, Set<String> present) throws IOException {
+        String uri = URI_PREFIX + filename;
+        if (stories instanceof CachingStoryRepository cache) {
+            cache.invalidate(filename);
+        }
+        boolean exists = present != null ? present.contains(filename) : exists(filename);
+        if (exists && registered.add(filename)) {
+            server.addResource(VirtualThreadSpecifications.toAsync(specification(filename))).block();
+        } else if (!exists && registered.remove(filename)) {
+            try {
+                server.removeResource(uri).block();
+            } catch (McpError e) {
+                log.debug("Resource {} was already removed", uri);
+            }
+        }
+        subscriptions.notifyUpdated(uri);
+    }
+
+    private boolean exists(String filename) throws IOException {
+        try {
+            stories.read(filename, 0, 1);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+}
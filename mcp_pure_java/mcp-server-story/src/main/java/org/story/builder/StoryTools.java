@@ -1,205 +1,345 @@
 package org.story.builder;
 
+import io.modelcontextprotocol.server.McpAsyncServer;
 import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.server.McpSyncServer;
 import io.modelcontextprotocol.spec.McpSchema;
+import org.story.builder.characters.CharacterRegistry;
+import org.story.builder.metrics.Metrics;
+import org.story.builder.paging.PageRequest;
+import org.story.builder.search.StoryIndex;
+import org.story.builder.store.CachingStoryRepository;
+import org.story.builder.store.StoryRepository;
+import org.story.builder.tools.StoryInput;
+import org.story.builder.tools.StoryToolEngine;
+import org.story.builder.tools.ToolResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.file.Files;
-import java.nio.file.NoSuchFileException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.UncheckedIOException;
 import java.util.*;
-
-import static java.util.stream.Collectors.joining;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class StoryTools {
     private static final Logger log = LoggerFactory.getLogger(StoryTools.class);
 
-    private static final Map<String, Character> characters = new HashMap<>();
-
-    static{
-        characters.put("Jack", new Character(
-                "Jack is a former spy who now lives as a covert hero.",
-                "Invisibility and telepathy"
-        ));
-        characters.put("Ram", new Character(
-                "Ram is an ancient warrior reborn in the modern world to fight for peace.",
-                "Invincible body and immense strength"
-        ));
-        characters.put("Robert", new Character(
-                "Robert is a scientist who became part machine after a lab accident.",
-                "Power fused with advanced technology"
-        ));
-    }
+    /**
+     * Largest slice of a story {@code get_story} returns in one response; larger
+     * stories are paged with the {@code offset} argument so that a request never
+     * holds more than this much story content in memory.
+     */
+    private static final int MAX_CHUNK_BYTES = Integer.getInteger("story.chunk.maxBytes", 1024 * 1024);
+
+    private static volatile StoryRepository stories;
+
+    private static volatile CharacterRegistry characters;
+
+    private static volatile StoryIndex searchIndex;
+
+    private static volatile StoryToolEngine engine;
+
+    private static volatile CharacterResponses characterResponses;
+
+    private static final List<Consumer<String>> savedListeners = new CopyOnWriteArrayList<>();
+
     public static McpServerFeatures.SyncToolSpecification getCharacters() throws IOException {
-        final String schema = readResourceAsString("empty-input-json-schema.json");
+        final McpSchema.JsonSchema schema = ToolSchemas.get("page-input-json-schema.json");
         McpSchema.Tool tool = new McpSchema
-                .Tool("list_characters", "list all characters.", schema);
+                .Tool("list_characters", "list characters, a page at a time.", schema);
         return new McpServerFeatures.SyncToolSpecification(
                 tool,
-                (exchange, arguments) -> {
-                    boolean isError = false;
-                    String result;
-
-                    if (characters.isEmpty()) {
-                        result = "No characters" ;
-                    } else {
-                        result = String.join(System.lineSeparator(), characters.keySet());
-                    }
+                (exchange, arguments) -> arguments == null || arguments.isEmpty()
+                        ? characterResponses().firstPage()
+                        : result(pageRequest(arguments, engine()::listCharacters))
+        );
+    }
 
-                    McpSchema.Content content = new McpSchema.TextContent(result);
-                    return new McpSchema.CallToolResult(List.of(content), isError);
-                }
+    public static McpServerFeatures.SyncToolSpecification listStories() throws IOException {
+        final McpSchema.JsonSchema schema = ToolSchemas.get("page-input-json-schema.json");
+        McpSchema.Tool tool = new McpSchema
+                .Tool("list_stories", "list saved story files, a page at a time.", schema);
+        return new McpServerFeatures.SyncToolSpecification(
+                tool,
+                (exchange, arguments) -> result(pageRequest(arguments, engine()::listStories))
         );
     }
 
+    private static ToolResult pageRequest(Map<String, Object> arguments, Function<PageRequest, ToolResult> tool) {
+        try {
+            return tool.apply(PageRequest.fromArguments(arguments));
+        } catch (IllegalArgumentException e) {
+            return ToolResult.error("Invalid page arguments: " + e.getMessage());
+        }
+    }
+
     public static McpServerFeatures.SyncToolSpecification getBackstory() throws IOException {
-        final String schema = readResourceAsString("character-input-json-schema.json");
+        final McpSchema.JsonSchema schema = ToolSchemas.get("character-input-json-schema.json");
         McpSchema.Tool tool = new McpSchema
                 .Tool("get_backstory", "get back story.", schema);
         return new McpServerFeatures.SyncToolSpecification(
                 tool,
-                (exchange, arguments) -> {
-                    final String character = arguments.get("character").toString();
-
-                    boolean isError = false;
-                    String result = Optional.ofNullable(characters.get(character))
-                            .map(Character::backstory)
-                            .orElse("Character not found.");
-                    McpSchema.Content content = new McpSchema.TextContent(result);
-                    return new McpSchema.CallToolResult(List.of(content), isError);
-                }
+                (exchange, arguments) -> characterResponses().backstory(arguments.get("character").toString())
         );
     }
 
     public static McpServerFeatures.SyncToolSpecification getSuperpower() throws IOException {
-        final String schema = readResourceAsString("character-input-json-schema.json");
+        final McpSchema.JsonSchema schema = ToolSchemas.get("character-input-json-schema.json");
         McpSchema.Tool tool = new McpSchema
                 .Tool("get_superpower", "get super power.", schema);
         return new McpServerFeatures.SyncToolSpecification(
                 tool,
-                (exchange, arguments) -> {
-                    final String character = arguments.get("character").toString();
-                    boolean isError = false;
-                    String result = Optional.ofNullable(characters.get(character))
-                            .map(Character::superpower)
-                            .orElse("Character not found.");
-                    McpSchema.Content content = new McpSchema.TextContent(result);
-                    return new McpSchema.CallToolResult(List.of(content), isError);
-                }
+                (exchange, arguments) -> characterResponses().superpower(arguments.get("character").toString())
         );
     }
 
     public static McpServerFeatures.SyncToolSpecification saveStory() throws IOException {
-        final String schema = readResourceAsString("title-content-input-json-schema.json");
+        final McpSchema.JsonSchema schema = ToolSchemas.get("title-content-input-json-schema.json");
         McpSchema.Tool tool = new McpSchema
                 .Tool("save_story", "save story.", schema);
 
         return new McpServerFeatures.SyncToolSpecification(
                 tool,
-                (exchange, arguments) -> {
-                    final String title = arguments.get("title").toString();
-                    final String content = arguments.get("content").toString();
-
-                    String filename = sanitizeFilename(title);
-                    String dateCreated = LocalDateTime.now().format(DateTimeFormatter.ofPattern("MMMM dd, yyyy"));
-                    String fullContent = String.format("# %s\n\n**Date Created:** %s\n\n%s", title, dateCreated, content);
-                    boolean isError = false;
-                    String result;
-                    try {
-                        Path path = Paths.get(filename);
-                        Files.writeString(path, fullContent);
-                        result = "Story has been saved at: " + path.toAbsolutePath();
+                (exchange, arguments) -> result(engine().saveStory(
+                        arguments.get("title").toString(), arguments.get("content").toString()))
+        );
+    }
 
-                    } catch (IOException e) {
-                        isError = true;
-                        result = e + ": " + e.getMessage();
-                        log.error("Error saving story", e);
-                        e.printStackTrace(System.err);
-                    }
+    public static McpServerFeatures.SyncToolSpecification saveStories() throws IOException {
+        final McpSchema.JsonSchema schema = ToolSchemas.get("stories-input-json-schema.json");
+        McpSchema.Tool tool = new McpSchema
+                .Tool("save_stories", "save several stories at once.", schema);
 
-                    McpSchema.Content returnContent = new McpSchema.TextContent(result);
-                    return new McpSchema.CallToolResult(List.of(returnContent), isError);
+        return new McpServerFeatures.SyncToolSpecification(
+                tool,
+                (exchange, arguments) -> {
+                    List<StoryInput> inputs = new ArrayList<>();
+                    for (Object item : (List<?>) arguments.get("stories")) {
+                        Map<?, ?> story = (Map<?, ?>) item;
+                        inputs.add(new StoryInput(story.get("title").toString(), story.get("content").toString()));
+                    }
+                    return result(engine().saveStories(inputs));
                 }
         );
+    }
 
+    public static McpServerFeatures.SyncToolSpecification searchStories() throws IOException {
+        final McpSchema.JsonSchema schema = ToolSchemas.get("search-input-json-schema.json");
+        McpSchema.Tool tool = new McpSchema
+                .Tool("search_stories", "search saved stories by words in their title and content, best matches first.", schema);
 
+        return new McpServerFeatures.SyncToolSpecification(
+                tool,
+                (exchange, arguments) -> {
+                    Long limit = longArgument(arguments, "limit");
+                    return result(engine().searchStories(arguments.get("query").toString(),
+                            limit == null ? null : (int) Math.clamp(limit, 1, 100)));
+                }
+        );
     }
 
     public static McpServerFeatures.SyncToolSpecification getStory() throws IOException {
-        final String schema = readResourceAsString("filename-input-json-schema.json");
+        final McpSchema.JsonSchema schema = ToolSchemas.get("filename-input-json-schema.json");
         McpSchema.Tool tool = new McpSchema
                 .Tool("get_story", "get story.", schema);
 
         return new McpServerFeatures.SyncToolSpecification(
                 tool,
                 (exchange, arguments) -> {
-                    final String filename = arguments.get("filename").toString();
+                    Long length = longArgument(arguments, "length");
+                    return result(engine().getStory(arguments.get("filename").toString(),
+                            longArgument(arguments, "offset"),
+                            length == null ? null : (int) Math.clamp(length, 0, Integer.MAX_VALUE)));
+                }
+        );
+    }
+
+    static McpSchema.CallToolResult result(ToolResult result) {
+        List<McpSchema.Content> contents = new ArrayList<>(result.texts().size());
+        for (String text : result.texts()) {
+            contents.add(new McpSchema.TextContent(text));
+        }
+        return new McpSchema.CallToolResult(contents, result.isError());
+    }
+
+    private static Long longArgument(Map<String, Object> arguments, String name) {
+        Object value = arguments.get(name);
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        return value == null ? null : Long.parseLong(value.toString());
+    }
+
+    /**
+     * Calls {@code listener} with the file name of every story saved by the tools,
+     * whatever the repository, until it is removed.
+     */
+    public static void addSavedListener(Consumer<String> listener) {
+        savedListeners.add(listener);
+    }
+
+    public static void removeSavedListener(Consumer<String> listener) {
+        savedListeners.remove(listener);
+    }
+
+    private static void saved(String filename) {
+        for (Consumer<String> listener : savedListeners) {
+            listener.accept(filename);
+        }
+    }
+
+    /**
+     * Replaces the story repository used by {@code save_story} and {@code get_story}.
+     * Without a call, the repository is created from system properties on first use.
+     */
+    public static synchronized void useRepository(StoryRepository repository) {
+        stories = repository;
+        Metrics.storyCache(repository instanceof CachingStoryRepository cache ? cache : null);
+        searchIndex = null;
+        engine = null;
+        characterResponses = null;
+    }
 
-                    boolean isError = false;
-                    String result;
+    static StoryRepository stories() {
+        StoryRepository repository = stories;
+        if (repository == null) {
+            synchronized (StoryTools.class) {
+                repository = stories;
+                if (repository == null) {
                     try {
-                        Path path = Paths.get(filename);
-                        result = Files.readString(Paths.get(filename));
+                        repository = StoryRepository.fromSystemProperties();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to open story repository", e);
+                    }
+                    stories = repository;
+                    Metrics.storyCache(repository instanceof CachingStoryRepository cache ? cache : null);
+                }
+            }
+        }
+        return repository;
+    }
+
+    /**
+     * Replaces the character registry behind the character tools. Without a call,
+     * the registry is created from system properties on first use.
+     */
+    public static synchronized void useCharacters(CharacterRegistry registry) {
+        characters = registry;
+        engine = null;
+        characterResponses = null;
+    }
 
+    private static CharacterRegistry characters() {
+        CharacterRegistry registry = characters;
+        if (registry == null) {
+            synchronized (StoryTools.class) {
+                registry = characters;
+                if (registry == null) {
+                    try {
+                        registry = CharacterRegistry.fromSystemProperties();
                     } catch (IOException e) {
-                        isError = true;
-                        result = e + ": " + e.getMessage();
-                        log.error("Error reading story", e);
-                        e.printStackTrace(System.err);
+                        throw new UncheckedIOException("Failed to load characters", e);
                     }
+                    characters = registry;
+                }
+            }
+        }
+        return registry;
+    }
 
-                    McpSchema.Content returnContent = new McpSchema.TextContent(result);
-                    return new McpSchema.CallToolResult(List.of(returnContent), isError);
+    /**
+     * The engine behind every tool, over the current repository, characters and index.
+     */
+    private static StoryToolEngine engine() {
+        StoryToolEngine current = engine;
+        if (current == null) {
+            synchronized (StoryTools.class) {
+                current = engine;
+                if (current == null) {
+                    current = new StoryToolEngine(characters(), stories(), searchIndex(), MAX_CHUNK_BYTES);
+                    current.onSaved(StoryTools::saved);
+                    engine = current;
                 }
-        );
+            }
+        }
+        return current;
     }
 
+    /**
+     * The encoded JSON of the current character responses, {@code null} before
+     * they are first built; see {@link PreEncodedJson}.
+     */
+    static PreEncodedJson preEncodedJson() {
+        CharacterResponses current = characterResponses;
+        return current == null ? null : current.json();
+    }
 
-    private static String sanitizeFilename(String title) {
-        String filename = title.toLowerCase().replaceAll("\\s+", "_");
-        String[] parts = filename.split("_");
-        if (parts.length > 4) {
-            filename = String.join("_", Arrays.copyOfRange(parts, 0, 4));
-        }
-        if (filename.length() > 30) {
-            filename = filename.substring(0, 30);
+    private static CharacterResponses characterResponses() {
+        CharacterResponses current = characterResponses;
+        if (current == null) {
+            synchronized (StoryTools.class) {
+                current = characterResponses;
+                if (current == null) {
+                    characterResponses = current = new CharacterResponses(engine(), characters());
+                }
+            }
         }
-        return filename + ".md";
+        return current;
     }
 
-    private static String readResourceAsString(String filename) throws IOException {
-        try (InputStream inputStream = StoryTools.class.getClassLoader().getResourceAsStream(filename)) {
-            if (inputStream == null) {
-                throw new NoSuchFileException(filename);
+    /**
+     * The index behind {@code search_stories}. It is published empty and filled
+     * from the story repository on a background thread, so startup does not wait
+     * for a large story directory to be indexed.
+     */
+    private static StoryIndex searchIndex() {
+        StoryIndex index = searchIndex;
+        if (index == null) {
+            synchronized (StoryTools.class) {
+                index = searchIndex;
+                if (index == null) {
+                    index = new StoryIndex();
+                    index.buildInBackground(stories());
+                    searchIndex = index;
+                }
             }
-            InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
-            BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
-            return bufferedReader.lines().collect(joining(System.lineSeparator()));
         }
+        return index;
     }
 
     public static void addToServer(McpSyncServer server) {
         try {
-            server.addTool(getCharacters());
-            server.addTool(getBackstory());
-            server.addTool(getSuperpower());
-            server.addTool(saveStory());
-            server.addTool(getStory());
+            server.addTool(Metrics.instrument(getCharacters()));
+            server.addTool(Metrics.instrument(getBackstory()));
+            server.addTool(Metrics.instrument(getSuperpower()));
+            server.addTool(Metrics.instrument(saveStory()));
+            server.addTool(Metrics.instrument(saveStories()));
+            server.addTool(Metrics.instrument(listStories()));
+            server.addTool(Metrics.instrument(searchStories()));
+            server.addTool(Metrics.instrument(getStory()));
+            searchIndex();
 
         } catch (IOException e) {
-            log.error("Failed to add tools");
-            e.printStackTrace(System.err);
+            log.error("Failed to add tools", e);
         }
     }
 
-    record Character(String backstory, String superpower) {}
+    /**
+     * Registers the tools on an async server; handlers run on virtual threads.
+     */
+    public static void addToServer(McpAsyncServer server) {
+        try {
+            for (McpServerFeatures.SyncToolSpecification tool : List.of(
+                    getCharacters(), getBackstory(), getSuperpower(), saveStory(), saveStories(),
+                    listStories(), searchStories(), getStory())) {
+                server.addTool(VirtualThreadSpecifications.toAsync(Metrics.instrument(tool))).block();
+            }
+            searchIndex();
+
+        } catch (IOException e) {
+            log.error("Failed to add tools", e);
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package org.story.builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Input schemas of the story tools, read from the classpath and parsed once.
+ * Tools that take the same arguments share one {@link McpSchema.JsonSchema}
+ * instance, and building a tool again (e.g. for a second server) costs a map lookup.
+ */
+final class ToolSchemas {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Map<String, McpSchema.JsonSchema> schemas = new ConcurrentHashMap<>();
+
+    private ToolSchemas() {
+    }
+
+    static McpSchema.JsonSchema get(String resource) throws IOException {
+        try {
+            return schemas.computeIfAbsent(resource, ToolSchemas::parse);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static McpSchema.JsonSchema parse(String resource) {
+        try (InputStream inputStream = ToolSchemas.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new NoSuchFileException(resource);
+            }
+            return JSON.readValue(inputStream, McpSchema.JsonSchema.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
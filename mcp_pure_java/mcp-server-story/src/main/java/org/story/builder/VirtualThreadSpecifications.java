@@ -0,0 +1,54 @@
+package org.story.builder;
+
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Adapts the blocking tool, prompt and resource handlers to the async server API.
+ *
+ * <p>The sync server runs handlers on Reactor's bounded elastic pool, which caps
+ * the number of concurrently blocked calls and queues the rest behind them. Here
+ * every call gets its own virtual thread, so a slow {@code save_story} only parks
+ * its own carrier-free thread instead of holding up other sessions.
+ */
+final class VirtualThreadSpecifications {
+
+    static final Scheduler VIRTUAL_THREADS = Schedulers.fromExecutorService(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("story-handler-", 0).factory()),
+            "story-handler");
+
+    private VirtualThreadSpecifications() {
+    }
+
+    static McpServerFeatures.AsyncToolSpecification toAsync(McpServerFeatures.SyncToolSpecification spec) {
+        return new McpServerFeatures.AsyncToolSpecification(
+                spec.tool(),
+                (exchange, arguments) -> Mono
+                        .fromCallable(() -> spec.call().apply(new McpSyncServerExchange(exchange), arguments))
+                        .subscribeOn(VIRTUAL_THREADS)
+        );
+    }
+
+    static McpServerFeatures.AsyncPromptSpecification toAsync(McpServerFeatures.SyncPromptSpecification spec) {
+        return new McpServerFeatures.AsyncPromptSpecification(
+                spec.prompt(),
+                (exchange, request) -> Mono
+                        .fromCallable(() -> spec.promptHandler().apply(new McpSyncServerExchange(exchange), request))
+                        .subscribeOn(VIRTUAL_THREADS)
+        );
+    }
+
+    static McpServerFeatures.AsyncResourceSpecification toAsync(McpServerFeatures.SyncResourceSpecification spec) {
+        return new McpServerFeatures.AsyncResourceSpecification(
+                spec.resource(),
+                (exchange, request) -> Mono
+                        .fromCallable(() -> spec.readHandler().apply(new McpSyncServerExchange(exchange), request))
+                        .subscribeOn(VIRTUAL_THREADS)
+        );
+    }
+}
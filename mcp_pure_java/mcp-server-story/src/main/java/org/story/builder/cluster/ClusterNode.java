@@ -0,0 +1,60 @@
+package org.story.builder.cluster;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Identity of this {@code SseServer} in a cluster and how it reaches the others,
+ * read from {@code story.cluster.*} system properties.
+ *
+ * <table>
+ *   <caption>System properties</caption>
+ *   <tr><td>{@code story.cluster.node}</td><td>id of this node, letters, digits, {@code -} and
+ *       {@code _}; cluster mode is off when unset</td></tr>
+ *   <tr><td>{@code story.cluster.peers}</td><td>the other nodes as
+ *       {@code id=http://host:port,...}</td></tr>
+ *   <tr><td>{@code story.cluster.forwardTimeoutMs}</td><td>how long a forwarded message may
+ *       take, default 60000</td></tr>
+ * </table>
+ */
+public record ClusterNode(String id, MessageForwarder forwarder) {
+
+    private static final Pattern NODE_ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+    public ClusterNode {
+        if (!NODE_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid cluster node id: " + id);
+        }
+    }
+
+    /**
+     * @return the configured node, or {@code null} when {@code story.cluster.node} is not set
+     */
+    public static ClusterNode fromSystemProperties() {
+        String id = System.getProperty("story.cluster.node");
+        if (id == null || id.isBlank()) {
+            return null;
+        }
+        Duration timeout = Duration.ofMillis(Long.getLong("story.cluster.forwardTimeoutMs", 60_000));
+        return new ClusterNode(id.strip(),
+                new HttpMessageForwarder(parsePeers(System.getProperty("story.cluster.peers", "")), timeout));
+    }
+
+    static Map<String, URI> parsePeers(String peers) {
+        Map<String, URI> parsed = new LinkedHashMap<>();
+        for (String peer : peers.split(",")) {
+            if (peer.isBlank()) {
+                continue;
+            }
+            int equals = peer.indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Expected id=url in story.cluster.peers, got: " + peer);
+            }
+            parsed.put(peer.substring(0, equals).strip(), URI.create(peer.substring(equals + 1).strip()));
+        }
+        return parsed;
+    }
+}
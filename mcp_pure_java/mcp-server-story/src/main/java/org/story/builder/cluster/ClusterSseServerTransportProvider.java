@@ -0,0 +1,141 @@
+package org.story.builder.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.transport.HttpServletSseServerTransportProvider;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * SSE transport for a node of a cluster behind a load balancer that does not
+ * keep a client on one node.
+ *
+ * <p>Sessions still live only on the node that holds their {@code /sse} stream,
+ * but the session id handed to the client names that node: the SDK's id is
+ * prefixed with {@code <node>.} in the {@code endpoint} event. A {@code /message}
+ * POST for a session of this node is handled here; one for another node is
+ * passed to the {@link MessageForwarder}, which lets the owner handle it and
+ * returns its answer. The response itself always travels on the owner's SSE
+ * stream, so a message costs at most one extra hop and nodes share no state.
+ */
+public class ClusterSseServerTransportProvider extends HttpServletSseServerTransportProvider {
+
+    static final String FORWARDED_HEADER = "X-Story-Forwarded";
+    private static final String SESSION_PARAM = "sessionId";
+    private static final char SEPARATOR = '.';
+
+    private final String node;
+    private final String messageEndpoint;
+    private final MessageForwarder forwarder;
+
+    public ClusterSseServerTransportProvider(ObjectMapper objectMapper, String messageEndpoint, String sseEndpoint,
+                                             ClusterNode node) {
+        super(objectMapper, messageEndpoint, sseEndpoint);
+        this.node = node.id();
+        this.messageEndpoint = messageEndpoint;
+        this.forwarder = node.forwarder();
+        forwarder.register(this.node, this);
+    }
+
+    /**
+     * @return the node id in the session id, or {@code null} if it has none
+     */
+    static String owner(String sessionId) {
+        int separator = sessionId == null ? -1 : sessionId.indexOf(SEPARATOR);
+        return separator < 1 ? null : sessionId.substring(0, separator);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        super.doGet(request, new HttpServletResponseWrapper(response) {
+            private PrintWriter writer;
+
+            @Override
+            public PrintWriter getWriter() throws IOException {
+                if (writer == null) {
+                    writer = new OwnerPrefixingWriter(super.getWriter());
+                }
+                return writer;
+            }
+        });
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String sessionId = request.getParameter(SESSION_PARAM);
+        String owner = owner(sessionId);
+        if (!messageEndpoint.equals(request.getPathInfo()) || owner == null) {
+            // Not ours to route; the SDK answers with its usual 404 or 400.
+            super.doPost(request, response);
+        } else if (owner.equals(node)) {
+            deliver(sessionId, request, response);
+        } else if (request.getHeader(FORWARDED_HEADER) != null) {
+            // Forwarded to us but not ours: misconfigured peers, do not bounce it on.
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Session not found: " + sessionId);
+        } else {
+            forwarder.forward(owner, sessionId, request, response);
+        }
+    }
+
+    /**
+     * Handles a message for a session of this node.
+     *
+     * @param sessionId the session id with the owner prefix
+     */
+    void deliver(String sessionId, HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String localId = sessionId.substring(sessionId.indexOf(SEPARATOR) + 1);
+        super.doPost(new HttpServletRequestWrapper(request) {
+            @Override
+            public String getParameter(String name) {
+                return SESSION_PARAM.equals(name) ? localId : super.getParameter(name);
+            }
+        }, response);
+    }
+
+    /**
+     * Adds the owner prefix to the session id in the {@code endpoint} event, the
+     * first thing the SDK writes to a new stream. Write errors of the wrapped
+     * writer still show in {@link #checkError()}, which the SDK uses to detect
+     * closed streams.
+     */
+    private final class OwnerPrefixingWriter extends PrintWriter {
+        private static final String SESSION_QUERY = SESSION_PARAM + "=";
+
+        private final PrintWriter target;
+        private boolean prefixed;
+
+        OwnerPrefixingWriter(PrintWriter target) {
+            super(target);
+            this.target = target;
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            if (!prefixed) {
+                String text = s.substring(off, off + len);
+                int at = text.indexOf(SESSION_QUERY);
+                if (at >= 0) {
+                    prefixed = true;
+                    int end = at + SESSION_QUERY.length();
+                    text = text.substring(0, end) + node + SEPARATOR + text.substring(end);
+                }
+                super.write(text, 0, text.length());
+                return;
+            }
+            super.write(s, off, len);
+        }
+
+        @Override
+        public boolean checkError() {
+            return super.checkError() || target.checkError();
+        }
+    }
+}
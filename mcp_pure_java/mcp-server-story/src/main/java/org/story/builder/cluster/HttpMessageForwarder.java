@@ -0,0 +1,73 @@
+package org.story.builder.cluster;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Forwards a message by POSTing it unchanged to the owner's {@code /message}
+ * endpoint and copying back the status and body.
+ */
+public class HttpMessageForwarder implements MessageForwarder {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpMessageForwarder.class);
+
+    private final Map<String, URI> peers;
+    private final Duration timeout;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    /**
+     * @param peers base URL of every other node by node id
+     */
+    public HttpMessageForwarder(Map<String, URI> peers, Duration timeout) {
+        this.peers = Map.copyOf(peers);
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void forward(String owner, String sessionId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        URI peer = peers.get(owner);
+        if (peer == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Session not found: " + sessionId);
+            return;
+        }
+        HttpRequest forwarded = HttpRequest.newBuilder(peer.resolve(request.getRequestURI()
+                        + "?sessionId=" + URLEncoder.encode(sessionId, StandardCharsets.UTF_8)))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header(ClusterSseServerTransportProvider.FORWARDED_HEADER, "true")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(request.getInputStream().readAllBytes()))
+                .build();
+        HttpResponse<byte[]> answer;
+        try {
+            answer = client.send(forwarded, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            log.warn("Failed to forward message for session {} to {}", sessionId, peer, e);
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY, "Owner of session unreachable: " + owner);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Interrupted while forwarding");
+            return;
+        }
+        response.setStatus(answer.statusCode());
+        answer.headers().firstValue("Content-Type").ifPresent(response::setContentType);
+        response.getOutputStream().write(answer.body());
+    }
+}
@@ -0,0 +1,37 @@
+package org.story.builder.cluster;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Forwarder for several nodes running in one JVM, as in tests and benchmarks:
+ * the owner's transport handles the original request directly, without a
+ * network hop. Give every node the same instance.
+ */
+public class InJvmMessageForwarder implements MessageForwarder {
+
+    private final Map<String, ClusterSseServerTransportProvider> nodes = new ConcurrentHashMap<>();
+
+    @Override
+    public void register(String node, ClusterSseServerTransportProvider transport) {
+        if (nodes.putIfAbsent(node, transport) != null) {
+            throw new IllegalStateException("Cluster node registered twice: " + node);
+        }
+    }
+
+    @Override
+    public void forward(String owner, String sessionId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException {
+        ClusterSseServerTransportProvider transport = nodes.get(owner);
+        if (transport == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Session not found: " + sessionId);
+            return;
+        }
+        transport.deliver(sessionId, request, response);
+    }
+}
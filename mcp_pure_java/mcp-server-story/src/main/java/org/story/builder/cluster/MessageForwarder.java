@@ -0,0 +1,28 @@
+package org.story.builder.cluster;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Hands a {@code /message} POST to the node that owns its session and writes
+ * that node's answer to the response.
+ */
+public interface MessageForwarder {
+
+    /**
+     * @param owner     node id taken from the session id
+     * @param sessionId the session id as the client sent it, owner prefix included
+     */
+    void forward(String owner, String sessionId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException;
+
+    /**
+     * Called once the local node's transport exists, for forwarders that deliver
+     * in process.
+     */
+    default void register(String node, ClusterSseServerTransportProvider transport) {
+    }
+}
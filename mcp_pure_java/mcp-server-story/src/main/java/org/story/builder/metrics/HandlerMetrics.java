@@ -0,0 +1,54 @@
+package org.story.builder.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one tool or prompt handler. Recording only bumps {@link LongAdder}s
+ * and picks a histogram bucket, so it allocates nothing once a counter's cells
+ * have been created.
+ */
+public final class HandlerMetrics {
+
+    /**
+     * Upper bounds of the latency histogram buckets in nanoseconds, from 100µs to 10s.
+     */
+    static final long[] LATENCY_BOUNDS_NANOS = {
+            100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L,
+            10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    final String kind;
+    final String name;
+    final LongAdder calls = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder latencyNanos = new LongAdder();
+    final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BOUNDS_NANOS.length + 1];
+    final LongAdder requestBytes = new LongAdder();
+    final LongAdder responseBytes = new LongAdder();
+
+    HandlerMetrics(String kind, String name) {
+        this.kind = kind;
+        this.name = name;
+        for (int i = 0; i < latencyBuckets.length; i++) {
+            latencyBuckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long elapsedNanos, boolean error, long requestBytes, long responseBytes) {
+        calls.increment();
+        if (error) {
+            errors.increment();
+        }
+        latencyNanos.add(elapsedNanos);
+        int bucket = 0;
+        while (bucket < LATENCY_BOUNDS_NANOS.length && elapsedNanos > LATENCY_BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        latencyBuckets[bucket].increment();
+        this.requestBytes.add(requestBytes);
+        this.responseBytes.add(responseBytes);
+    }
+}
@@ -0,0 +1,221 @@
+package org.story.builder.metrics;
+
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.story.builder.store.CachingStoryRepository;
+import org.story.builder.store.StoryChunk;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide metrics of the story server: per tool and prompt call counts, error
+ * counts, latency histograms and payload sizes, plus the number of open SSE
+ * streams, the queue of the tool call scheduler and the counters of the story read
+ * cache. {@link #writePrometheus(Appendable)} renders them in the Prometheus
+ * text exposition format for {@code GET /metrics}.
+ *
+ * <p>Payload sizes are the UTF-8 size of the text in the call arguments and in the
+ * returned contents, which is counted without serializing anything again.
+ */
+public final class Metrics {
+
+    private static final Map<String, HandlerMetrics> handlers = new ConcurrentHashMap<>();
+    private static final LongAdder sseSessions = new LongAdder();
+    private static final Map<String, LongAdder> toolCallRejections = new ConcurrentHashMap<>();
+    private static volatile long toolCallsQueued;
+    private static volatile CachingStoryRepository storyCache;
+
+    private Metrics() {
+    }
+
+    public static HandlerMetrics handler(String kind, String name) {
+        return handlers.computeIfAbsent(kind + '/' + name, key -> new HandlerMetrics(kind, name));
+    }
+
+    /**
+     * Wraps the tool handler so that every call is recorded. A call counts as an
+     * error when it throws or returns a result flagged {@code isError}.
+     */
+    public static McpServerFeatures.SyncToolSpecification instrument(McpServerFeatures.SyncToolSpecification spec) {
+        HandlerMetrics metrics = handler("tool", spec.tool().name());
+        return new McpServerFeatures.SyncToolSpecification(
+                spec.tool(),
+                (exchange, arguments) -> {
+                    long start = System.nanoTime();
+                    McpSchema.CallToolResult result = null;
+                    try {
+                        result = spec.call().apply(exchange, arguments);
+                        return result;
+                    } finally {
+                        boolean error = result == null || Boolean.TRUE.equals(result.isError());
+                        metrics.record(System.nanoTime() - start, error, payloadBytes(arguments),
+                                result == null ? 0 : contentBytes(result.content()));
+                    }
+                }
+        );
+    }
+
+    public static McpServerFeatures.SyncPromptSpecification instrument(McpServerFeatures.SyncPromptSpecification spec) {
+        HandlerMetrics metrics = handler("prompt", spec.prompt().name());
+        return new McpServerFeatures.SyncPromptSpecification(
+                spec.prompt(),
+                (exchange, request) -> {
+                    long start = System.nanoTime();
+                    McpSchema.GetPromptResult result = null;
+                    try {
+                        result = spec.promptHandler().apply(exchange, request);
+                        return result;
+                    } finally {
+                        long responseBytes = 0;
+                        if (result != null) {
+                            for (McpSchema.PromptMessage message : result.messages()) {
+                                responseBytes += contentBytes(message.content());
+                            }
+                        }
+                        metrics.record(System.nanoTime() - start, result == null,
+                                payloadBytes(request.arguments()), responseBytes);
+                    }
+                }
+        );
+    }
+
+    public static void sseSessionOpened() {
+        sseSessions.increment();
+    }
+
+    public static void sseSessionClosed() {
+        sseSessions.decrement();
+    }
+
+    public static void toolCallsQueued(long queued) {
+        toolCallsQueued = queued;
+    }
+
+    public static void toolCallRejected(String reason) {
+        toolCallRejections.computeIfAbsent(reason, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Sets the read cache whose counters are exported, {@code null} when the
+     * story repository has none.
+     */
+    public static void storyCache(CachingStoryRepository cache) {
+        storyCache = cache;
+    }
+
+    public static void writePrometheus(Appendable out) throws IOException {
+        List<HandlerMetrics> all = handlers.values().stream()
+                .sorted((a, b) -> (a.kind + a.name).compareTo(b.kind + b.name))
+                .toList();
+
+        header(out, "story_handler_calls_total", "counter", "Tool and prompt calls.");
+        for (HandlerMetrics metrics : all) {
+            sample(out, "story_handler_calls_total", metrics, null, metrics.calls.sum());
+        }
+        header(out, "story_handler_errors_total", "counter", "Tool and prompt calls that failed or returned an error.");
+        for (HandlerMetrics metrics : all) {
+            sample(out, "story_handler_errors_total", metrics, null, metrics.errors.sum());
+        }
+        header(out, "story_handler_latency_seconds", "histogram", "Time spent in the tool or prompt handler.");
+        for (HandlerMetrics metrics : all) {
+            long cumulative = 0;
+            for (int i = 0; i < metrics.latencyBuckets.length; i++) {
+                cumulative += metrics.latencyBuckets[i].sum();
+                String le = i < HandlerMetrics.LATENCY_BOUNDS_NANOS.length
+                        ? Double.toString(HandlerMetrics.LATENCY_BOUNDS_NANOS[i] / 1e9)
+                        : "+Inf";
+                sample(out, "story_handler_latency_seconds_bucket", metrics, le, cumulative);
+            }
+            sample(out, "story_handler_latency_seconds_sum", metrics, null, metrics.latencyNanos.sum() / 1e9);
+            sample(out, "story_handler_latency_seconds_count", metrics, null, cumulative);
+        }
+        header(out, "story_handler_request_bytes_total", "counter", "UTF-8 size of the text in call arguments.");
+        for (HandlerMetrics metrics : all) {
+            sample(out, "story_handler_request_bytes_total", metrics, null, metrics.requestBytes.sum());
+        }
+        header(out, "story_handler_response_bytes_total", "counter", "UTF-8 size of the text in call results.");
+        for (HandlerMetrics metrics : all) {
+            sample(out, "story_handler_response_bytes_total", metrics, null, metrics.responseBytes.sum());
+        }
+        header(out, "story_sse_sessions_active", "gauge", "Open SSE streams.");
+        out.append("story_sse_sessions_active ").append(Long.toString(sseSessions.sum())).append('\n');
+        header(out, "story_tool_calls_queued", "gauge", "Tool calls waiting for a slot.");
+        out.append("story_tool_calls_queued ").append(Long.toString(toolCallsQueued)).append('\n');
+        header(out, "story_tool_calls_rejected_total", "counter", "Tool calls rejected by admission control.");
+        for (Map.Entry<String, LongAdder> entry : toolCallRejections.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey()).toList()) {
+            out.append("story_tool_calls_rejected_total{reason=\"").append(entry.getKey()).append("\"} ")
+                    .append(Long.toString(entry.getValue().sum())).append('\n');
+        }
+        CachingStoryRepository cache = storyCache;
+        if (cache != null) {
+            CachingStoryRepository.CacheStats stats = cache.stats();
+            header(out, "story_cache_hits_total", "counter", "Story reads served from the cache.");
+            out.append("story_cache_hits_total ").append(Long.toString(stats.hits())).append('\n');
+            header(out, "story_cache_misses_total", "counter", "Story reads that went to the store.");
+            out.append("story_cache_misses_total ").append(Long.toString(stats.misses())).append('\n');
+            header(out, "story_cache_evictions_total", "counter", "Stories evicted from the cache.");
+            out.append("story_cache_evictions_total ").append(Long.toString(stats.evictions())).append('\n');
+            header(out, "story_cache_bytes", "gauge", "Size of the cached stories.");
+            out.append("story_cache_bytes ").append(Long.toString(stats.weightBytes())).append('\n');
+        }
+    }
+
+    private static void header(Appendable out, String name, String type, String help) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(Appendable out, String name, HandlerMetrics metrics, String le, double value)
+            throws IOException {
+        out.append(name).append("{kind=\"").append(metrics.kind).append("\",name=\"").append(metrics.name).append('"');
+        if (le != null) {
+            out.append(",le=\"").append(le).append('"');
+        }
+        out.append("} ");
+        out.append(value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value)).append('\n');
+    }
+
+    private static long payloadBytes(Object value) {
+        if (value instanceof CharSequence text) {
+            return StoryChunk.utf8Length(text);
+        }
+        if (value instanceof Map<?, ?> map) {
+            long bytes = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += payloadBytes(entry.getKey()) + payloadBytes(entry.getValue());
+            }
+            return bytes;
+        }
+        if (value instanceof List<?> list) {
+            long bytes = 0;
+            for (Object item : list) {
+                bytes += payloadBytes(item);
+            }
+            return bytes;
+        }
+        return value == null ? 0 : 8;
+    }
+
+    private static long contentBytes(List<McpSchema.Content> contents) {
+        long bytes = 0;
+        for (McpSchema.Content content : contents) {
+            bytes += contentBytes(content);
+        }
+        return bytes;
+    }
+
+    private static long contentBytes(McpSchema.Content content) {
+        if (content instanceof McpSchema.TextContent text) {
+            return StoryChunk.utf8Length(text.text());
+        }
+        if (content instanceof McpSchema.ImageContent image) {
+            return image.data().length();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,66 @@
+package org.story.builder.metrics;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Counts open SSE streams: a stream is open from the request until its async
+ * context completes, errors or times out.
+ */
+public class SseSessionFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        Metrics.sseSessionOpened();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Closed());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                Metrics.sseSessionClosed();
+            }
+        }
+    }
+
+    private static final class Closed implements AsyncListener {
+        private boolean closed;
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private synchronized void close() {
+            if (!closed) {
+                closed = true;
+                Metrics.sseSessionClosed();
+            }
+        }
+    }
+}
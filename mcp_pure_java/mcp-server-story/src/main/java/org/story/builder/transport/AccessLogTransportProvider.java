@@ -0,0 +1,171 @@
+package org.story.builder.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs every request of every session to the {@code story.access} logger: the
+ * method, the tool or prompt name, the session id, the request id, the time until
+ * its response was sent and the outcome. The values are SLF4J key/value pairs,
+ * which the JSON encoder in {@code logback.xml} writes as fields, so nothing is
+ * formatted on the request thread.
+ *
+ * <p>The outcome is read from the response the session sends: {@code ok},
+ * {@code error} for a JSON-RPC error (with its {@code code}), {@code tool_error}
+ * for a tool result with {@code isError} set, or {@code exception} when handling
+ * failed without a response.
+ *
+ * <p>With {@code story.accessLog.sample} below 1 only that fraction of requests
+ * is logged; failed requests are always logged. Nothing is measured when the
+ * logger is off.
+ */
+public class AccessLogTransportProvider implements McpServerTransportProvider {
+    private static final Logger access = LoggerFactory.getLogger("story.access");
+
+    private final McpServerTransportProvider delegate;
+    private final double sample;
+
+    public AccessLogTransportProvider(McpServerTransportProvider delegate, double sample) {
+        this.delegate = delegate;
+        this.sample = sample;
+    }
+
+    public static AccessLogTransportProvider fromSystemProperties(McpServerTransportProvider delegate) {
+        return new AccessLogTransportProvider(delegate,
+                Double.parseDouble(System.getProperty("story.accessLog.sample", "1")));
+    }
+
+    @Override
+    public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+        delegate.setSessionFactory(transport -> {
+            ResponseTransport responses = new ResponseTransport(transport);
+            AccessLogSession session = new AccessLogSession(sessionFactory.create(responses), transport);
+            responses.session = session;
+            return session;
+        });
+    }
+
+    @Override
+    public Mono<Void> notifyClients(String method, Map<String, Object> params) {
+        return delegate.notifyClients(method, params);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        return delegate.closeGracefully();
+    }
+
+    private final class AccessLogSession extends ForwardingServerSession {
+        private final Map<Object, Pending> pending = new ConcurrentHashMap<>();
+
+        AccessLogSession(McpServerSession session, McpServerTransport transport) {
+            super(session, transport);
+        }
+
+        @Override
+        public Mono<Void> handle(McpSchema.JSONRPCMessage message) {
+            if (!(message instanceof McpSchema.JSONRPCRequest request) || request.id() == null
+                    || !access.isInfoEnabled()) {
+                return session.handle(message);
+            }
+            boolean sampled = sample >= 1 || ThreadLocalRandom.current().nextDouble() < sample;
+            pending.put(request.id(), new Pending(request, sampled, System.nanoTime()));
+            return session.handle(message).doOnError(e -> {
+                Pending failed = pending.remove(request.id());
+                if (failed != null) {
+                    log(failed, "exception", null);
+                }
+            });
+        }
+
+        void responded(McpSchema.JSONRPCResponse response) {
+            Pending request = pending.remove(response.id());
+            if (request == null) {
+                return;
+            }
+            if (response.error() != null) {
+                log(request, "error", response.error().code());
+            } else if (isToolError(response.result())) {
+                log(request, "tool_error", null);
+            } else if (request.sampled()) {
+                log(request, "ok", null);
+            }
+        }
+
+        private void log(Pending pending, String outcome, Integer code) {
+            McpSchema.JSONRPCRequest request = pending.request();
+            LoggingEventBuilder event = access.atInfo()
+                    .addKeyValue("method", request.method())
+                    .addKeyValue("name", request.params() instanceof Map<?, ?> params ? params.get("name") : null)
+                    .addKeyValue("session", getId())
+                    .addKeyValue("id", request.id())
+                    .addKeyValue("latencyMicros", (System.nanoTime() - pending.start()) / 1000)
+                    .addKeyValue("outcome", outcome);
+            if (code != null) {
+                event = event.addKeyValue("code", code);
+            }
+            event.log("request");
+        }
+    }
+
+    private static boolean isToolError(Object result) {
+        if (result instanceof McpSchema.CallToolResult toolResult) {
+            return Boolean.TRUE.equals(toolResult.isError());
+        }
+        return result instanceof Map<?, ?> map && Boolean.TRUE.equals(map.get("isError"));
+    }
+
+    /**
+     * The transport handed to the server's session, which sees the responses it sends.
+     */
+    private static final class ResponseTransport implements McpServerTransport {
+        private final McpServerTransport delegate;
+        private volatile AccessLogSession session;
+
+        ResponseTransport(McpServerTransport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            AccessLogSession logged = session;
+            if (logged != null && message instanceof McpSchema.JSONRPCResponse response) {
+                logged.responded(response);
+            }
+            return delegate.sendMessage(message);
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+            return delegate.unmarshalFrom(data, typeRef);
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return delegate.closeGracefully();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    private record Pending(McpSchema.JSONRPCRequest request, boolean sampled, long start) {}
+}
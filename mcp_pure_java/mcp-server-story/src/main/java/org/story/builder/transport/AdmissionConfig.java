@@ -0,0 +1,42 @@
+package org.story.builder.transport;
+
+/**
+ * Limits for {@link ToolCallScheduler}, read from {@code story.admission.*} system properties.
+ *
+ * <table>
+ *   <caption>System properties</caption>
+ *   <tr><td>{@code story.admission.enabled}</td><td>schedule {@code tools/call} requests of SSE sessions,
+ *       default {@code true}</td></tr>
+ *   <tr><td>{@code story.admission.maxRunning}</td><td>tool calls running at once across all sessions,
+ *       default 64</td></tr>
+ *   <tr><td>{@code story.admission.maxQueued}</td><td>tool calls waiting across all sessions, default 1024</td></tr>
+ *   <tr><td>{@code story.admission.sessionConcurrency}</td><td>tool calls of one session running at once,
+ *       default 4</td></tr>
+ *   <tr><td>{@code story.admission.sessionQueue}</td><td>tool calls of one session waiting, default 64</td></tr>
+ *   <tr><td>{@code story.admission.sessionRate}</td><td>tool calls per second one session may start,
+ *       default 0 (unlimited)</td></tr>
+ *   <tr><td>{@code story.admission.sessionBurst}</td><td>calls a session may make at once above its rate,
+ *       default 2 seconds' worth</td></tr>
+ * </table>
+ */
+public record AdmissionConfig(
+        boolean enabled,
+        int maxRunning,
+        int maxQueued,
+        int sessionConcurrency,
+        int sessionQueue,
+        double sessionRate,
+        double sessionBurst) {
+
+    public static AdmissionConfig fromSystemProperties() {
+        double rate = Double.parseDouble(System.getProperty("story.admission.sessionRate", "0"));
+        return new AdmissionConfig(
+                Boolean.parseBoolean(System.getProperty("story.admission.enabled", "true")),
+                Integer.getInteger("story.admission.maxRunning", 64),
+                Integer.getInteger("story.admission.maxQueued", 1024),
+                Integer.getInteger("story.admission.sessionConcurrency", 4),
+                Integer.getInteger("story.admission.sessionQueue", 64),
+                rate,
+                Double.parseDouble(System.getProperty("story.admission.sessionBurst", Double.toString(2 * rate))));
+    }
+}
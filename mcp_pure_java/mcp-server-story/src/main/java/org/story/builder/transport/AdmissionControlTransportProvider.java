@@ -0,0 +1,123 @@
+package org.story.builder.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts the {@code tools/call} requests of every session through a
+ * {@link ToolCallScheduler}. The SDK gives tool handlers no handle on the session
+ * that called them, so the limits are applied where the session is known: each
+ * session the server creates is wrapped, its tool calls wait for their turn
+ * before they reach the server, and calls that are not admitted are answered
+ * straight away with a JSON-RPC error. All other messages pass through unchanged.
+ *
+ * <p>An admitted call is acknowledged at once and its result is sent on the
+ * session's SSE stream when it has run, as every response is. The SSE transport
+ * blocks the HTTP request thread until {@code handle} completes, so waiting there
+ * for a queued call would tie up a server thread per queued call.
+ *
+ * <p>Queued and running calls of a session are dropped when the session is
+ * closed or its SSE stream goes away, see {@link #sessionClosed(String)}.
+ */
+public class AdmissionControlTransportProvider implements McpServerTransportProvider {
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlTransportProvider.class);
+
+    private final McpServerTransportProvider delegate;
+    private final ToolCallScheduler scheduler;
+    private final Map<String, AdmittingSession> sessions = new ConcurrentHashMap<>();
+
+    public AdmissionControlTransportProvider(McpServerTransportProvider delegate, ToolCallScheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+        delegate.setSessionFactory(transport -> {
+            AdmittingSession session = new AdmittingSession(sessionFactory.create(transport), transport);
+            sessions.put(session.getId(), session);
+            return session;
+        });
+    }
+
+    /**
+     * Drops the queued calls of the session and cancels its running ones. The SDK
+     * does not close a session when its SSE stream ends, so the server reports that
+     * here (see {@link SseDisconnectFilter}).
+     */
+    public void sessionClosed(String sessionId) {
+        AdmittingSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.cancelCalls();
+        }
+    }
+
+    @Override
+    public Mono<Void> notifyClients(String method, Map<String, Object> params) {
+        return delegate.notifyClients(method, params);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        return delegate.closeGracefully();
+    }
+
+    private final class AdmittingSession extends ForwardingServerSession {
+        private final ToolCallScheduler.SessionQueue queue = scheduler.newSession();
+        private final Sinks.Empty<Void> closed = Sinks.empty();
+
+        AdmittingSession(McpServerSession session, McpServerTransport transport) {
+            super(session, transport);
+        }
+
+        @Override
+        public Mono<Void> handle(McpSchema.JSONRPCMessage message) {
+            if (!(message instanceof McpSchema.JSONRPCRequest request
+                    && McpSchema.METHOD_TOOLS_CALL.equals(request.method()))) {
+                return session.handle(message);
+            }
+            ToolCallScheduler.Rejection rejection = queue.submit(() -> run(request));
+            return rejection == null ? Mono.empty() : sendError(request, rejection.code, rejection.message);
+        }
+
+        private void run(McpSchema.JSONRPCRequest request) {
+            session.handle(request)
+                    .takeUntilOther(closed.asMono())
+                    .doFinally(signal -> queue.finished())
+                    .subscribe(null, e -> log.warn("Tool call {} of session {} failed: {}",
+                            request.id(), getId(), e.toString()));
+        }
+
+        void cancelCalls() {
+            sessions.remove(getId());
+            queue.close();
+            closed.tryEmitEmpty();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            cancelCalls();
+            return session.closeGracefully();
+        }
+
+        @Override
+        public void close() {
+            cancelCalls();
+            session.close();
+        }
+    }
+}
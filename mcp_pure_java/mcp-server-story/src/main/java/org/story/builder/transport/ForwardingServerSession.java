@@ -0,0 +1,63 @@
+package org.story.builder.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * A session that passes everything to the session the server created, for
+ * transport decorators that intercept some incoming messages. The SDK's
+ * transports only know {@link McpServerSession}, so the decorator has to be one.
+ */
+abstract class ForwardingServerSession extends McpServerSession {
+    protected final McpServerSession session;
+    protected final McpServerTransport transport;
+
+    ForwardingServerSession(McpServerSession session, McpServerTransport transport) {
+        super(session.getId(), transport, null, null, Map.of(), Map.of());
+        this.session = session;
+        this.transport = transport;
+    }
+
+    @Override
+    public Mono<Void> handle(McpSchema.JSONRPCMessage message) {
+        return session.handle(message);
+    }
+
+    @Override
+    public void init(McpSchema.ClientCapabilities clientCapabilities, McpSchema.Implementation clientInfo) {
+        session.init(clientCapabilities, clientInfo);
+    }
+
+    @Override
+    public <T> Mono<T> sendRequest(String method, Object requestParams, TypeReference<T> typeRef) {
+        return session.sendRequest(method, requestParams, typeRef);
+    }
+
+    @Override
+    public Mono<Void> sendNotification(String method, Map<String, Object> params) {
+        return session.sendNotification(method, params);
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        return session.closeGracefully();
+    }
+
+    @Override
+    public void close() {
+        session.close();
+    }
+
+    /**
+     * Answers {@code request} with a JSON-RPC error without passing it on.
+     */
+    protected Mono<Void> sendError(McpSchema.JSONRPCRequest request, int code, String message) {
+        return transport.sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null,
+                new McpSchema.JSONRPCResponse.JSONRPCError(code, message, null)));
+    }
+}
@@ -0,0 +1,350 @@
+package org.story.builder.transport;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stdio transport that reads and writes newline-delimited JSON-RPC through NIO
+ * channels and reusable direct buffers, as an alternative to the SDK's
+ * line-oriented {@code StdioServerTransportProvider}.
+ *
+ * <p>Incoming messages are parsed by Jackson straight from a slice of the read
+ * buffer in a single pass that notes which JSON-RPC fields are present and binds
+ * the message once; no line {@code String} or {@code JsonNode} tree is built. A
+ * last message without a trailing newline is read at end of file. Outgoing
+ * messages are queued and a single writer thread serializes everything queued
+ * into one buffer and writes it with one channel write per burst, instead of one
+ * flush per message. A message that fails to serialize is logged and dropped;
+ * only an error writing to the channel stops the writer.
+ *
+ * <p>When stdin reaches end of file, requests still being handled are given a
+ * few seconds to answer before the queued responses are flushed and the reader
+ * thread, which keeps the JVM alive, ends.
+ */
+public class NioStdioServerTransportProvider implements McpServerTransportProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(NioStdioServerTransportProvider.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long DRAIN_TIMEOUT_MS = 5_000;
+    private static final Object CLOSE = new Object();
+
+    private final ObjectMapper objectMapper;
+    private final ReadableByteChannel in;
+    private final WritableByteChannel out;
+    private final LinkedBlockingQueue<Object> outbound = new LinkedBlockingQueue<>();
+    private final Object inFlightLock = new Object();
+    private int inFlight;
+    private volatile boolean closing;
+    private McpServerSession session;
+    private Thread writer;
+
+    public NioStdioServerTransportProvider(ObjectMapper objectMapper) {
+        this(objectMapper, new FileInputStream(FileDescriptor.in).getChannel(),
+                new FileOutputStream(FileDescriptor.out).getChannel());
+    }
+
+    public NioStdioServerTransportProvider(ObjectMapper objectMapper, ReadableByteChannel in, WritableByteChannel out) {
+        this.objectMapper = objectMapper;
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+        session = sessionFactory.create(new SessionTransport());
+        writer = Thread.ofPlatform().daemon().name("story-stdio-writer").start(this::writeLoop);
+        Thread.ofPlatform().name("story-stdio-reader").start(this::readLoop);
+    }
+
+    @Override
+    public Mono<Void> notifyClients(String method, Map<String, Object> params) {
+        if (session == null) {
+            return Mono.empty();
+        }
+        return session.sendNotification(method, params)
+                .doOnError(e -> log.error("Failed to send notification {}", method, e));
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        return session == null ? Mono.empty() : session.closeGracefully();
+    }
+
+    private void readLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        int scanned = 0;
+        try {
+            while (in.read(buffer) >= 0) {
+                int end = buffer.position();
+                int start = 0;
+                for (int i = scanned; i < end; i++) {
+                    if (buffer.get(i) == '\n') {
+                        dispatch(buffer.slice(start, i - start));
+                        start = i + 1;
+                    }
+                }
+                // Keep the partial line at the front; grow the buffer for long messages.
+                buffer.limit(end).position(start);
+                if (start == 0 && end == buffer.capacity()) {
+                    ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                    larger.put(buffer);
+                    buffer = larger;
+                } else {
+                    buffer.compact();
+                }
+                scanned = buffer.position();
+            }
+            if (buffer.position() > 0) {
+                dispatch(buffer.slice(0, buffer.position()));
+            }
+        } catch (IOException e) {
+            if (!closing) {
+                log.error("Error reading from stdin", e);
+            }
+        }
+        awaitInFlight();
+        closeGracefully().block();
+    }
+
+    private void dispatch(ByteBuffer line) {
+        if (!line.hasRemaining() || (line.remaining() == 1 && line.get(0) == '\r')) {
+            return;
+        }
+        McpSchema.JSONRPCMessage message;
+        try {
+            message = parse(line);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Discarding malformed message", e);
+            return;
+        }
+        synchronized (inFlightLock) {
+            inFlight++;
+        }
+        session.handle(message)
+                .doFinally(signal -> {
+                    synchronized (inFlightLock) {
+                        inFlight--;
+                        inFlightLock.notifyAll();
+                    }
+                })
+                .subscribe(null, e -> log.error("Error handling message", e));
+    }
+
+    /**
+     * Copies the message's tokens while noting its top-level fields, then binds the
+     * tokens to the type they call for, with the same classification as the SDK's
+     * {@code McpSchema.deserializeJsonRpcMessage}.
+     */
+    private McpSchema.JSONRPCMessage parse(ByteBuffer line) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(new ByteBufferBackedInputStream(line));
+             TokenBuffer tokens = new TokenBuffer(parser)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: not an object");
+            }
+            boolean method = false;
+            boolean id = false;
+            boolean response = false;
+            tokens.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                switch (field) {
+                    case "method" -> method = true;
+                    case "id" -> id = true;
+                    case "result", "error" -> response = true;
+                    default -> {
+                    }
+                }
+                tokens.writeFieldName(field);
+                parser.nextToken();
+                tokens.copyCurrentStructure(parser);
+            }
+            tokens.writeEndObject();
+            Class<? extends McpSchema.JSONRPCMessage> type;
+            if (method && id) {
+                type = McpSchema.JSONRPCRequest.class;
+            } else if (method) {
+                type = McpSchema.JSONRPCNotification.class;
+            } else if (response) {
+                type = McpSchema.JSONRPCResponse.class;
+            } else {
+                throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: no method, result or error");
+            }
+            try (JsonParser message = tokens.asParser(objectMapper)) {
+                return objectMapper.readValue(message, type);
+            }
+        }
+    }
+
+    private void awaitInFlight() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_MS);
+        synchronized (inFlightLock) {
+            try {
+                for (long left; inFlight > 0 && (left = deadline - System.nanoTime()) > 0; ) {
+                    TimeUnit.NANOSECONDS.timedWait(inFlightLock, left);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        BufferOutputStream buffer = new BufferOutputStream(out);
+        try {
+            while (true) {
+                Object next = outbound.take();
+                do {
+                    if (next == CLOSE) {
+                        buffer.drain();
+                        return;
+                    }
+                    buffer.startMessage();
+                    try {
+                        objectMapper.writeValue(buffer, next);
+                    } catch (JsonProcessingException e) {
+                        log.error("Dropping message that failed to serialize: {}", next, e);
+                        buffer.discardMessage();
+                        continue;
+                    }
+                    buffer.write('\n');
+                } while ((next = outbound.poll()) != null);
+                buffer.drain();
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } catch (IOException e) {
+            // The channel failed; serialization errors are handled per message above.
+            if (!closing) {
+                log.error("Error writing to stdout", e);
+            }
+        }
+    }
+
+    /**
+     * Collects serialized messages in a direct buffer and hands it to the channel
+     * when it is full or on {@link #drain()}. The {@code flush()} and {@code close()}
+     * Jackson issues after each message are ignored so the buffer spans the whole burst.
+     */
+    private static final class BufferOutputStream extends OutputStream {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private int messageStart;
+        private boolean drainedInMessage;
+
+        BufferOutputStream(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        void startMessage() {
+            messageStart = buffer.position();
+            drainedInMessage = false;
+        }
+
+        /**
+         * Drops what was written of the current message. If part of it already went
+         * to the channel, the line is ended instead so the next message starts on its own.
+         */
+        void discardMessage() throws IOException {
+            if (drainedInMessage) {
+                write('\n');
+            } else {
+                buffer.position(messageStart);
+            }
+        }
+
+        void drain() throws IOException {
+            drainedInMessage = true;
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    private final class SessionTransport implements McpServerTransport {
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return Mono.fromRunnable(() -> outbound.add(message));
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+            return objectMapper.convertValue(data, typeRef);
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.fromRunnable(() -> {
+                closing = true;
+                outbound.add(CLOSE);
+                try {
+                    writer.join(DRAIN_TIMEOUT_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            closing = true;
+            writer.interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.story.builder.transport;
+
+import io.modelcontextprotocol.spec.McpServerSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which sessions subscribed to which resource URIs, and the
+ * {@code notifications/resources/updated} fan-out to them. Subscriptions are
+ * made through {@link SubscribingServerTransportProvider}; a session whose
+ * notification fails, or that closes, is dropped from every URI.
+ */
+public class ResourceSubscriptions {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourceSubscriptions.class);
+
+    public static final String METHOD_NOTIFICATION_RESOURCES_UPDATED = "notifications/resources/updated";
+
+    private final Map<String, Set<McpServerSession>> subscribers = new ConcurrentHashMap<>();
+
+    void subscribe(String uri, McpServerSession session) {
+        subscribers.computeIfAbsent(uri, key -> ConcurrentHashMap.newKeySet()).add(session);
+    }
+
+    void unsubscribe(String uri, McpServerSession session) {
+        subscribers.computeIfPresent(uri, (key, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    void unsubscribeAll(McpServerSession session) {
+        for (String uri : subscribers.keySet()) {
+            unsubscribe(uri, session);
+        }
+    }
+
+    public boolean hasSubscribers(String uri) {
+        return subscribers.containsKey(uri);
+    }
+
+    /**
+     * Tells every session subscribed to {@code uri} that it changed. Sends are
+     * asynchronous; the call does not wait for them.
+     */
+    public void notifyUpdated(String uri) {
+        Set<McpServerSession> sessions = subscribers.get(uri);
+        if (sessions == null) {
+            return;
+        }
+        Map<String, Object> params = Map.of("uri", uri);
+        for (McpServerSession session : sessions) {
+            session.sendNotification(METHOD_NOTIFICATION_RESOURCES_UPDATED, params)
+                    .subscribe(null, e -> {
+                        log.debug("Dropping subscriptions of session {}: {}", session.getId(), e.toString());
+                        unsubscribeAll(session);
+                    });
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.story.builder.transport;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.function.Consumer;
+
+/**
+ * Reports the id of a session when its SSE stream ends: the async context
+ * completes, errors or times out. The SDK drops such a session from its map
+ * without closing it, so this is the only way to learn that its client is gone.
+ *
+ * <p>The id is read from the {@code endpoint} event, the first thing the SDK
+ * writes to a new stream. A cluster node prefix ({@code node.id}) is removed.
+ */
+public class SseDisconnectFilter implements Filter {
+    private static final String SESSION_QUERY = "sessionId=";
+
+    private final Consumer<String> disconnected;
+
+    public SseDisconnectFilter(Consumer<String> disconnected) {
+        this.disconnected = disconnected;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        SessionIdCapture capture = new SessionIdCapture((HttpServletResponse) response);
+        chain.doFilter(request, capture);
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new Closed(capture));
+        } else {
+            capture.disconnected();
+        }
+    }
+
+    private final class SessionIdCapture extends HttpServletResponseWrapper {
+        private PrintWriter writer;
+        private String sessionId;
+        private boolean reported;
+
+        SessionIdCapture(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                PrintWriter target = super.getWriter();
+                writer = new PrintWriter(target) {
+                    @Override
+                    public void write(String s, int off, int len) {
+                        if (sessionId == null) {
+                            capture(s.substring(off, off + len));
+                        }
+                        super.write(s, off, len);
+                    }
+
+                    @Override
+                    public boolean checkError() {
+                        return super.checkError() || target.checkError();
+                    }
+                };
+            }
+            return writer;
+        }
+
+        private void capture(String text) {
+            int at = text.indexOf(SESSION_QUERY);
+            if (at < 0) {
+                return;
+            }
+            int start = at + SESSION_QUERY.length();
+            int end = start;
+            while (end < text.length() && !Character.isWhitespace(text.charAt(end)) && text.charAt(end) != '&') {
+                end++;
+            }
+            String id = text.substring(start, end);
+            sessionId = id.substring(id.lastIndexOf('.') + 1);
+        }
+
+        synchronized void disconnected() {
+            if (!reported && sessionId != null) {
+                reported = true;
+                disconnected.accept(sessionId);
+            }
+        }
+    }
+
+    private static final class Closed implements AsyncListener {
+        private final SessionIdCapture capture;
+
+        Closed(SessionIdCapture capture) {
+            this.capture = capture;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            capture.disconnected();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            capture.disconnected();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            capture.disconnected();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
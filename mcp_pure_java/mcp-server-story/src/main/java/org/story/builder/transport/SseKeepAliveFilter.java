@@ -0,0 +1,176 @@
+package org.story.builder.transport;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a {@code : keep-alive} comment to every open SSE stream at a fixed
+ * interval. The SDK sends nothing on a stream waiting for events, so without it
+ * the connection looks idle to Jetty and to proxies in between, which close it,
+ * and a client that went away unnoticed is only found on the next event.
+ *
+ * <p>The SDK writes an event in several calls; the comment is only written when
+ * the stream is between events, after the blank line ending the last one. When
+ * writing it fails the stream is completed, so its session is cleaned up.
+ */
+public class SseKeepAliveFilter implements Filter {
+    private static final String KEEP_ALIVE = ": keep-alive\n\n";
+
+    private final long intervalMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("sse-keep-alive").factory());
+
+    public SseKeepAliveFilter(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        KeepAliveResponse stream = new KeepAliveResponse((HttpServletResponse) response);
+        chain.doFilter(request, stream);
+        if (request.isAsyncStarted()) {
+            stream.start(request.getAsyncContext());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private final class KeepAliveResponse extends HttpServletResponseWrapper {
+        private volatile EventWriter writer;
+        private volatile AsyncContext async;
+        private volatile ScheduledFuture<?> task;
+
+        KeepAliveResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new EventWriter(super.getWriter());
+            }
+            return writer;
+        }
+
+        void start(AsyncContext async) {
+            this.async = async;
+            task = scheduler.scheduleAtFixedRate(this::keepAlive, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+            async.addListener(new Closed(task));
+        }
+
+        private void keepAlive() {
+            EventWriter events = writer;
+            if (events == null || events.keepAlive()) {
+                return;
+            }
+            task.cancel(false);
+            try {
+                async.complete();
+            } catch (IllegalStateException e) {
+                // Already completed by the SDK.
+            }
+        }
+    }
+
+    private static final class EventWriter extends PrintWriter {
+        private final PrintWriter target;
+        /** The last two characters written, to find the blank line ending an event. */
+        private char last = '\n';
+        private char beforeLast = '\n';
+
+        EventWriter(PrintWriter target) {
+            super(target);
+            this.target = target;
+        }
+
+        @Override
+        public void write(int c) {
+            synchronized (lock) {
+                super.write(c);
+                beforeLast = last;
+                last = (char) c;
+            }
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            synchronized (lock) {
+                super.write(buf, off, len);
+                if (len > 0) {
+                    beforeLast = len > 1 ? buf[off + len - 2] : last;
+                    last = buf[off + len - 1];
+                }
+            }
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            synchronized (lock) {
+                super.write(s, off, len);
+                if (len > 0) {
+                    beforeLast = len > 1 ? s.charAt(off + len - 2) : last;
+                    last = s.charAt(off + len - 1);
+                }
+            }
+        }
+
+        @Override
+        public boolean checkError() {
+            return super.checkError() || target.checkError();
+        }
+
+        /**
+         * @return {@code false} if the stream can no longer be written
+         */
+        boolean keepAlive() {
+            synchronized (lock) {
+                if (last == '\n' && beforeLast == '\n') {
+                    write(KEEP_ALIVE);
+                    flush();
+                }
+                return !checkError();
+            }
+        }
+    }
+
+    private record Closed(ScheduledFuture<?> task) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            task.cancel(false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            task.cancel(false);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            task.cancel(false);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.story.builder.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Adds {@code resources/subscribe} and {@code resources/unsubscribe} to another
+ * transport provider. The SDK's server answers both with "method not found", so
+ * each session the server creates is wrapped in one that handles these two
+ * requests itself, records them in {@link ResourceSubscriptions}, and passes
+ * every other message through unchanged.
+ */
+public class SubscribingServerTransportProvider implements McpServerTransportProvider {
+
+    private final McpServerTransportProvider delegate;
+    private final ResourceSubscriptions subscriptions;
+
+    public SubscribingServerTransportProvider(McpServerTransportProvider delegate, ResourceSubscriptions subscriptions) {
+        this.delegate = delegate;
+        this.subscriptions = subscriptions;
+    }
+
+    @Override
+    public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+        delegate.setSessionFactory(transport -> new SubscribingSession(sessionFactory.create(transport), transport));
+    }
+
+    @Override
+    public Mono<Void> notifyClients(String method, Map<String, Object> params) {
+        return delegate.notifyClients(method, params);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        return delegate.closeGracefully();
+    }
+
+    private final class SubscribingSession extends ForwardingServerSession {
+
+        SubscribingSession(McpServerSession session, McpServerTransport transport) {
+            super(session, transport);
+        }
+
+        @Override
+        public Mono<Void> handle(McpSchema.JSONRPCMessage message) {
+            if (message instanceof McpSchema.JSONRPCRequest request) {
+                switch (request.method()) {
+                    case McpSchema.METHOD_RESOURCES_SUBSCRIBE:
+                        return subscription(request, true);
+                    case McpSchema.METHOD_RESOURCES_UNSUBSCRIBE:
+                        return subscription(request, false);
+                    default:
+                }
+            }
+            return session.handle(message);
+        }
+
+        private Mono<Void> subscription(McpSchema.JSONRPCRequest request, boolean subscribe) {
+            if (!(request.params() instanceof Map<?, ?> params && params.get("uri") instanceof String uri)) {
+                return sendError(request, McpSchema.ErrorCodes.INVALID_PARAMS, "Missing uri");
+            }
+            if (subscribe) {
+                subscriptions.subscribe(uri, this);
+            } else {
+                subscriptions.unsubscribe(uri, this);
+            }
+            return transport.sendMessage(
+                    new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), Map.of(), null));
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            subscriptions.unsubscribeAll(this);
+            return session.closeGracefully();
+        }
+
+        @Override
+        public void close() {
+            subscriptions.unsubscribeAll(this);
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.story.builder.transport;
+
+import org.story.builder.metrics.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Queue;
+
+/**
+ * Admission control and fair dispatch of tool calls across sessions.
+ *
+ * <p>A call is rejected on arrival when its session already has
+ * {@link AdmissionConfig#sessionQueue()} calls waiting, when
+ * {@link AdmissionConfig#maxQueued()} calls wait in total, or when its session is
+ * over its rate (a token bucket, charged only for calls that fit in the queues).
+ * Otherwise it waits in its session's queue. Sessions with waiting calls and a
+ * free slot take turns, one call per turn, whenever fewer than
+ * {@link AdmissionConfig#maxRunning()} calls run; a session never runs more than
+ * {@link AdmissionConfig#sessionConcurrency()} at once. A session that floods the server therefore waits behind its own calls
+ * and is rejected early, while others keep getting their turn.
+ */
+public class ToolCallScheduler {
+
+    /**
+     * Why a call was not admitted; {@link #code} is the JSON-RPC error code it is answered with.
+     */
+    public enum Rejection {
+        RATE_LIMITED(-32001, "Rate limit exceeded for this session; retry later"),
+        SESSION_QUEUE_FULL(-32000, "Too many tool calls pending for this session; retry later"),
+        OVERLOADED(-32000, "Server overloaded; retry later"),
+        SESSION_CLOSED(-32000, "Session closed");
+
+        final int code;
+        final String message;
+
+        Rejection(int code, String message) {
+            this.code = code;
+            this.message = message;
+        }
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final AdmissionConfig config;
+    private final Object lock = new Object();
+    private final Queue<SessionQueue> turns = new ArrayDeque<>();
+    private int running;
+    private int queued;
+
+    public ToolCallScheduler(AdmissionConfig config) {
+        this.config = config;
+    }
+
+    public SessionQueue newSession() {
+        return new SessionQueue();
+    }
+
+    /**
+     * Starts queued calls while there are free slots. Calls are started outside the
+     * lock; starting one only subscribes to its handler.
+     */
+    private void dispatch() {
+        while (true) {
+            Runnable call;
+            synchronized (lock) {
+                if (running >= config.maxRunning() || turns.isEmpty()) {
+                    return;
+                }
+                SessionQueue session = turns.poll();
+                call = session.pending.poll();
+                queued--;
+                running++;
+                session.running++;
+                session.hasTurn = false;
+                session.takeTurnIfReady();
+                Metrics.toolCallsQueued(queued);
+            }
+            call.run();
+        }
+    }
+
+    /**
+     * The calls of one session.
+     */
+    public final class SessionQueue {
+        private final Queue<Runnable> pending = new ArrayDeque<>();
+        private int running;
+        private boolean hasTurn;
+        private boolean closed;
+        private double tokens = config.sessionBurst();
+        private long refilledAt = System.nanoTime();
+
+        private SessionQueue() {
+        }
+
+        /**
+         * Queues {@code call} to be run when it is this session's turn; it must call
+         * {@link #finished()} when done. Returns why it was rejected instead, or
+         * {@code null} once it is queued.
+         */
+        public Rejection submit(Runnable call) {
+            Rejection rejection = admit(call);
+            if (rejection != null) {
+                Metrics.toolCallRejected(rejection.label());
+                return rejection;
+            }
+            dispatch();
+            return null;
+        }
+
+        private Rejection admit(Runnable call) {
+            synchronized (lock) {
+                if (closed) {
+                    return Rejection.SESSION_CLOSED;
+                }
+                if (pending.size() >= config.sessionQueue()) {
+                    return Rejection.SESSION_QUEUE_FULL;
+                }
+                if (queued >= config.maxQueued()) {
+                    return Rejection.OVERLOADED;
+                }
+                // Last, so that calls turned away for capacity do not spend the session's tokens.
+                if (config.sessionRate() > 0 && !takeToken()) {
+                    return Rejection.RATE_LIMITED;
+                }
+                pending.add(call);
+                queued++;
+                takeTurnIfReady();
+                Metrics.toolCallsQueued(queued);
+                return null;
+            }
+        }
+
+        /**
+         * Frees the slot of a call started by this session.
+         */
+        public void finished() {
+            synchronized (lock) {
+                ToolCallScheduler.this.running--;
+                running--;
+                takeTurnIfReady();
+            }
+            dispatch();
+        }
+
+        /**
+         * Drops the calls still waiting and turns away new ones. Calls already started
+         * still call {@link #finished()}.
+         */
+        public void close() {
+            synchronized (lock) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                queued -= pending.size();
+                pending.clear();
+                if (hasTurn) {
+                    turns.remove(this);
+                    hasTurn = false;
+                }
+                Metrics.toolCallsQueued(queued);
+            }
+        }
+
+        private void takeTurnIfReady() {
+            if (!hasTurn && !pending.isEmpty() && running < config.sessionConcurrency()) {
+                turns.add(this);
+                hasTurn = true;
+            }
+        }
+
+        private boolean takeToken() {
+            long now = System.nanoTime();
+            tokens = Math.min(config.sessionBurst(), tokens + (now - refilledAt) * config.sessionRate() / 1e9);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
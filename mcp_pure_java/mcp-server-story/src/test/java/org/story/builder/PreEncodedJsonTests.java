@@ -0,0 +1,64 @@
+package org.story.builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.story.builder.characters.CharacterRegistry;
+import org.story.builder.search.StoryIndex;
+import org.story.builder.store.FileStoryRepository;
+import org.story.builder.tools.StoryToolEngine;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreEncodedJsonTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void writesTheSameBytesAsPlainSerialization() throws Exception {
+		CharacterRegistry characters = CharacterRegistry.defaults();
+		CharacterResponses responses = new CharacterResponses(
+				new StoryToolEngine(characters, new FileStoryRepository(dir), new StoryIndex(), 1024), characters);
+		ObjectMapper plain = new ObjectMapper();
+		ObjectMapper preEncoded = PreEncodedJson.register(new ObjectMapper(), responses::json);
+
+		List<McpSchema.CallToolResult> results = new ArrayList<>();
+		for (String name : characters.names()) {
+			results.add(responses.backstory(name));
+			results.add(responses.superpower(name));
+		}
+		results.add(responses.backstory("nobody"));
+		results.add(responses.firstPage());
+
+		for (McpSchema.CallToolResult result : results) {
+			assertThat(responses.json().get(result)).isNotNull();
+			McpSchema.JSONRPCResponse response = new McpSchema.JSONRPCResponse(
+					McpSchema.JSONRPC_VERSION, 1, result, null);
+			assertThat(preEncoded.writeValueAsBytes(response)).isEqualTo(plain.writeValueAsBytes(response));
+		}
+	}
+
+	@Test
+	void keepsOneTablePerInstance() {
+		McpSchema.CallToolResult first = new McpSchema.CallToolResult(
+				List.of(new McpSchema.TextContent("first")), false);
+		McpSchema.CallToolResult second = new McpSchema.CallToolResult(
+				List.of(new McpSchema.TextContent("second")), false);
+		PreEncodedJson a = new PreEncodedJson();
+		PreEncodedJson b = new PreEncodedJson();
+
+		a.publish(List.of(first));
+		b.publish(List.of(second));
+
+		assertThat(a.get(first)).isNotNull();
+		assertThat(a.get(second)).isNull();
+		assertThat(b.get(second)).isNotNull();
+		assertThat(b.get(first)).isNull();
+	}
+}
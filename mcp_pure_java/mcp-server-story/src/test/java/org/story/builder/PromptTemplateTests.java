@@ -0,0 +1,63 @@
+package org.story.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PromptTemplateTests {
+
+	@Test
+	void compilesPlaceholdersIntoArgumentNames() {
+		PromptTemplate template = PromptTemplate.compile("Save {{ title }} by {{author}}.");
+
+		assertThat(template.argumentNames()).containsExactly("title", "author");
+		assertThat(PromptTemplate.compile("No placeholders").argumentNames()).isEmpty();
+	}
+
+	@Test
+	void rejectsAnUnclosedPlaceholder() {
+		assertThatThrownBy(() -> PromptTemplate.compile("Save {{title"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Unclosed placeholder at 5");
+	}
+
+	@Test
+	void rendersArgumentsBetweenTheLiterals() {
+		PromptTemplate template = PromptTemplate.compile("{{a}} and {{b}}!");
+
+		assertThat(template.render(Map.of("a", "one", "b", 2))).isEqualTo("one and 2!");
+		assertThat(template.render(Map.of("a", "three", "b", "four"))).isEqualTo("three and four!");
+		assertThat(PromptTemplate.compile("Plain").render(Map.of())).isEqualTo("Plain");
+	}
+
+	@Test
+	void keysRendersByTheArgumentValues() {
+		PromptTemplate single = PromptTemplate.compile("Story {{title}}");
+		PromptTemplate pair = PromptTemplate.compile("{{a}} {{b}}");
+
+		assertThat(single.key(Map.of("title", "tale"), 8)).isEqualTo("tale");
+		assertThat(pair.key(Map.of("a", "x", "b", "y"), 8)).isEqualTo(List.of("x", "y"));
+		assertThat(PromptTemplate.compile("Plain").key(null, 8)).isEqualTo("");
+	}
+
+	@Test
+	void doesNotKeyMissingOrLongArguments() {
+		PromptTemplate single = PromptTemplate.compile("Story {{title}}");
+		PromptTemplate pair = PromptTemplate.compile("{{a}} {{b}}");
+		Map<String, Object> nullValue = new HashMap<>();
+		nullValue.put("title", null);
+
+		assertThat(single.key(Map.of(), 8)).isNull();
+		assertThat(single.key(nullValue, 8)).isNull();
+		assertThat(single.key(null, 8)).isNull();
+		assertThat(single.key(Map.of("title", "null"), 8)).isEqualTo("null");
+		assertThat(pair.key(Map.of("a", "x"), 8)).isNull();
+		assertThat(single.key(Map.of("title", "a long title"), 8)).isNull();
+		assertThat(pair.key(Map.of("a", "x", "b", "a long value"), 8)).isNull();
+	}
+}
@@ -0,0 +1,140 @@
+package org.story.builder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.story.builder.store.Durability;
+import org.story.builder.store.FileStoryRepository;
+import org.story.builder.store.IndexedStoryRepository;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseServerTests {
+
+	private static final String INITIALIZE = """
+			{"jsonrpc":"2.0","method":"initialize","id":1,"params":{"protocolVersion":"2024-11-05",
+			"capabilities":{},"clientInfo":{"name":"test","version":"1"}}}""";
+
+	@TempDir
+	Path dir;
+
+	@Test
+	@Timeout(10)
+	void writesKeepAlivesBetweenEvents() throws Exception {
+		System.setProperty("story.store.dir", dir.toString());
+		StoryTools.useRepository(new FileStoryRepository(dir));
+		SseServer server = new SseServer(
+				new HttpServerConfig("127.0.0.1", 0, false, 20, 8, -1, -1, 30_000, 100, 32 * 1024, false));
+		try {
+			server.start();
+			URI base = URI.create("http://127.0.0.1:" + server.getPort());
+			HttpClient client = HttpClient.newHttpClient();
+			HttpResponse<InputStream> stream = client.send(
+					HttpRequest.newBuilder(base.resolve("/sse")).header("Accept", "text/event-stream").build(),
+					HttpResponse.BodyHandlers.ofInputStream());
+			try (BufferedReader events = new BufferedReader(
+					new InputStreamReader(stream.body(), StandardCharsets.UTF_8))) {
+				String endpoint = nextData(events);
+				assertThat(nextLine(events)).isEmpty();
+				assertThat(nextLine(events)).isEqualTo(": keep-alive");
+				assertThat(nextLine(events)).isEmpty();
+
+				client.send(HttpRequest.newBuilder(base.resolve(endpoint))
+								.header("Content-Type", "application/json")
+								.POST(HttpRequest.BodyPublishers.ofString(INITIALIZE))
+								.build(),
+						HttpResponse.BodyHandlers.discarding());
+
+				assertThat(nextData(events)).contains("\"id\":1");
+			}
+		} finally {
+			server.stop();
+			StoryTools.useRepository(null);
+			System.clearProperty("story.store.dir");
+		}
+	}
+
+	@Test
+	@Timeout(10)
+	void pushesStoriesSavedToAnIndexedStore() throws Exception {
+		System.setProperty("story.store.dir", dir.toString());
+		StoryTools.useRepository(IndexedStoryRepository.open(dir, Durability.NONE));
+		SseServer server = new SseServer(
+				new HttpServerConfig("127.0.0.1", 0, false, 20, 8, -1, -1, 30_000, 0, 32 * 1024, false));
+		try {
+			server.start();
+			URI base = URI.create("http://127.0.0.1:" + server.getPort());
+			HttpClient client = HttpClient.newHttpClient();
+			HttpResponse<InputStream> stream = client.send(
+					HttpRequest.newBuilder(base.resolve("/sse")).header("Accept", "text/event-stream").build(),
+					HttpResponse.BodyHandlers.ofInputStream());
+			try (BufferedReader events = new BufferedReader(
+					new InputStreamReader(stream.body(), StandardCharsets.UTF_8))) {
+				URI endpoint = base.resolve(nextData(events));
+				post(client, endpoint, INITIALIZE);
+				assertThat(nextData(events)).contains("\"id\":1");
+				post(client, endpoint, """
+						{"jsonrpc":"2.0","method":"notifications/initialized"}""");
+				post(client, endpoint, """
+						{"jsonrpc":"2.0","method":"resources/subscribe","id":2,"params":{"uri":"story://tale.md"}}""");
+				assertThat(nextData(events)).contains("\"id\":2");
+
+				post(client, endpoint, """
+						{"jsonrpc":"2.0","method":"tools/call","id":3,
+						"params":{"name":"save_story","arguments":{"title":"tale","content":"Once."}}}""");
+
+				List<String> pushed = new ArrayList<>();
+				for (int i = 0; i < 3; i++) {
+					pushed.add(nextData(events));
+				}
+				assertThat(pushed).anyMatch(data -> data.contains("notifications/resources/list_changed"));
+				assertThat(pushed).anyMatch(data -> data.contains("notifications/resources/updated")
+						&& data.contains("story://tale.md"));
+				assertThat(pushed).anyMatch(data -> data.contains("\"id\":3"));
+			}
+		} finally {
+			server.stop();
+			StoryTools.stories().close();
+			StoryTools.useRepository(null);
+			System.clearProperty("story.store.dir");
+		}
+	}
+
+	private static void post(HttpClient client, URI endpoint, String body) throws Exception {
+		client.send(HttpRequest.newBuilder(endpoint)
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(body))
+						.build(),
+				HttpResponse.BodyHandlers.discarding());
+	}
+
+	private static String nextLine(BufferedReader events) throws Exception {
+		String line = events.readLine();
+		if (line == null) {
+			throw new AssertionError("SSE stream closed");
+		}
+		return line;
+	}
+
+	private static String nextData(BufferedReader events) throws Exception {
+		String line;
+		while ((line = events.readLine()) != null) {
+			if (line.startsWith("data:")) {
+				return line.substring("data:".length()).strip();
+			}
+		}
+		throw new AssertionError("SSE stream closed");
+	}
+}
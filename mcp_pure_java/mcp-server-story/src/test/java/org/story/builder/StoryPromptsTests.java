@@ -0,0 +1,38 @@
+package org.story.builder;
+
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoryPromptsTests {
+
+	@Test
+	void savesStoryWithTheContentAsASecondMessage() throws Exception {
+		McpSchema.GetPromptResult result = StoryPrompts.saveStory().promptHandler().apply(null,
+				new McpSchema.GetPromptRequest("save_story", Map.of("title", "tale", "content", "Once upon a time.")));
+
+		assertThat(result.messages()).extracting(message -> ((McpSchema.TextContent) message.content()).text())
+				.containsExactly("Please save the story to disk: tale", "Once upon a time.");
+	}
+
+	@Test
+	void rendersMissingArgumentsWithoutCachingThem() throws Exception {
+		McpServerFeatures.SyncPromptSpecification getStory = StoryPrompts.getStory();
+
+		McpSchema.GetPromptResult missing = getStory.promptHandler().apply(null,
+				new McpSchema.GetPromptRequest("get_story", Map.of()));
+		McpSchema.GetPromptResult named = getStory.promptHandler().apply(null,
+				new McpSchema.GetPromptRequest("get_story", Map.of("filename", "tale.md")));
+
+		assertThat(((McpSchema.TextContent) missing.messages().get(0).content()).text())
+				.isEqualTo("What is the content of this story: null");
+		assertThat(getStory.promptHandler().apply(null, new McpSchema.GetPromptRequest("get_story", Map.of())))
+				.isNotSameAs(missing);
+		assertThat(getStory.promptHandler().apply(null,
+				new McpSchema.GetPromptRequest("get_story", Map.of("filename", "tale.md")))).isSameAs(named);
+	}
+}
@@ -0,0 +1,120 @@
+package org.story.builder.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.story.builder.HttpServerConfig;
+import org.story.builder.SseServer;
+import org.story.builder.StoryTools;
+import org.story.builder.store.FileStoryRepository;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterSseServerTransportProviderTests {
+
+	private static final String INITIALIZE = """
+			{"jsonrpc":"2.0","method":"initialize","id":1,"params":{"protocolVersion":"2024-11-05",
+			"capabilities":{},"clientInfo":{"name":"test","version":"1"}}}""";
+
+	@TempDir
+	Path dir;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final List<SseServer> servers = new ArrayList<>();
+
+	@BeforeEach
+	void useTempStore() {
+		System.setProperty("story.store.dir", dir.toString());
+		StoryTools.useRepository(new FileStoryRepository(dir));
+	}
+
+	@AfterEach
+	void stopServers() throws Exception {
+		for (SseServer server : servers) {
+			server.stop();
+		}
+		StoryTools.useRepository(null);
+		System.clearProperty("story.store.dir");
+	}
+
+	@Test
+	@Timeout(10)
+	void routesMessagesToTheNodeHoldingTheStream() throws Exception {
+		InJvmMessageForwarder forwarder = new InJvmMessageForwarder();
+		URI a = start(new ClusterNode("node-a", forwarder));
+		URI b = start(new ClusterNode("node-b", forwarder));
+
+		HttpResponse<InputStream> stream = client.send(
+				HttpRequest.newBuilder(a.resolve("/sse")).header("Accept", "text/event-stream").build(),
+				HttpResponse.BodyHandlers.ofInputStream());
+		try (BufferedReader events = new BufferedReader(
+				new InputStreamReader(stream.body(), StandardCharsets.UTF_8))) {
+			String endpoint = nextData(events);
+			assertThat(endpoint).startsWith("/message?sessionId=node-a.");
+
+			assertThat(post(b.resolve(endpoint), INITIALIZE, false).statusCode()).isEqualTo(200);
+			assertThat(nextData(events)).contains("\"id\":1");
+
+			assertThat(post(b.resolve(endpoint), INITIALIZE, true).statusCode()).isEqualTo(404);
+		}
+	}
+
+	@Test
+	@Timeout(10)
+	void answersForUnknownAndUnreachablePeers() throws Exception {
+		URI unreachable;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			unreachable = URI.create("http://127.0.0.1:" + socket.getLocalPort());
+		}
+		URI a = start(new ClusterNode("node-a",
+				new HttpMessageForwarder(Map.of("node-b", unreachable), Duration.ofSeconds(5))));
+
+		assertThat(post(a.resolve("/message?sessionId=node-c.1"), INITIALIZE, false).statusCode()).isEqualTo(404);
+		assertThat(post(a.resolve("/message?sessionId=node-b.1"), INITIALIZE, false).statusCode()).isEqualTo(502);
+	}
+
+	private URI start(ClusterNode node) throws Exception {
+		SseServer server = new SseServer(
+				new HttpServerConfig("127.0.0.1", 0, false, 20, 8, -1, -1, 30_000, 0, 32 * 1024, false), node);
+		servers.add(server);
+		server.start();
+		return URI.create("http://127.0.0.1:" + server.getPort());
+	}
+
+	private HttpResponse<Void> post(URI uri, String body, boolean forwarded) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body));
+		if (forwarded) {
+			request.header(ClusterSseServerTransportProvider.FORWARDED_HEADER, "true");
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+	}
+
+	private static String nextData(BufferedReader events) throws Exception {
+		String line;
+		while ((line = events.readLine()) != null) {
+			if (line.startsWith("data:")) {
+				return line.substring("data:".length()).strip();
+			}
+		}
+		throw new AssertionError("SSE stream closed");
+	}
+}
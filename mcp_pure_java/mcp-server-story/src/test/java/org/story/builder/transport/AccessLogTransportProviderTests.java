@@ -0,0 +1,128 @@
+package org.story.builder.transport;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.KeyValuePair;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogTransportProviderTests {
+
+	private final Logger access = (Logger) LoggerFactory.getLogger("story.access");
+	private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+	AccessLogTransportProviderTests() {
+		events.start();
+		access.addAppender(events);
+	}
+
+	@AfterEach
+	void detach() {
+		access.detachAppender(events);
+	}
+
+	@Test
+	void logsFailuresFromTheResponseEvenWhenNotSampled() {
+		SessionCapture capture = new SessionCapture();
+		new AccessLogTransportProvider(capture, 0).setSessionFactory(AnsweringSession::new);
+		McpServerSession session = capture.factory.create(new DiscardingTransport());
+
+		session.handle(request(1, "tools/call", "broken_tool")).block();
+		session.handle(request(2, "tools/call", "working_tool")).block();
+		session.handle(request(3, "prompts/get", "missing")).block();
+
+		assertThat(events.list).extracting(event -> keyValues(event).get("outcome"))
+				.containsExactly("tool_error", "error");
+		assertThat(keyValues(events.list.get(0))).containsEntry("name", "broken_tool").containsEntry("id", 1);
+		assertThat(keyValues(events.list.get(1))).containsEntry("code", McpSchema.ErrorCodes.INVALID_PARAMS);
+	}
+
+	private static McpSchema.JSONRPCRequest request(int id, String method, String name) {
+		return new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, method, id, Map.of("name", name));
+	}
+
+	private static Map<String, Object> keyValues(ILoggingEvent event) {
+		return event.getKeyValuePairs().stream().filter(pair -> pair.value != null)
+				.collect(Collectors.toMap(pair -> pair.key, pair -> pair.value));
+	}
+
+	/**
+	 * Answers {@code broken_tool} with a tool error, other tools with a result and
+	 * everything else with a JSON-RPC error, as the server's session would.
+	 */
+	private static final class AnsweringSession extends McpServerSession {
+		private final McpServerTransport transport;
+
+		AnsweringSession(McpServerTransport transport) {
+			super("session", transport, null, null, Map.of(), Map.of());
+			this.transport = transport;
+		}
+
+		@Override
+		public Mono<Void> handle(McpSchema.JSONRPCMessage message) {
+			McpSchema.JSONRPCRequest request = (McpSchema.JSONRPCRequest) message;
+			Object name = ((Map<?, ?>) request.params()).get("name");
+			McpSchema.JSONRPCResponse response;
+			if (request.method().equals(McpSchema.METHOD_TOOLS_CALL)) {
+				response = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(),
+						new McpSchema.CallToolResult(List.of(new McpSchema.TextContent("done")),
+								name.equals("broken_tool")), null);
+			} else {
+				response = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null,
+						new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_PARAMS, "missing", null));
+			}
+			return transport.sendMessage(response);
+		}
+	}
+
+	private static final class SessionCapture implements McpServerTransportProvider {
+		McpServerSession.Factory factory;
+
+		@Override
+		public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+			factory = sessionFactory;
+		}
+
+		@Override
+		public Mono<Void> notifyClients(String method, Map<String, Object> params) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<Void> closeGracefully() {
+			return Mono.empty();
+		}
+	}
+
+	private static final class DiscardingTransport implements McpServerTransport {
+
+		@Override
+		public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+			return Mono.empty();
+		}
+
+		@Override
+		public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Mono<Void> closeGracefully() {
+			return Mono.empty();
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package org.story.builder.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlTransportProviderTests {
+
+	private final SessionCapture capture = new SessionCapture();
+
+	AdmissionControlTransportProviderTests() {
+		AdmissionControlTransportProvider provider = new AdmissionControlTransportProvider(capture,
+				new ToolCallScheduler(new AdmissionConfig(true, 64, 1024, 4, 64, 0, 0)));
+		provider.setSessionFactory(transport -> new SlowSession((RecordingTransport) transport));
+	}
+
+	@Test
+	void floodedSessionDoesNotHoldUpOtherSessions() throws Exception {
+		RecordingTransport floodTransport = new RecordingTransport(Duration.ofMillis(500));
+		McpServerSession flood = capture.factory.create(floodTransport);
+		RecordingTransport otherTransport = new RecordingTransport(Duration.ZERO);
+		McpServerSession other = capture.factory.create(otherTransport);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 100; i++) {
+			flood.handle(toolCall(i)).block(Duration.ofSeconds(1));
+		}
+		// 4 running and 64 queued are acknowledged, the other 32 are turned away.
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+		assertThat(floodTransport.sent).hasSize(32).allMatch(response -> response.error() != null);
+
+		other.handle(toolCall(1)).block(Duration.ofSeconds(1));
+		waitFor(otherTransport.sent, 1, Duration.ofSeconds(2));
+		assertThat(otherTransport.sent.get(0).error()).isNull();
+		assertThat(floodTransport.sent).hasSizeLessThan(36);
+		flood.close();
+	}
+
+	@Test
+	void closingASessionDropsItsCalls() throws Exception {
+		RecordingTransport transport = new RecordingTransport(Duration.ofMillis(200));
+		McpServerSession session = capture.factory.create(transport);
+		for (int i = 0; i < 10; i++) {
+			session.handle(toolCall(i)).block(Duration.ofSeconds(1));
+		}
+		session.close();
+
+		Thread.sleep(500);
+		assertThat(transport.sent).isEmpty();
+		session.handle(toolCall(10)).block(Duration.ofSeconds(1));
+		assertThat(transport.sent).singleElement().satisfies(response -> assertThat(response.error()).isNotNull());
+	}
+
+	private static McpSchema.JSONRPCRequest toolCall(int id) {
+		return new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, id,
+				Map.of("name", "get_backstory", "arguments", Map.of("character", "Ram")));
+	}
+
+	private static void waitFor(List<?> list, int size, Duration timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (list.size() < size && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static final class SessionCapture implements McpServerTransportProvider {
+		McpServerSession.Factory factory;
+
+		@Override
+		public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+			factory = sessionFactory;
+		}
+
+		@Override
+		public Mono<Void> notifyClients(String method, Map<String, Object> params) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<Void> closeGracefully() {
+			return Mono.empty();
+		}
+	}
+
+	/**
+	 * Answers every request with an empty result after the delay of its transport.
+	 */
+	private static final class SlowSession extends McpServerSession {
+		private final RecordingTransport transport;
+
+		SlowSession(RecordingTransport transport) {
+			super(UUID.randomUUID().toString(), transport, null, null, Map.of(), Map.of());
+			this.transport = transport;
+		}
+
+		@Override
+		public Mono<Void> handle(McpSchema.JSONRPCMessage message) {
+			McpSchema.JSONRPCRequest request = (McpSchema.JSONRPCRequest) message;
+			return Mono.delay(transport.delay).then(transport.sendMessage(
+					new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), Map.of(), null)));
+		}
+	}
+
+	private static final class RecordingTransport implements McpServerTransport {
+		final Duration delay;
+		final List<McpSchema.JSONRPCResponse> sent = new CopyOnWriteArrayList<>();
+
+		RecordingTransport(Duration delay) {
+			this.delay = delay;
+		}
+
+		@Override
+		public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+			return Mono.fromRunnable(() -> sent.add((McpSchema.JSONRPCResponse) message));
+		}
+
+		@Override
+		public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Mono<Void> closeGracefully() {
+			return Mono.empty();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package org.story.builder.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NioStdioServerTransportProviderTests {
+
+	private final ObjectMapper json = new ObjectMapper();
+
+	@Test
+	void dropsAResponseThatFailsToSerializeAndReadsTheLastLineWithoutNewline() throws Exception {
+		String input = """
+				{"jsonrpc":"2.0","method":"unserializable","id":1}
+				{"jsonrpc":"2.0","method":"notifications/initialized"}
+				{"jsonrpc":"2.0","method":"echo","id":2,"params":{"text":"last"}}""";
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		NioStdioServerTransportProvider provider = new NioStdioServerTransportProvider(json,
+				Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))),
+				Channels.newChannel(output));
+		List<McpSchema.JSONRPCMessage> received = new CopyOnWriteArrayList<>();
+		provider.setSessionFactory(transport -> new EchoSession(transport, received));
+
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (!output.toString(StandardCharsets.UTF_8).contains("\"id\":2") && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(received).hasSize(3);
+		assertThat(received.get(1)).isInstanceOf(McpSchema.JSONRPCNotification.class);
+		String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+		assertThat(lines).hasSize(1);
+		McpSchema.JSONRPCResponse response = json.readValue(lines[0], McpSchema.JSONRPCResponse.class);
+		assertThat(response.id()).isEqualTo(2);
+		assertThat(response.result()).isEqualTo(Map.of("text", "last"));
+	}
+
+	/**
+	 * Answers requests with their params; {@code unserializable} with a result Jackson cannot write.
+	 */
+	private static final class EchoSession extends McpServerSession {
+		private final McpServerTransport transport;
+		private final List<McpSchema.JSONRPCMessage> received;
+
+		EchoSession(McpServerTransport transport, List<McpSchema.JSONRPCMessage> received) {
+			super("stdio", transport, null, null, Map.of(), Map.of());
+			this.transport = transport;
+			this.received = received;
+		}
+
+		@Override
+		public Mono<Void> handle(McpSchema.JSONRPCMessage message) {
+			received.add(message);
+			if (!(message instanceof McpSchema.JSONRPCRequest request)) {
+				return Mono.empty();
+			}
+			Object result = request.method().equals("unserializable") ? new Object() : request.params();
+			return transport.sendMessage(
+					new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), result, null));
+		}
+	}
+}